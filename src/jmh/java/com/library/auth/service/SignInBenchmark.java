@@ -0,0 +1,74 @@
+package com.library.auth.service;
+
+import com.library.auth.dto.SignInRequest;
+import com.library.config.JwtConfig;
+import com.library.security.JwtTokenProvider;
+import com.library.security.TokenRevocationList;
+import com.library.user.Role;
+import com.library.user.User;
+import com.library.user.UserService;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sign-in cost, dominated by the BCrypt check. Strength 10 is the encoder default used in production.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SignInBenchmark {
+
+    private static final String PASSWORD = "Passw0rd@benchmark";
+
+    @Param({"10", "12"})
+    public int bcryptStrength;
+
+    private AuthService authService;
+    private SignInRequest request;
+
+    @Setup
+    public void setUp() {
+        BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(bcryptStrength);
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("reader");
+        user.setPassword(passwordEncoder.encode(PASSWORD));
+        user.setRole(Role.PATRON);
+
+        // The user lookup is served by the principal cache in production, so it is stubbed out here
+        UserService userService = Mockito.mock(UserService.class);
+        Mockito.when(userService.getUserByUsername("reader")).thenReturn(user);
+
+        JwtConfig jwtConfig = new JwtConfig();
+        ReflectionTestUtils.setField(jwtConfig, "secret", "benchmark-secret");
+        ReflectionTestUtils.setField(jwtConfig, "expiration", 3600);
+        authService = new AuthService(userService, new JwtTokenProvider(jwtConfig, new TokenRevocationList(null, null, null, 0)), passwordEncoder);
+
+        request = new SignInRequest();
+        request.setUsername("reader");
+        request.setPassword(PASSWORD);
+    }
+
+    @Benchmark
+    public Map<String, String> signIn() {
+        return authService.SignIn(request);
+    }
+}
@@ -0,0 +1,46 @@
+package com.library.book.service;
+
+import com.library.book.dto.BookDTO;
+import com.library.book.entity.Book;
+import com.library.book.enums.BookStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of mapping a {@link Book} entity to its DTO, paid once per row on every list, page and stream.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookMappingBenchmark {
+
+    private BookService bookService;
+    private Book book;
+
+    @Setup
+    public void setUp() {
+        bookService = new BookService(null, null, null, null, null, null);
+        book = new Book("Dune", "Frank Herbert", LocalDate.of(1965, 8, 1), "9780441172719",
+                "A desert planet, a noble family and the spice that holds an empire together.", BookStatus.AVAILABLE);
+        book.setId(42L);
+    }
+
+    @Benchmark
+    public BookDTO convertToDTO() {
+        return bookService.convertToDTO(book);
+    }
+}
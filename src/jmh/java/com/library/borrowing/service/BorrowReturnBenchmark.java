@@ -0,0 +1,108 @@
+package com.library.borrowing.service;
+
+import com.library.LibraryManagementSystemApplication;
+import com.library.book.entity.Book;
+import com.library.book.entity.BookCopy;
+import com.library.book.enums.BookStatus;
+import com.library.book.repository.BookCopyRepository;
+import com.library.book.repository.BookRepository;
+import com.library.borrowing.dto.BorrowingRecordDTO;
+import com.library.patron.entity.Patron;
+import com.library.patron.repository.PatronRepository;
+import com.library.user.Role;
+import com.library.user.User;
+import com.library.user.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One borrow followed by the matching return, each in its own transaction, against the
+ * application context on H2 in PostgreSQL mode (the test "h2" profile). Every benchmark
+ * thread works on its own book, so threads only contend on the connection pool.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+// Hibernate and the transaction proxies need a few thousand calls before the JIT settles
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BorrowReturnBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Application {
+        private final AtomicInteger nextIsbn = new AtomicInteger();
+        private ConfigurableApplicationContext context;
+        private BorrowingRecordService borrowingRecordService;
+        private BookRepository bookRepository;
+        private BookCopyRepository bookCopyRepository;
+        private Long patronId;
+
+        @Setup(Level.Trial)
+        public void start() {
+            context = new SpringApplicationBuilder(LibraryManagementSystemApplication.class)
+                    .profiles("h2")
+                    .properties("server.port=0", "logging.level.root=WARN")
+                    .run();
+            borrowingRecordService = context.getBean(BorrowingRecordService.class);
+            bookRepository = context.getBean(BookRepository.class);
+            bookCopyRepository = context.getBean(BookCopyRepository.class);
+
+            User user = new User();
+            user.setUsername("benchmark");
+            user.setPassword("unused");
+            user.setRole(Role.PATRON);
+            context.getBean(UserRepository.class).save(user);
+            Patron patron = new Patron("Benchmark Patron", "benchmark@example.com", null, null);
+            patron.setUser(user);
+            patronId = context.getBean(PatronRepository.class).save(patron).getId();
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            context.close();
+        }
+
+        Long newBook() {
+            String isbn = String.format("979%010d", nextIsbn.incrementAndGet());
+            Book book = new Book("Benchmark Book", "Benchmark Author", LocalDate.of(2000, 1, 1),
+                    isbn, null, BookStatus.AVAILABLE);
+            book.setTotalCopies(1);
+            book.setAvailableCopies(1);
+            Book saved = bookRepository.save(book);
+            bookCopyRepository.save(new BookCopy(saved, BookStatus.AVAILABLE));
+            return saved.getId();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadBook {
+        private Long bookId;
+
+        @Setup(Level.Trial)
+        public void create(Application application) {
+            bookId = application.newBook();
+        }
+    }
+
+    @Benchmark
+    public BorrowingRecordDTO borrowAndReturn(Application application, ThreadBook book) {
+        application.borrowingRecordService.borrowBook(book.bookId, application.patronId);
+        return application.borrowingRecordService.returnBook(book.bookId, application.patronId);
+    }
+}
@@ -0,0 +1,113 @@
+package com.library.loadtest;
+
+import com.library.book.entity.Book;
+import com.library.book.entity.BookCopy;
+import com.library.book.enums.BookStatus;
+import com.library.book.repository.BookCopyRepository;
+import com.library.book.repository.BookRepository;
+import com.library.patron.entity.Patron;
+import com.library.patron.repository.PatronRepository;
+import com.library.user.Role;
+import com.library.user.User;
+import com.library.user.UserRepository;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeds a synthetic library through the application's own repositories. Every user gets the
+ * same password, encoded once, because encoding thousands of BCrypt hashes would dominate the setup.
+ */
+class DatasetGenerator {
+
+    static final String PASSWORD = "Passw0rd@load";
+
+    private static final int CHUNK_SIZE = 1_000;
+    private static final String[] WORDS = {
+            "river", "shadow", "empire", "garden", "winter", "silver", "memory", "ocean", "forest", "engine",
+            "history", "machine", "stone", "light", "harbor", "signal", "kingdom", "storm", "paper", "island"
+    };
+    private static final String[] AUTHORS = {
+            "Adams", "Baker", "Clarke", "Dickens", "Eliot", "Fowler", "Gibson", "Herbert", "Ishiguro", "Jemisin"
+    };
+
+    private final BookRepository bookRepository;
+    private final BookCopyRepository bookCopyRepository;
+    private final PatronRepository patronRepository;
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final Random random;
+
+    DatasetGenerator(BookRepository bookRepository, BookCopyRepository bookCopyRepository,
+                     PatronRepository patronRepository, UserRepository userRepository,
+                     PasswordEncoder passwordEncoder, long seed) {
+        this.bookRepository = bookRepository;
+        this.bookCopyRepository = bookCopyRepository;
+        this.patronRepository = patronRepository;
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.random = new Random(seed);
+    }
+
+    // One copy per book
+    List<Long> seedBooks(int count) {
+        List<Long> ids = new ArrayList<>(count);
+        List<Book> chunk = new ArrayList<>(CHUNK_SIZE);
+        for (int i = 0; i < count; i++) {
+            Book book = new Book(
+                    word() + " " + word() + " " + i,
+                    AUTHORS[random.nextInt(AUTHORS.length)],
+                    LocalDate.of(1900 + random.nextInt(120), 1 + random.nextInt(12), 1),
+                    String.format("978%010d", i),
+                    word() + " " + word() + " " + word(),
+                    BookStatus.AVAILABLE);
+            book.setTotalCopies(1);
+            book.setAvailableCopies(1);
+            chunk.add(book);
+            if (chunk.size() == CHUNK_SIZE || i == count - 1) {
+                List<Book> saved = bookRepository.saveAll(chunk);
+                bookCopyRepository.saveAll(saved.stream().map(b -> new BookCopy(b, BookStatus.AVAILABLE)).toList());
+                saved.forEach(b -> ids.add(b.getId()));
+                chunk.clear();
+            }
+        }
+        return ids;
+    }
+
+    // The first patronCount users also get a patron; the rest only sign in
+    List<Long> seedUsersAndPatrons(int userCount, int patronCount) {
+        String encodedPassword = passwordEncoder.encode(PASSWORD);
+        List<Long> patronIds = new ArrayList<>(patronCount);
+        for (int start = 0; start < userCount; start += CHUNK_SIZE) {
+            List<User> users = new ArrayList<>(CHUNK_SIZE);
+            for (int i = start; i < Math.min(start + CHUNK_SIZE, userCount); i++) {
+                User user = new User();
+                user.setUsername(username(i));
+                user.setPassword(encodedPassword);
+                user.setRole(Role.PATRON);
+                users.add(user);
+            }
+            userRepository.saveAll(users);
+
+            List<Patron> patrons = new ArrayList<>();
+            for (int i = 0; i < users.size() && start + i < patronCount; i++) {
+                Patron patron = new Patron("Patron " + (start + i), username(start + i) + "@example.com", null, null);
+                patron.setUser(users.get(i));
+                patrons.add(patron);
+            }
+            patronRepository.saveAll(patrons).forEach(patron -> patronIds.add(patron.getId()));
+        }
+        return patronIds;
+    }
+
+    static String username(int index) {
+        return "load-user-" + index;
+    }
+
+    private String word() {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
@@ -0,0 +1,51 @@
+package com.library.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Latencies of one endpoint as recorded by one worker. Each worker owns its recorders, so
+ * recording never contends; they are merged once the run is over.
+ */
+class LatencyRecorder {
+
+    private long[] nanos = new long[1024];
+    private int count;
+    private int errors;
+
+    void record(long latencyNanos, boolean success) {
+        if (count == nanos.length) {
+            nanos = Arrays.copyOf(nanos, count * 2);
+        }
+        nanos[count++] = latencyNanos;
+        if (!success) {
+            errors++;
+        }
+    }
+
+    void merge(LatencyRecorder other) {
+        if (count + other.count > nanos.length) {
+            nanos = Arrays.copyOf(nanos, Math.max(nanos.length * 2, count + other.count));
+        }
+        System.arraycopy(other.nanos, 0, nanos, count, other.count);
+        count += other.count;
+        errors += other.errors;
+    }
+
+    int count() {
+        return count;
+    }
+
+    int errors() {
+        return errors;
+    }
+
+    // Nearest-rank percentile in milliseconds; sorts in place, so call it after recording has stopped
+    double percentileMillis(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        Arrays.sort(nanos, 0, count);
+        int rank = (int) Math.ceil(percentile / 100.0 * count);
+        return nanos[Math.max(rank, 1) - 1] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,326 @@
+package com.library.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.library.LibraryManagementSystemApplication;
+import com.library.book.repository.BookCopyRepository;
+import com.library.book.repository.BookRepository;
+import com.library.patron.repository.PatronRepository;
+import com.library.user.UserRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * End-to-end load test: starts the application on a random port, seeds a synthetic library
+ * and drives a weighted mix of HTTP traffic from a pool of workers, then reports throughput
+ * and p50/p99/p999 latency per endpoint. Uses the embedded H2 database of the "h2" profile
+ * unless other profiles or a datasource are given. With several thread modes the whole run is
+ * repeated once per mode, each against a fresh application, to compare platform-thread and
+ * virtual-thread request execution.
+ *
+ * <pre>
+ * mvn -Pbenchmarks test-compile exec:java -Dloadtest.threads=32 -Dloadtest.duration-seconds=120
+ * mvn -Pbenchmarks test-compile exec:java -Dloadtest.threads=1000 -Dloadtest.thread-modes=platform,virtual
+ * </pre>
+ *
+ * Settings (system properties, defaults in brackets): loadtest.books [10000],
+ * loadtest.users [1000], loadtest.patrons [1000], loadtest.threads [16],
+ * loadtest.warmup-seconds [10], loadtest.duration-seconds [60], loadtest.seed [42],
+ * loadtest.profiles [h2], loadtest.report [target/load-test-report.json], loadtest.thread-modes
+ * [platform] and loadtest.mix [sign-in=5,list-books=25,get-book=35,borrow-return=25,update-patron=10].
+ */
+public class LoadTest {
+
+    private static final String DEFAULT_MIX = "sign-in=5,list-books=25,get-book=35,borrow-return=25,update-patron=10";
+    private static final Set<String> OPERATIONS = Set.of("sign-in", "list-books", "get-book", "borrow-return", "update-patron");
+    private static final Set<String> THREAD_MODES = Set.of("platform", "virtual");
+
+    private final Settings settings;
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String baseUrl;
+    private List<Long> bookIds;
+    private List<Long> patronIds;
+
+    LoadTest(Settings settings) {
+        this.settings = settings;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest(Settings.fromSystemProperties()).run();
+    }
+
+    void run() throws Exception {
+        Map<String, Object> modes = new LinkedHashMap<>();
+        for (String threadMode : settings.threadModes()) {
+            System.out.printf("%n=== %s threads ===%n", threadMode);
+            modes.put(threadMode, runMode(threadMode));
+        }
+        writeReport(modes);
+    }
+
+    private Map<String, Object> runMode(String threadMode) throws Exception {
+        SpringApplicationBuilder application = new SpringApplicationBuilder(LibraryManagementSystemApplication.class)
+                .properties("server.port=0", "logging.level.root=WARN",
+                        "spring.threads.virtual.enabled=" + threadMode.equals("virtual"));
+        if (!settings.profiles().isBlank()) {
+            application.profiles(settings.profiles().split(","));
+        }
+        try (ConfigurableApplicationContext context = application.run()) {
+            baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            long seedStartedAt = System.currentTimeMillis();
+            DatasetGenerator generator = new DatasetGenerator(
+                    context.getBean(BookRepository.class),
+                    context.getBean(BookCopyRepository.class),
+                    context.getBean(PatronRepository.class),
+                    context.getBean(UserRepository.class),
+                    context.getBean(PasswordEncoder.class),
+                    settings.seed());
+            bookIds = generator.seedBooks(settings.books());
+            patronIds = generator.seedUsersAndPatrons(settings.users(), settings.patrons());
+            System.out.printf("Seeded %d books, %d users and %d patrons in %d ms%n",
+                    bookIds.size(), settings.users(), patronIds.size(), System.currentTimeMillis() - seedStartedAt);
+
+            return report(drive());
+        }
+    }
+
+    private Map<String, LatencyRecorder> drive() throws Exception {
+        long now = System.nanoTime();
+        long measureFrom = now + Duration.ofSeconds(settings.warmupSeconds()).toNanos();
+        long stopAt = measureFrom + Duration.ofSeconds(settings.durationSeconds()).toNanos();
+
+        // Virtual client threads, so thousands of concurrent clients do not cost thousands of OS threads
+        ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+        List<Future<Map<String, LatencyRecorder>>> futures = new ArrayList<>();
+        for (int i = 0; i < settings.threads(); i++) {
+            Worker worker = new Worker(i, measureFrom, stopAt);
+            futures.add(workers.submit(worker::call));
+        }
+
+        Map<String, LatencyRecorder> merged = new TreeMap<>();
+        for (Future<Map<String, LatencyRecorder>> future : futures) {
+            future.get().forEach((endpoint, recorder) ->
+                    merged.computeIfAbsent(endpoint, key -> new LatencyRecorder()).merge(recorder));
+        }
+        workers.shutdown();
+        return merged;
+    }
+
+    private Map<String, Object> report(Map<String, LatencyRecorder> results) {
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        System.out.printf("%n%-46s %10s %8s %10s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms");
+        results.forEach((endpoint, recorder) -> {
+            double throughput = recorder.count() / (double) settings.durationSeconds();
+            double p50 = recorder.percentileMillis(50);
+            double p99 = recorder.percentileMillis(99);
+            double p999 = recorder.percentileMillis(99.9);
+            System.out.printf("%-46s %10d %8d %10.1f %9.2f %9.2f %9.2f%n",
+                    endpoint, recorder.count(), recorder.errors(), throughput, p50, p99, p999);
+
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("requests", recorder.count());
+            stats.put("errors", recorder.errors());
+            stats.put("throughputPerSecond", throughput);
+            stats.put("p50Millis", p50);
+            stats.put("p99Millis", p99);
+            stats.put("p999Millis", p999);
+            endpoints.put(endpoint, stats);
+        });
+        return endpoints;
+    }
+
+    private void writeReport(Map<String, Object> modes) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("settings", settings);
+        report.put("threadModes", modes);
+        Path reportFile = Paths.get(settings.report());
+        if (reportFile.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(reportFile.toAbsolutePath().getParent());
+        }
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportFile.toFile(), report);
+        System.out.println("\nReport written to " + reportFile.toAbsolutePath());
+    }
+
+    /**
+     * One simulated client. It signs in once, then picks operations by weight until the run
+     * ends. Borrow/return only uses the books whose index maps to this worker, so workers
+     * never fight over a copy and every borrow is expected to succeed.
+     */
+    private class Worker {
+        private final long measureFrom;
+        private final long stopAt;
+        private final Random random;
+        private final Map<String, LatencyRecorder> recorders = new TreeMap<>();
+        private final List<Long> ownBooks = new ArrayList<>();
+        private final String username;
+        private String token;
+
+        Worker(int index, long measureFrom, long stopAt) {
+            this.measureFrom = measureFrom;
+            this.stopAt = stopAt;
+            this.random = new Random(settings.seed() + index);
+            this.username = DatasetGenerator.username(index % settings.users());
+            for (int i = index; i < bookIds.size(); i += settings.threads()) {
+                ownBooks.add(bookIds.get(i));
+            }
+        }
+
+        Map<String, LatencyRecorder> call() throws Exception {
+            signIn();
+            while (System.nanoTime() < stopAt) {
+                switch (pickOperation()) {
+                    case "sign-in" -> signIn();
+                    case "list-books" -> send("GET /api/books", get("/api/books?size=50"), 200);
+                    case "get-book" -> send("GET /api/books/{id}", get("/api/books/" + randomOf(bookIds)), 200);
+                    case "borrow-return" -> borrowAndReturn();
+                    case "update-patron" -> updatePatron();
+                    default -> throw new IllegalStateException("Unknown operation");
+                }
+            }
+            return recorders;
+        }
+
+        private void signIn() throws Exception {
+            String body = objectMapper.writeValueAsString(Map.of("username", username, "password", DatasetGenerator.PASSWORD));
+            HttpResponse<String> response = send("POST /auth/signin", json("/auth/signin", "POST", body, false), 200);
+            if (response.statusCode() == 200) {
+                token = objectMapper.readTree(response.body()).get("token").asText();
+            }
+        }
+
+        private void borrowAndReturn() throws Exception {
+            if (ownBooks.isEmpty() || patronIds.isEmpty()) {
+                return;
+            }
+            Long bookId = randomOf(ownBooks);
+            Long patronId = randomOf(patronIds);
+            String path = "/" + bookId + "/patron/" + patronId;
+            HttpResponse<String> borrowed = send("POST /api/borrow/{bookId}/patron/{patronId}",
+                    json("/api/borrow" + path, "POST", "", true), 201, 200);
+            if (borrowed.statusCode() < 300) {
+                send("PUT /api/return/{bookId}/patron/{patronId}", json("/api/return" + path, "PUT", "", true), 200);
+            }
+        }
+
+        private void updatePatron() throws Exception {
+            if (patronIds.isEmpty()) {
+                return;
+            }
+            int patron = random.nextInt(Math.min(patronIds.size(), settings.users()));
+            String body = objectMapper.writeValueAsString(Map.of(
+                    "name", "Patron " + patron,
+                    "email", DatasetGenerator.username(patron) + "@example.com",
+                    "address", random.nextInt(1000) + " Load Street"));
+            send("PUT /api/patrons/{id}", json("/api/patrons/" + patronIds.get(patron), "PUT", body, true), 200);
+        }
+
+        private HttpResponse<String> send(String endpoint, HttpRequest request, int... expectedStatuses) throws Exception {
+            long startedAt = System.nanoTime();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            long finishedAt = System.nanoTime();
+            if (startedAt >= measureFrom && finishedAt <= stopAt) {
+                boolean success = false;
+                for (int status : expectedStatuses) {
+                    success |= response.statusCode() == status;
+                }
+                recorders.computeIfAbsent(endpoint, key -> new LatencyRecorder()).record(finishedAt - startedAt, success);
+            }
+            return response;
+        }
+
+        private HttpRequest get(String path) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Authorization", "Bearer " + token)
+                    .GET()
+                    .build();
+        }
+
+        private HttpRequest json(String path, String method, String body, boolean authenticated) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofString(body));
+            if (authenticated) {
+                builder.header("Authorization", "Bearer " + token);
+            }
+            return builder.build();
+        }
+
+        private String pickOperation() {
+            int roll = random.nextInt(settings.totalWeight());
+            for (Map.Entry<String, Integer> operation : settings.mix().entrySet()) {
+                roll -= operation.getValue();
+                if (roll < 0) {
+                    return operation.getKey();
+                }
+            }
+            throw new IllegalStateException("Empty operation mix");
+        }
+
+        private <T> T randomOf(List<T> values) {
+            return values.get(random.nextInt(values.size()));
+        }
+    }
+
+    record Settings(int books, int users, int patrons, int threads, int warmupSeconds, int durationSeconds,
+                    long seed, String profiles, String report, List<String> threadModes, Map<String, Integer> mix) {
+
+        static Settings fromSystemProperties() {
+            Map<String, Integer> mix = new LinkedHashMap<>();
+            for (String entry : System.getProperty("loadtest.mix", DEFAULT_MIX).split(",")) {
+                String[] operation = entry.trim().split("=");
+                if (operation.length != 2 || !OPERATIONS.contains(operation[0].trim())) {
+                    throw new IllegalArgumentException("Invalid loadtest.mix entry: " + entry);
+                }
+                mix.put(operation[0].trim(), Integer.parseInt(operation[1].trim()));
+            }
+            List<String> threadModes = new ArrayList<>();
+            for (String mode : System.getProperty("loadtest.thread-modes", "platform").split(",")) {
+                if (!THREAD_MODES.contains(mode.trim())) {
+                    throw new IllegalArgumentException("Invalid loadtest.thread-modes entry: " + mode);
+                }
+                threadModes.add(mode.trim());
+            }
+            int users = Integer.getInteger("loadtest.users", 1_000);
+            return new Settings(
+                    Integer.getInteger("loadtest.books", 10_000),
+                    users,
+                    Math.min(Integer.getInteger("loadtest.patrons", 1_000), users),
+                    Integer.getInteger("loadtest.threads", 16),
+                    Integer.getInteger("loadtest.warmup-seconds", 10),
+                    Integer.getInteger("loadtest.duration-seconds", 60),
+                    Long.getLong("loadtest.seed", 42),
+                    System.getProperty("loadtest.profiles", "h2"),
+                    System.getProperty("loadtest.report", "target/load-test-report.json"),
+                    threadModes,
+                    mix);
+        }
+
+        int totalWeight() {
+            return mix.values().stream().mapToInt(Integer::intValue).sum();
+        }
+    }
+}
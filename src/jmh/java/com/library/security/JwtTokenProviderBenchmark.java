@@ -0,0 +1,65 @@
+package com.library.security;
+
+import com.library.config.JwtConfig;
+import com.library.user.Role;
+import com.library.user.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and per-request token parsing, with and without the verified-token cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtTokenProviderBenchmark {
+
+    @Param({"0", "10000"})
+    public int verifiedCacheSize;
+
+    private JwtTokenProvider jwtTokenProvider;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtConfig jwtConfig = new JwtConfig();
+        ReflectionTestUtils.setField(jwtConfig, "secret", "benchmark-secret");
+        ReflectionTestUtils.setField(jwtConfig, "expiration", 3600);
+        ReflectionTestUtils.setField(jwtConfig, "verifiedCacheSize", verifiedCacheSize);
+        // Nothing is revoked, so the list never needs its repository
+        TokenRevocationList tokenRevocationList = new TokenRevocationList(null, null, null, 0);
+        jwtTokenProvider = new JwtTokenProvider(jwtConfig, tokenRevocationList);
+
+        user = new User();
+        user.setId(7L);
+        user.setUsername("reader");
+        user.setRole(Role.PATRON);
+        token = jwtTokenProvider.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtTokenProvider.generateToken(user);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtTokenProvider.extractUsername(token);
+    }
+}
@@ -1,34 +1,128 @@
 package com.library.book.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.book.dto.BookAvailabilityDTO;
+import com.library.book.dto.BookCopyDTO;
 import com.library.book.dto.BookDTO;
+import com.library.book.dto.BookImportResultDTO;
+import com.library.book.dto.BookPageDTO;
+import com.library.book.dto.BookSuggestionDTO;
+import com.library.book.enums.BookStatus;
+import com.library.book.service.BookCopyService;
+import com.library.book.service.BookImportService;
 import com.library.book.service.BookService;
+import com.library.config.AsyncConfig;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/books")
 public class BookController {
 
     private final BookService bookService;
+    private final BookImportService bookImportService;
+    private final BookCopyService bookCopyService;
+    private final ObjectMapper objectMapper;
+    private final Executor catalogReadExecutor;
+    private final long readTimeoutMillis;
 
     @Autowired
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, BookImportService bookImportService, BookCopyService bookCopyService,
+                          ObjectMapper objectMapper,
+                          @Qualifier(AsyncConfig.CATALOG_READ_EXECUTOR) Executor catalogReadExecutor,
+                          @Value("${catalog.read.timeout-ms}") long readTimeoutMillis) {
         this.bookService = bookService;
+        this.bookImportService = bookImportService;
+        this.bookCopyService = bookCopyService;
+        this.objectMapper = objectMapper;
+        this.catalogReadExecutor = catalogReadExecutor;
+        this.readTimeoutMillis = readTimeoutMillis;
     }
 
+    // Catalog reads run on the bounded catalog executor and release the request thread meanwhile; the
+    // asynchronous request timeout is sized for streams, so point reads bound themselves
     @GetMapping
-    public ResponseEntity<List<BookDTO>> getAllBooks() {
-        return ResponseEntity.ok(bookService.getAllBooks());
+    public CompletableFuture<ResponseEntity<BookPageDTO>> getAllBooks(@RequestParam(required = false) String cursor,
+                                                                      @RequestParam(required = false) Integer size,
+                                                                      @RequestParam(required = false) BookStatus status,
+                                                                      @RequestParam(required = false) String author) {
+        return CompletableFuture.supplyAsync(
+                () -> ResponseEntity.ok(bookService.getAllBooks(cursor, size, status, author)), catalogReadExecutor)
+                .orTimeout(readTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<BookDTO>> searchBooks(@RequestParam String q,
+                                                     @RequestParam(required = false) BookStatus status,
+                                                     @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(bookService.searchBooks(q, status, limit));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<BookSuggestionDTO>> suggestBooks(@RequestParam String q,
+                                                                @RequestParam(required = false) BookStatus status,
+                                                                @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(bookService.suggestBooks(q, status, limit));
+    }
+
+    // Answered from the in-memory availability index, so it stays on the request thread
+    @GetMapping("/availability")
+    public ResponseEntity<BookAvailabilityDTO> getAvailability(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(bookService.getAvailability(ids));
+    }
+
+    // Writes the JSON array row by row from the catalog stream executor. Blocking socket writes pace the
+    // page reads, so a slow client only slows its own stream and holds no database connection
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamBooks(@RequestParam(required = false) BookStatus status,
+                                                             @RequestParam(required = false) String author) {
+        StreamingResponseBody body = output -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+                generator.writeStartArray();
+                bookService.streamBooks(status, author, book -> {
+                    try {
+                        generator.writeObject(book);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // The body is parsed while it is being uploaded, so feeds of any size can be imported
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<BookImportResultDTO> importBooks(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                           InputStream body) throws IOException {
+        BookImportService.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? BookImportService.Format.CSV
+                : BookImportService.Format.JSON_LINES;
+        return ResponseEntity.ok(bookImportService.importBooks(body, format));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<BookDTO> getBookById(@PathVariable Long id) {
-        return ResponseEntity.ok(bookService.getBookById(id));
+    public CompletableFuture<ResponseEntity<BookDTO>> getBookById(@PathVariable Long id) {
+        return CompletableFuture.supplyAsync(() -> ResponseEntity.ok(bookService.getBookById(id)), catalogReadExecutor)
+                .orTimeout(readTimeoutMillis, TimeUnit.MILLISECONDS);
     }
 
     @PostMapping
@@ -43,6 +137,22 @@ public class BookController {
         return ResponseEntity.ok(updatedBook);
     }
 
+    @GetMapping("/{id}/copies")
+    public ResponseEntity<List<BookCopyDTO>> getCopies(@PathVariable Long id) {
+        return ResponseEntity.ok(bookCopyService.getCopies(id));
+    }
+
+    @PostMapping("/{id}/copies")
+    public ResponseEntity<List<BookCopyDTO>> addCopies(@PathVariable Long id, @RequestParam(defaultValue = "1") int count) {
+        return new ResponseEntity<>(bookCopyService.addCopies(id, count), HttpStatus.CREATED);
+    }
+
+    @PutMapping("/{id}/copies/{copyId}")
+    public ResponseEntity<BookCopyDTO> updateCopyStatus(@PathVariable Long id, @PathVariable Long copyId,
+                                                        @RequestParam BookStatus status) {
+        return ResponseEntity.ok(bookCopyService.updateCopyStatus(id, copyId, status));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteBook(@PathVariable Long id) {
         bookService.deleteBook(id);
@@ -0,0 +1,31 @@
+package com.library.book.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Setter
+@Getter
+public class BookAvailabilityDTO {
+
+    // Books that can be borrowed right now
+    private List<Long> available = new ArrayList<>();
+
+    // Borrowed, lost or under maintenance
+    private List<Long> unavailable = new ArrayList<>();
+
+    private List<Long> notFound = new ArrayList<>();
+
+    public BookAvailabilityDTO() {}
+
+    @Override
+    public String toString() {
+        return "BookAvailabilityDTO{" +
+                "available=" + available.size() +
+                ", unavailable=" + unavailable.size() +
+                ", notFound=" + notFound.size() +
+                '}';
+    }
+}
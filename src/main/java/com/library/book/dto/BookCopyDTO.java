@@ -0,0 +1,30 @@
+package com.library.book.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class BookCopyDTO {
+
+    private Long id;
+    private Long bookId;
+    private String status;
+
+    public BookCopyDTO() {}
+
+    public BookCopyDTO(Long id, Long bookId, String status) {
+        this.id = id;
+        this.bookId = bookId;
+        this.status = status;
+    }
+
+    @Override
+    public String toString() {
+        return "BookCopyDTO{" +
+                "id=" + id +
+                ", bookId=" + bookId +
+                ", status='" + status + '\'' +
+                '}';
+    }
+}
@@ -37,6 +37,14 @@ public class BookDTO {
             message = "Status must be AVAILABLE, BORROWED, LOST, or UNDER_MAINTENANCE")
     private String status;
 
+    // Copies registered when the book is created (one if omitted); later changes go through the copies endpoints
+    @Min(value = 1, message = "A book needs at least one copy")
+    @Max(value = 500, message = "At most 500 copies can be added at a time")
+    private Integer totalCopies;
+
+    // Read only: copies currently on the shelf
+    private Integer availableCopies;
+
 
     public BookDTO() {}
 
@@ -59,6 +67,8 @@ public class BookDTO {
                 ", isbn='" + isbn + '\'' +
                 ", description='" + description + '\'' +
                 ", status='" + status + '\'' +
+                ", totalCopies=" + totalCopies +
+                ", availableCopies=" + availableCopies +
                 '}';
     }
 
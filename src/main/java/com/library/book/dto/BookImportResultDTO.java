@@ -0,0 +1,31 @@
+package com.library.book.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class BookImportResultDTO {
+
+    private long totalRows;
+    private long importedRows;
+    private long failedRows;
+
+    // Path of the CSV file listing every rejected row, null when all rows were imported
+    private String errorFile;
+
+    private long durationMillis;
+
+    public BookImportResultDTO() {}
+
+    @Override
+    public String toString() {
+        return "BookImportResultDTO{" +
+                "totalRows=" + totalRows +
+                ", importedRows=" + importedRows +
+                ", failedRows=" + failedRows +
+                ", errorFile='" + errorFile + '\'' +
+                ", durationMillis=" + durationMillis +
+                '}';
+    }
+}
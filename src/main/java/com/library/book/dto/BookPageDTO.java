@@ -0,0 +1,34 @@
+package com.library.book.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Setter
+@Getter
+public class BookPageDTO {
+
+    private List<BookDTO> items;
+
+    // Opaque continuation token, null when this is the last page
+    private String nextCursor;
+
+    private int size;
+
+    public BookPageDTO() {}
+
+    public BookPageDTO(List<BookDTO> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.size = items.size();
+    }
+
+    @Override
+    public String toString() {
+        return "BookPageDTO{" +
+                "size=" + size +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,40 @@
+package com.library.book.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class BookSuggestionDTO {
+
+    private Long id;
+
+    private String title;
+
+    private String author;
+
+    private String isbn;
+
+    private String status;
+
+    public BookSuggestionDTO() {}
+
+    public BookSuggestionDTO(Long id, String title, String author, String isbn, String status) {
+        this.id = id;
+        this.title = title;
+        this.author = author;
+        this.isbn = isbn;
+        this.status = status;
+    }
+
+    @Override
+    public String toString() {
+        return "BookSuggestionDTO{" +
+                "id=" + id +
+                ", title='" + title + '\'' +
+                ", author='" + author + '\'' +
+                ", isbn='" + isbn + '\'' +
+                ", status='" + status + '\'' +
+                '}';
+    }
+}
@@ -4,6 +4,7 @@ import com.library.book.enums.BookStatus;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDate;
 import java.util.Objects;
@@ -13,8 +14,8 @@ import java.util.Objects;
 @Entity
 @Table(name = "books", indexes = {
         @Index(name = "idx_title", columnList = "title"),
-        @Index(name = "idx_author", columnList = "author"),
-        @Index(name = "idx_status", columnList = "status")
+        @Index(name = "idx_books_author_id", columnList = "author, id"),
+        @Index(name = "idx_books_status_id", columnList = "status, id")
 })
 public class Book {
 
@@ -37,10 +38,26 @@ public class Book {
     @Column(length = 1000)
     private String description;
 
+    // AVAILABLE while a copy is on the shelf, BORROWED once every copy is out; LOST and UNDER_MAINTENANCE
+    // withdraw the whole title from lending
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private BookStatus status;
 
+    // Copies owned and copies on the shelf. Only changed by the conditional updates in BookRepository, never
+    // by a dirty check, so an entity loaded before a borrow cannot write back a stale count
+    @Column(name = "total_copies", nullable = false, updatable = false)
+    private int totalCopies;
+
+    @Column(name = "available_copies", nullable = false, updatable = false)
+    private int availableCopies;
+
+    // Bumped by every change, including the copy counter updates, so concurrent edits and late index updates are detected
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long version;
+
     public Book() {
         // Default constructor
     }
@@ -77,6 +94,8 @@ public class Book {
                 ", isbn='" + isbn + '\'' +
                 ", description='" + description + '\'' +
                 ", status=" + status +
+                ", totalCopies=" + totalCopies +
+                ", availableCopies=" + availableCopies +
                 '}';
     }
 }
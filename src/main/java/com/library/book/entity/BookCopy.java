@@ -0,0 +1,53 @@
+package com.library.book.entity;
+
+import com.library.book.enums.BookStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * One physical item of a title. The title's copy counters are kept in step with the statuses here
+ * by the services, which change both in the same transaction.
+ */
+@Setter
+@Getter
+@Entity
+// The partial index on free copies is created by the Flyway migration in db/migration
+@Table(name = "book_copies")
+public class BookCopy {
+
+    // Sequence ids let Hibernate batch inserts when a title gets several copies at once
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_copies_seq")
+    @SequenceGenerator(name = "book_copies_seq", sequenceName = "book_copies_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Book book;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private BookStatus status;
+
+    public BookCopy() {
+        // Default constructor
+    }
+
+    public BookCopy(Book book, BookStatus status) {
+        this.book = book;
+        this.status = status;
+    }
+
+    @Override
+    public String toString() {
+        return "BookCopy{" +
+                "id=" + id +
+                ", book=" + (book != null ? book.getId() : null) +
+                ", status=" + status +
+                '}';
+    }
+}
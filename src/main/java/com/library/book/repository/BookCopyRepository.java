@@ -0,0 +1,50 @@
+package com.library.book.repository;
+
+import com.library.book.entity.BookCopy;
+import com.library.book.enums.BookStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BookCopyRepository extends JpaRepository<BookCopy, Long> {
+
+    List<BookCopy> findByBookIdOrderById(Long bookId);
+
+    // FOR UPDATE SKIP LOCKED: copies other borrowers are claiming are passed over instead of waited for, so
+    // concurrent borrows of one title each get a different copy and never hold a connection waiting for a lock.
+    // Written in SQL because Hibernate renders a SKIP_LOCKED lock as a plain FOR UPDATE on dialects it does not
+    // know to support it, such as H2, which then blocks on every copy being lent.
+    @Query(value = "SELECT * FROM book_copies c WHERE c.book_id = :bookId AND c.status = 'AVAILABLE' " +
+            "ORDER BY c.id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<BookCopy> lockAvailable(@Param("bookId") Long bookId, @Param("limit") int limit);
+
+    // The same for several titles in one statement: up to :perBook free copies of each, the lowest ids first.
+    // Candidates are picked without locks and then locked with SKIP LOCKED, so a title can get fewer than it
+    // has free when other borrowers are claiming some of them.
+    @Query(value = "SELECT * FROM book_copies c WHERE c.id IN (" +
+            "SELECT f.id FROM (SELECT w.id, ROW_NUMBER() OVER (PARTITION BY w.book_id ORDER BY w.id) AS n " +
+            "FROM book_copies w WHERE w.book_id IN (:bookIds) AND w.status = 'AVAILABLE') f WHERE f.n <= :perBook) " +
+            "ORDER BY c.id FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<BookCopy> lockAvailable(@Param("bookIds") Collection<Long> bookIds, @Param("perBook") int perBook);
+
+    // Copies being returned, locked in id order so their status can be checked before they change hands
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM BookCopy c WHERE c.id IN :ids ORDER BY c.id")
+    List<BookCopy> lockAllById(@Param("ids") Collection<Long> ids);
+
+    // Moves the copies from one status to another and returns how many did; a copy no longer in the expected
+    // status, for instance claimed by a database without SKIP LOCKED support, is left alone and not counted
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE BookCopy c SET c.status = :to WHERE c.id IN :ids AND c.status = :from")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("from") BookStatus from, @Param("to") BookStatus to);
+}
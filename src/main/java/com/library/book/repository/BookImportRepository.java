@@ -0,0 +1,58 @@
+package com.library.book.repository;
+
+import com.library.book.dto.BookDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * JDBC writer for catalog imports. Rows are upserted by ISBN in a single batched statement;
+ * an existing book keeps its status and copies so an import never changes the state of a loan.
+ * A new book gets one copy, and its status only says whether the title is withdrawn from lending.
+ */
+@Repository
+public class BookImportRepository {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO books (title, author, publication_date, isbn, description, status, version, " +
+            "total_copies, available_copies) " +
+            "VALUES (?, ?, ?, ?, ?, CASE WHEN CAST(? AS varchar) IN ('LOST', 'UNDER_MAINTENANCE') " +
+            "THEN CAST(? AS varchar) ELSE 'AVAILABLE' END, 0, 1, 1) " +
+            "ON CONFLICT (isbn) DO UPDATE SET " +
+            "title = EXCLUDED.title, " +
+            "author = EXCLUDED.author, " +
+            "publication_date = EXCLUDED.publication_date, " +
+            "description = EXCLUDED.description, " +
+            "version = books.version + 1";
+
+    // Runs after the upsert in the same transaction; books that already had copies are left alone
+    private static final String FIRST_COPY_SQL =
+            "INSERT INTO book_copies (id, book_id, status) " +
+            "SELECT nextval('book_copies_seq'), b.id, 'AVAILABLE' FROM books b " +
+            "WHERE b.isbn = ANY (?) AND NOT EXISTS (SELECT 1 FROM book_copies c WHERE c.book_id = b.id)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public BookImportRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional
+    public void upsertAll(List<BookDTO> books) {
+        jdbcTemplate.batchUpdate(UPSERT_SQL, books, books.size(), (ps, book) -> {
+            ps.setString(1, book.getTitle());
+            ps.setString(2, book.getAuthor());
+            ps.setObject(3, book.getPublicationDate());
+            ps.setString(4, book.getIsbn());
+            ps.setString(5, book.getDescription());
+            ps.setString(6, book.getStatus());
+            ps.setString(7, book.getStatus());
+        });
+        String[] isbns = books.stream().map(BookDTO::getIsbn).toArray(String[]::new);
+        jdbcTemplate.update(FIRST_COPY_SQL, ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", isbns)));
+    }
+}
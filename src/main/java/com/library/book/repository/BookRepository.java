@@ -1,10 +1,157 @@
 package com.library.book.repository;
 
 import com.library.book.entity.Book;
+import com.library.book.enums.BookStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
+
+    // Ids are fingerprinted in blocks of this many, so a node can tell which parts of its in-memory indexes are stale
+    long ID_BLOCK_SIZE = 4096;
+
     boolean existsByIsbn(String isbn);
-}
\ No newline at end of file
+
+    // Keyset pages: each seeks past the last id seen instead of using OFFSET, so every page costs the same. There is
+    // one query per filter combination, each served by its own index range: the primary key, (status, id) or
+    // (author, id). Both filters together walk (author, id) and check the status of those rows.
+    @Query("SELECT b FROM Book b WHERE b.id > :afterId ORDER BY b.id")
+    List<Book> findPageAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("SELECT b FROM Book b WHERE b.status = :status AND b.id > :afterId ORDER BY b.id")
+    List<Book> findPageAfterByStatus(@Param("afterId") Long afterId, @Param("status") BookStatus status, Limit limit);
+
+    @Query("SELECT b FROM Book b WHERE b.author = :author AND b.id > :afterId ORDER BY b.id")
+    List<Book> findPageAfterByAuthor(@Param("afterId") Long afterId, @Param("author") String author, Limit limit);
+
+    @Query("SELECT b FROM Book b WHERE b.author = :author AND b.status = :status AND b.id > :afterId ORDER BY b.id")
+    List<Book> findPageAfterByStatusAndAuthor(@Param("afterId") Long afterId,
+                                              @Param("status") BookStatus status,
+                                              @Param("author") String author,
+                                              Limit limit);
+
+    // Ranked full-text match on the generated search_vector column (GIN indexed), or an ISBN prefix match
+    @Query(value = "SELECT * FROM books b " +
+            "WHERE (b.search_vector @@ to_tsquery('simple', :tsQuery) OR b.isbn LIKE CAST(:isbnPrefix AS varchar)) " +
+            "AND (CAST(:status AS varchar) IS NULL OR b.status = CAST(:status AS varchar)) " +
+            "ORDER BY ts_rank(b.search_vector, to_tsquery('simple', :tsQuery)) DESC, b.id " +
+            "LIMIT :limit", nativeQuery = true)
+    List<Book> search(@Param("tsQuery") String tsQuery,
+                      @Param("isbnPrefix") String isbnPrefix,
+                      @Param("status") String status,
+                      @Param("limit") int limit);
+
+    // Changes with every insert, delete and versioned update; tells whether a catalog index snapshot is still current
+    @Query("SELECT COUNT(b), COALESCE(SUM(b.id), 0), COALESCE(SUM(b.version), 0) FROM Book b")
+    List<Object[]> fingerprint();
+
+    // (block, count, id sum, version sum) of every block of ID_BLOCK_SIZE ids up to :maxId; aggregated in the database
+    @Query("SELECT b.id / " + ID_BLOCK_SIZE + ", COUNT(b), SUM(b.id), SUM(b.version) FROM Book b " +
+            "WHERE b.id <= :maxId GROUP BY b.id / " + ID_BLOCK_SIZE)
+    List<Object[]> fingerprintBlocks(@Param("maxId") long maxId);
+
+    @Query("SELECT b FROM Book b WHERE b.id >= :fromId AND b.id < :toId")
+    List<Book> findIdRange(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    @Query("SELECT b.id, b.status, b.version FROM Book b WHERE b.id >= :fromId AND b.id < :toId")
+    List<Object[]> findAvailabilityInIdRange(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    // Forward-only cursor; the fetch size makes the driver pull rows in chunks inside the transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Book b ORDER BY b.id")
+    Stream<Book> streamAll();
+
+    // (id, status, version) of every book for the availability index; no entities are built
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b.id, b.status, b.version FROM Book b")
+    Stream<Object[]> streamAvailability();
+
+    @Query("SELECT b.id, b.status FROM Book b WHERE b.id IN :ids")
+    List<Object[]> findStatuses(@Param("ids") Collection<Long> ids);
+
+    // Locks the titles in id order, so a change to several counters never waits for a transaction that locked them
+    // the other way round. The copies are always locked before their titles.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Book b WHERE b.id IN :ids ORDER BY b.id")
+    List<Book> lockAllById(@Param("ids") Collection<Long> ids);
+
+    // Locks one title, so whatever is decided from its status and queue holds until commit
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Book b WHERE b.id = :id")
+    Optional<Book> lockById(@Param("id") Long id);
+
+    // Copy counters. Each update checks and changes a counter in one statement, so there is no read-then-write
+    // race; the row lock it takes is held until commit, which is why callers run it last in their transaction.
+    // Both bump the version like any other change and clear the persistence context, so re-read the book after.
+
+    // Takes :count copies of a lendable title off the shelf; 0 when fewer are free or the title is withdrawn
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies - :count, " +
+            "b.status = CASE WHEN b.availableCopies > :count THEN b.status " +
+            "ELSE com.library.book.enums.BookStatus.BORROWED END, " +
+            "b.version = b.version + 1 " +
+            "WHERE b.id = :id AND b.availableCopies >= :count " +
+            "AND b.status = com.library.book.enums.BookStatus.AVAILABLE")
+    int allocateCopies(@Param("id") Long id, @Param("count") int count);
+
+    // The same for several titles at once, each losing :count copies; returns how many titles were updated
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies - :count, " +
+            "b.status = CASE WHEN b.availableCopies > :count THEN b.status " +
+            "ELSE com.library.book.enums.BookStatus.BORROWED END, " +
+            "b.version = b.version + 1 " +
+            "WHERE b.id IN :ids AND b.availableCopies >= :count " +
+            "AND b.status = com.library.book.enums.BookStatus.AVAILABLE")
+    int allocateCopies(@Param("ids") Collection<Long> ids, @Param("count") int count);
+
+    // Adds to (or with negative deltas, removes from) the owned and free copies; 0 if a counter would go negative.
+    // AVAILABLE and BORROWED follow the free copies, a withdrawn title keeps its status.
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Book b SET b.totalCopies = b.totalCopies + :totalDelta, " +
+            "b.availableCopies = b.availableCopies + :availableDelta, " +
+            "b.status = CASE WHEN b.status NOT IN (com.library.book.enums.BookStatus.AVAILABLE, " +
+            "com.library.book.enums.BookStatus.BORROWED) THEN b.status " +
+            "WHEN b.availableCopies + :availableDelta > 0 THEN com.library.book.enums.BookStatus.AVAILABLE " +
+            "ELSE com.library.book.enums.BookStatus.BORROWED END, " +
+            "b.version = b.version + 1 " +
+            "WHERE b.id = :id AND b.totalCopies + :totalDelta >= 0 AND b.availableCopies + :availableDelta >= 0")
+    int adjustCopies(@Param("id") Long id, @Param("totalDelta") int totalDelta, @Param("availableDelta") int availableDelta);
+
+    // The same for several titles at once, each given the same deltas; returns how many titles were updated
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Book b SET b.totalCopies = b.totalCopies + :totalDelta, " +
+            "b.availableCopies = b.availableCopies + :availableDelta, " +
+            "b.status = CASE WHEN b.status NOT IN (com.library.book.enums.BookStatus.AVAILABLE, " +
+            "com.library.book.enums.BookStatus.BORROWED) THEN b.status " +
+            "WHEN b.availableCopies + :availableDelta > 0 THEN com.library.book.enums.BookStatus.AVAILABLE " +
+            "ELSE com.library.book.enums.BookStatus.BORROWED END, " +
+            "b.version = b.version + 1 " +
+            "WHERE b.id IN :ids AND b.totalCopies + :totalDelta >= 0 AND b.availableCopies + :availableDelta >= 0")
+    int adjustCopies(@Param("ids") Collection<Long> ids, @Param("totalDelta") int totalDelta, @Param("availableDelta") int availableDelta);
+}
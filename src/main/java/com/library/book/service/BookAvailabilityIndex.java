@@ -0,0 +1,271 @@
+package com.library.book.service;
+
+import com.library.book.dto.BookAvailabilityDTO;
+import com.library.book.entity.Book;
+import com.library.book.enums.BookStatus;
+import com.library.book.repository.BookRepository;
+import com.library.transaction.TransactionCallbacks;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * In-memory availability of every book, indexed directly by book id: one bit telling whether
+ * the book exists, one telling whether it is {@link BookStatus#AVAILABLE}, and its version so
+ * that changes applied out of order cannot overwrite newer ones. It is loaded at startup with
+ * a scan of (id, status, version) and kept current by the services after each commit, so a
+ * batch availability check never reaches the database. Changes committed on other nodes are
+ * picked up by {@link #refresh()}. Enabled with {@code catalog.availability.enabled}.
+ */
+@Component
+public class BookAvailabilityIndex implements SmartInitializingSingleton, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(BookAvailabilityIndex.class);
+
+    // Version of a deleted book, newer than any change that may still arrive for it
+    private static final int DELETED = Integer.MAX_VALUE;
+
+    private final BookRepository bookRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    // Largest id held in the arrays, which are sized by the highest id seen; books beyond it are answered from the database
+    private final long maxIndexedId;
+    private final RebuildableIndex<AvailabilityData> index = new RebuildableIndex<>(new AvailabilityData());
+
+    @Autowired
+    public BookAvailabilityIndex(BookRepository bookRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${catalog.availability.enabled}") boolean enabled,
+                                 @Value("${catalog.availability.max-id}") long maxIndexedId) {
+        this.bookRepository = bookRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.maxIndexedId = Math.min(maxIndexedId, Integer.MAX_VALUE - 8);
+    }
+
+    // Runs before the web server starts, so no request sees a half-loaded bitmap
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        rebuild();
+        log.info("Availability index loaded {} books in {} ms", size(), System.currentTimeMillis() - startedAt);
+    }
+
+    public boolean isReady() {
+        return index.isReady();
+    }
+
+    /**
+     * Sorts the ids into the available, unavailable and not found lists of the result and
+     * returns the ids the index cannot answer, which the caller looks up in the database.
+     * Only valid while {@link #isReady()}.
+     */
+    public List<Long> classify(Collection<Long> bookIds, BookAvailabilityDTO result) {
+        List<Long> unresolved = new ArrayList<>();
+        index.read(data -> {
+            for (Long bookId : bookIds) {
+                if (bookId < 0 || bookId > maxIndexedId) {
+                    unresolved.add(bookId);
+                } else if (!data.known.get(bookId.intValue())) {
+                    result.getNotFound().add(bookId);
+                } else if (data.available.get(bookId.intValue())) {
+                    result.getAvailable().add(bookId);
+                } else {
+                    result.getUnavailable().add(bookId);
+                }
+            }
+            return null;
+        });
+        return unresolved;
+    }
+
+    /**
+     * Records the book's status once the current transaction commits, so rolled back
+     * changes never become visible. The status and version are read after the commit.
+     */
+    public void put(Book book) {
+        if (!enabled) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            if (book.getId() > maxIndexedId) {
+                return;
+            }
+            int id = book.getId().intValue();
+            int version = (int) book.getVersion();
+            boolean available = book.getStatus() == BookStatus.AVAILABLE;
+            index.apply(bitmap -> bitmap.put(id, version, available));
+        });
+    }
+
+    public void remove(Long bookId) {
+        if (!enabled || bookId > maxIndexedId) {
+            return;
+        }
+        int id = bookId.intValue();
+        TransactionCallbacks.afterCommit(() -> index.apply(bitmap -> bitmap.remove(id)));
+    }
+
+    /**
+     * Reloads the bitmap from a streaming scan of the books table. Changes committed during
+     * the scan are replayed afterwards; the version check keeps whichever is newer.
+     */
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long[] skipped = new long[1];
+        index.rebuild(new AvailabilityData(), rebuilt -> readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = bookRepository.streamAvailability()) {
+                rows.forEach(row -> {
+                    long id = ((Number) row[0]).longValue();
+                    if (id <= maxIndexedId) {
+                        rebuilt.put((int) id, ((Number) row[2]).intValue(), row[1] == BookStatus.AVAILABLE);
+                    } else {
+                        skipped[0]++;
+                    }
+                });
+            }
+        }));
+        if (skipped[0] > 0) {
+            log.warn("{} books have ids above catalog.availability.max-id={} and are looked up in the database",
+                    skipped[0], maxIndexedId);
+        }
+    }
+
+    /**
+     * Applies the changes committed on other nodes, which never reach {@link #put}. The books
+     * table is fingerprinted in blocks of ids and only the blocks that differ from the bitmap are
+     * read again, so a node lags the others by at most {@code catalog.refresh.interval-ms} and a
+     * quiet catalog costs one aggregate query.
+     */
+    @Scheduled(fixedDelayString = "${catalog.refresh.interval-ms}", initialDelayString = "${catalog.refresh.interval-ms}")
+    public void refresh() {
+        if (!enabled || !isReady()) {
+            return;
+        }
+        Map<Long, Fingerprint> database = readOnlyTransaction.execute(status ->
+                Fingerprint.byBlock(bookRepository.fingerprintBlocks(maxIndexedId)));
+        Set<Long> changed = Fingerprint.changedBlocks(database, index.read(AvailabilityData::fingerprintBlocks));
+        if (changed.isEmpty()) {
+            return;
+        }
+        Map<Long, List<Object[]>> rows = readOnlyTransaction.execute(status -> {
+            Map<Long, List<Object[]>> byBlock = new HashMap<>();
+            for (Long block : changed) {
+                long fromId = block * BookRepository.ID_BLOCK_SIZE;
+                byBlock.put(block, bookRepository.findAvailabilityInIdRange(fromId, fromId + BookRepository.ID_BLOCK_SIZE));
+            }
+            return byBlock;
+        });
+        index.apply(bitmap -> rows.forEach(bitmap::replaceBlock));
+        log.debug("Availability index reloaded {} blocks changed elsewhere", changed.size());
+    }
+
+    public int size() {
+        return index.read(data -> data.known.cardinality());
+    }
+
+    public long memoryBytes() {
+        return index.read(data -> (data.known.size() + data.available.size()) / 8 + (long) data.versions.length * Integer.BYTES);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("catalog.availability.books", this, BookAvailabilityIndex::size)
+                .description("Books held in the in-memory availability index")
+                .register(registry);
+        Gauge.builder("catalog.availability.memory", this, BookAvailabilityIndex::memoryBytes)
+                .description("Heap used by the availability bitmaps and versions")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Bitmaps and versions indexed by book id. Identity ids are dense, so slots of ids that
+     * never existed cost little.
+     */
+    private class AvailabilityData {
+        private final BitSet known = new BitSet();
+        private final BitSet available = new BitSet();
+        private int[] versions = new int[0];
+
+        void put(int id, int version, boolean isAvailable) {
+            ensureCapacity(id);
+            if (versions[id] > version) {
+                // An older copy arriving late, or a book deleted since
+                return;
+            }
+            versions[id] = version;
+            known.set(id);
+            available.set(id, isAvailable);
+        }
+
+        void remove(int id) {
+            ensureCapacity(id);
+            versions[id] = DELETED;
+            known.clear(id);
+            available.clear(id);
+        }
+
+        Map<Long, Fingerprint> fingerprintBlocks() {
+            Fingerprint.BlockSums sums = new Fingerprint.BlockSums();
+            for (int id = known.nextSetBit(0); id >= 0; id = known.nextSetBit(id + 1)) {
+                sums.add(id, versions[id]);
+            }
+            return sums.toFingerprints();
+        }
+
+        // Takes the block's books as read from the table. A book missing from it is dropped without a tombstone, so
+        // one created after the read and already put here comes back with the next refresh.
+        void replaceBlock(long block, List<Object[]> rows) {
+            int fromId = (int) (block * BookRepository.ID_BLOCK_SIZE);
+            int toId = (int) Math.min(fromId + BookRepository.ID_BLOCK_SIZE, maxIndexedId + 1);
+            BitSet read = new BitSet();
+            for (Object[] row : rows) {
+                long rowId = ((Number) row[0]).longValue();
+                if (rowId > maxIndexedId) {
+                    continue;
+                }
+                int id = (int) rowId;
+                put(id, ((Number) row[2]).intValue(), row[1] == BookStatus.AVAILABLE);
+                read.set(id - fromId);
+            }
+            for (int id = known.nextSetBit(fromId); id >= 0 && id < toId; id = known.nextSetBit(id + 1)) {
+                if (!read.get(id - fromId)) {
+                    known.clear(id);
+                    available.clear(id);
+                }
+            }
+        }
+
+        private void ensureCapacity(int id) {
+            if (id >= versions.length) {
+                versions = Arrays.copyOf(versions, (int) Math.max(id + 1L, Math.min(versions.length * 2L, maxIndexedId + 1)));
+            }
+        }
+    }
+}
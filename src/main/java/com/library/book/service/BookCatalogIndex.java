@@ -0,0 +1,461 @@
+package com.library.book.service;
+
+import com.library.book.dto.BookSuggestionDTO;
+import com.library.book.entity.Book;
+import com.library.book.enums.BookStatus;
+import com.library.book.repository.BookRepository;
+import com.library.transaction.TransactionCallbacks;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Optional in-memory index of the catalog that answers title/author autocomplete without a
+ * database round trip. It is built once at startup, from a snapshot file when that still
+ * matches the database and otherwise from a streaming scan, and is then kept current by the
+ * services after each commit and, for changes committed on other nodes, by {@link #refresh()}.
+ * Enabled with {@code catalog.index.enabled}.
+ */
+@Component
+public class BookCatalogIndex implements SmartInitializingSingleton, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(BookCatalogIndex.class);
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int SNAPSHOT_MAGIC = 0x4C424349;
+    private static final int SNAPSHOT_FORMAT = 1;
+
+    // Rough JVM footprint per structure, used for the memory gauge
+    private static final long BOOK_OVERHEAD_BYTES = 120;
+    private static final long TERM_OVERHEAD_BYTES = 120;
+    private static final long STRING_OVERHEAD_BYTES = 40;
+
+    private final BookRepository bookRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final Path snapshotFile;
+    private final RebuildableIndex<IndexData> index = new RebuildableIndex<>(new IndexData());
+
+    @Autowired
+    public BookCatalogIndex(BookRepository bookRepository,
+                            EntityManager entityManager,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${catalog.index.enabled}") boolean enabled,
+                            @Value("${catalog.index.snapshot-file}") String snapshotFile) {
+        this.bookRepository = bookRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.snapshotFile = Paths.get(snapshotFile);
+    }
+
+    // Runs before the web server starts, so no request sees a half-built index
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        if (loadSnapshot()) {
+            log.info("Catalog index loaded {} books from {} in {} ms", size(), snapshotFile, System.currentTimeMillis() - startedAt);
+            return;
+        }
+        rebuild();
+        writeSnapshot();
+        log.info("Catalog index built {} books in {} ms", size(), System.currentTimeMillis() - startedAt);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (index.isReady()) {
+            writeSnapshot();
+        }
+    }
+
+    public boolean isReady() {
+        return index.isReady();
+    }
+
+    /**
+     * Books whose title and author words start with every word of the query, closest
+     * completions first. Only valid while {@link #isReady()}.
+     */
+    public List<BookSuggestionDTO> suggest(String query, BookStatus status, int limit) {
+        String[] prefixes = tokenize(query).distinct().toArray(String[]::new);
+        if (prefixes.length == 0) {
+            return List.of();
+        }
+        return index.read(data -> data.suggest(prefixes, status, limit));
+    }
+
+    /**
+     * Indexes the book as it is once the current transaction commits, so rolled back
+     * changes never become visible. The entity's fields are read after the commit.
+     */
+    public void put(Book book) {
+        if (!enabled) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            IndexedBook indexed = new IndexedBook(book.getId(), book.getVersion(), book.getTitle(),
+                    book.getAuthor(), book.getIsbn(), book.getStatus());
+            index.apply(data -> data.put(indexed));
+        });
+    }
+
+    public void remove(Long bookId) {
+        if (!enabled) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> index.apply(data -> data.remove(bookId)));
+    }
+
+    /**
+     * Rebuilds the index from a streaming scan of the books table. Changes committed during
+     * the scan are replayed afterwards; the version check keeps whichever copy is newer.
+     */
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        index.rebuild(new IndexData(), rebuilt -> readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Book> books = bookRepository.streamAll()) {
+                books.forEach(book -> {
+                    rebuilt.put(new IndexedBook(book.getId(), book.getVersion(), book.getTitle(),
+                            book.getAuthor(), book.getIsbn(), book.getStatus()));
+                    entityManager.detach(book);
+                });
+            }
+        }));
+    }
+
+    /**
+     * Applies the changes committed on other nodes, which never reach {@link #put}. Like the
+     * availability index, it compares per-block fingerprints of the books table with its own and
+     * reads only the blocks that differ, so it lags the others by at most
+     * {@code catalog.refresh.interval-ms}.
+     */
+    @Scheduled(fixedDelayString = "${catalog.refresh.interval-ms}", initialDelayString = "${catalog.refresh.interval-ms}")
+    public void refresh() {
+        if (!enabled || !isReady()) {
+            return;
+        }
+        Map<Long, Fingerprint> database = readOnlyTransaction.execute(status ->
+                Fingerprint.byBlock(bookRepository.fingerprintBlocks(Long.MAX_VALUE)));
+        Set<Long> changed = Fingerprint.changedBlocks(database, index.read(IndexData::fingerprintBlocks));
+        if (changed.isEmpty()) {
+            return;
+        }
+        List<IndexedBook> books = readOnlyTransaction.execute(status -> {
+            List<IndexedBook> read = new ArrayList<>();
+            for (Long block : changed) {
+                long fromId = block * BookRepository.ID_BLOCK_SIZE;
+                for (Book book : bookRepository.findIdRange(fromId, fromId + BookRepository.ID_BLOCK_SIZE)) {
+                    read.add(new IndexedBook(book.getId(), book.getVersion(), book.getTitle(),
+                            book.getAuthor(), book.getIsbn(), book.getStatus()));
+                }
+            }
+            return read;
+        });
+        index.apply(data -> data.replaceBlocks(changed, books));
+        log.debug("Catalog index reloaded {} blocks changed elsewhere", changed.size());
+    }
+
+    public int size() {
+        return index.read(data -> data.books.size());
+    }
+
+    public long estimatedMemoryBytes() {
+        return index.read(IndexData::estimatedMemoryBytes);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("catalog.index.books", this, BookCatalogIndex::size)
+                .description("Books held in the in-memory catalog index")
+                .register(registry);
+        Gauge.builder("catalog.index.memory", this, BookCatalogIndex::estimatedMemoryBytes)
+                .description("Estimated heap used by the in-memory catalog index")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Writes the index to the snapshot file together with its fingerprint. The file is
+     * replaced atomically so a crash mid-write leaves the previous snapshot intact.
+     */
+    void writeSnapshot() {
+        try {
+            Files.createDirectories(snapshotFile.toAbsolutePath().getParent());
+            Path tempFile = Files.createTempFile(snapshotFile.toAbsolutePath().getParent(), "catalog-index-", ".tmp");
+            index.read(data -> {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                    Fingerprint fingerprint = data.fingerprint();
+                    out.writeInt(SNAPSHOT_MAGIC);
+                    out.writeInt(SNAPSHOT_FORMAT);
+                    out.writeLong(fingerprint.count());
+                    out.writeLong(fingerprint.idSum());
+                    out.writeLong(fingerprint.versionSum());
+                    for (IndexedBook book : data.books.values()) {
+                        out.writeLong(book.id());
+                        out.writeLong(book.version());
+                        out.writeUTF(book.title());
+                        out.writeUTF(book.author());
+                        out.writeUTF(book.isbn());
+                        out.writeUTF(book.status().name());
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            });
+            Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Could not write catalog index snapshot to {}", snapshotFile, e);
+        }
+    }
+
+    /**
+     * Loads the snapshot file if it exists and its fingerprint still matches the books
+     * table, which any insert, delete or versioned update changes.
+     */
+    boolean loadSnapshot() {
+        if (!Files.isReadable(snapshotFile)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_FORMAT) {
+                log.info("Ignoring catalog index snapshot {} with an unknown format", snapshotFile);
+                return false;
+            }
+            Fingerprint expected = new Fingerprint(in.readLong(), in.readLong(), in.readLong());
+            if (!expected.equals(databaseFingerprint())) {
+                log.info("Catalog index snapshot {} is stale, rebuilding", snapshotFile);
+                return false;
+            }
+            IndexData loaded = new IndexData();
+            for (long i = 0; i < expected.count(); i++) {
+                loaded.put(new IndexedBook(in.readLong(), in.readLong(), in.readUTF(), in.readUTF(), in.readUTF(),
+                        BookStatus.valueOf(in.readUTF())));
+            }
+            index.replace(loaded);
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Could not read catalog index snapshot {}, rebuilding", snapshotFile, e);
+            return false;
+        }
+    }
+
+    private Fingerprint databaseFingerprint() {
+        Object[] row = bookRepository.fingerprint().get(0);
+        return new Fingerprint(((Number) row[0]).longValue(), ((Number) row[1]).longValue(), ((Number) row[2]).longValue());
+    }
+
+    static Stream<String> tokenize(String text) {
+        if (text == null) {
+            return Stream.empty();
+        }
+        return Arrays.stream(TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+                .filter(token -> !token.isEmpty());
+    }
+
+    private record IndexedBook(long id, long version, String title, String author, String isbn, BookStatus status) {
+
+        boolean matchesAll(String[] prefixes) {
+            String[] tokens = Stream.concat(tokenize(title), tokenize(author)).toArray(String[]::new);
+            for (String prefix : prefixes) {
+                if (Arrays.stream(tokens).noneMatch(token -> token.startsWith(prefix))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long estimatedMemoryBytes() {
+            return BOOK_OVERHEAD_BYTES
+                    + 3 * STRING_OVERHEAD_BYTES + title.length() + author.length() + isbn.length();
+        }
+    }
+
+    /**
+     * Books by id plus an ordered term dictionary mapping every title/author word to the
+     * sorted ids containing it. Not thread-safe; guarded by the enclosing lock.
+     */
+    private static class IndexData {
+        private final Map<Long, IndexedBook> books = new HashMap<>();
+        private final NavigableMap<String, Postings> terms = new TreeMap<>();
+
+        void put(IndexedBook book) {
+            IndexedBook previous = books.get(book.id());
+            if (previous != null) {
+                if (previous.version() > book.version()) {
+                    return;
+                }
+                removeTerms(previous);
+            }
+            books.put(book.id(), book);
+            Stream.concat(tokenize(book.title()), tokenize(book.author()))
+                    .distinct()
+                    .forEach(term -> terms.computeIfAbsent(term, key -> new Postings()).add(book.id()));
+        }
+
+        void remove(Long bookId) {
+            IndexedBook previous = books.remove(bookId);
+            if (previous != null) {
+                removeTerms(previous);
+            }
+        }
+
+        private void removeTerms(IndexedBook book) {
+            Stream.concat(tokenize(book.title()), tokenize(book.author()))
+                    .distinct()
+                    .forEach(term -> {
+                        Postings postings = terms.get(term);
+                        if (postings != null && postings.remove(book.id()) && postings.size == 0) {
+                            terms.remove(term);
+                        }
+                    });
+        }
+
+        List<BookSuggestionDTO> suggest(String[] prefixes, BookStatus status, int limit) {
+            // Drive the lookup with the most selective prefix and check the others per candidate
+            NavigableMap<String, Postings> driver = null;
+            long driverSize = Long.MAX_VALUE;
+            for (String prefix : prefixes) {
+                NavigableMap<String, Postings> matches = terms.subMap(prefix, true, prefix + Character.MAX_VALUE, true);
+                long matchSize = matches.values().stream().mapToLong(postings -> postings.size).sum();
+                if (matchSize < driverSize) {
+                    driver = matches;
+                    driverSize = matchSize;
+                }
+            }
+
+            // Terms come in dictionary order, so exact and shorter completions rank first
+            Map<Long, BookSuggestionDTO> results = new LinkedHashMap<>();
+            for (Postings postings : driver.values()) {
+                for (int i = 0; i < postings.size; i++) {
+                    IndexedBook book = books.get(postings.ids[i]);
+                    if (results.containsKey(book.id())
+                            || (status != null && book.status() != status)
+                            || (prefixes.length > 1 && !book.matchesAll(prefixes))) {
+                        continue;
+                    }
+                    results.put(book.id(), new BookSuggestionDTO(book.id(), book.title(), book.author(),
+                            book.isbn(), book.status().name()));
+                    if (results.size() == limit) {
+                        return new ArrayList<>(results.values());
+                    }
+                }
+            }
+            return new ArrayList<>(results.values());
+        }
+
+        Map<Long, Fingerprint> fingerprintBlocks() {
+            Fingerprint.BlockSums sums = new Fingerprint.BlockSums();
+            books.values().forEach(book -> sums.add(book.id(), book.version()));
+            return sums.toFingerprints();
+        }
+
+        // Takes the blocks' books as read from the table; books of those blocks missing from it were deleted
+        void replaceBlocks(Set<Long> blocks, List<IndexedBook> read) {
+            Set<Long> readIds = new HashSet<>();
+            for (IndexedBook book : read) {
+                put(book);
+                readIds.add(book.id());
+            }
+            books.keySet().stream()
+                    .filter(id -> blocks.contains(Fingerprint.blockOf(id)) && !readIds.contains(id))
+                    .toList()
+                    .forEach(this::remove);
+        }
+
+        Fingerprint fingerprint() {
+            long idSum = 0;
+            long versionSum = 0;
+            for (IndexedBook book : books.values()) {
+                idSum += book.id();
+                versionSum += book.version();
+            }
+            return new Fingerprint(books.size(), idSum, versionSum);
+        }
+
+        long estimatedMemoryBytes() {
+            long bytes = 0;
+            for (IndexedBook book : books.values()) {
+                bytes += book.estimatedMemoryBytes();
+            }
+            for (Map.Entry<String, Postings> term : terms.entrySet()) {
+                bytes += TERM_OVERHEAD_BYTES + STRING_OVERHEAD_BYTES + term.getKey().length()
+                        + 8L * term.getValue().ids.length;
+            }
+            return bytes;
+        }
+    }
+
+    // Sorted primitive id list; far smaller than a Set<Long> for millions of postings
+    private static class Postings {
+        private long[] ids = new long[2];
+        private int size;
+
+        void add(long id) {
+            int position = size == 0 || ids[size - 1] < id ? size : Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0 && position < size) {
+                return;
+            }
+            int insertAt = position < 0 ? -position - 1 : position;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+    }
+}
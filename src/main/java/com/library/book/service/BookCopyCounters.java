@@ -0,0 +1,99 @@
+package com.library.book.service;
+
+import com.library.book.entity.Book;
+import com.library.book.enums.BookStatus;
+import com.library.transaction.TransactionCallbacks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process count of the copies of each title that can still be lent, checked before a borrow
+ * reaches the database. A borrow takes one from the title's counter with a compare-and-set, so
+ * threads borrowing the same title never queue on a lock here, and once the copies are all
+ * claimed further attempts on this node are turned away without a query or a row lock.
+ * <p>
+ * The counter on the books row stays authoritative. A count is replaced by the committed value
+ * after every change made through this node and is only trusted for
+ * {@code catalog.copies.counter-ttl}, which bounds how long a copy returned through another node
+ * can go unnoticed; an unknown or expired title is always passed on to the database.
+ */
+@Component
+public class BookCopyCounters {
+
+    private final ConcurrentHashMap<Long, Counter> counters = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+
+    @Autowired
+    public BookCopyCounters(@Value("${catalog.copies.counter-ttl}") Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Takes one copy of the title from the local count and returns false if none is left. The
+     * copy is given back if the current transaction rolls back.
+     */
+    public boolean tryAcquire(Long bookId) {
+        Counter counter = counters.get(bookId);
+        if (counter == null || System.nanoTime() - counter.refreshedAt > ttlNanos) {
+            return true;
+        }
+        int available;
+        do {
+            available = counter.available.get();
+            if (available <= 0) {
+                return false;
+            }
+        } while (!counter.available.compareAndSet(available, available - 1));
+
+        // Forgetting the title is enough: the next borrow asks the database and the commit after it refreshes the count
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        counters.remove(bookId, counter);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Records the lendable copies of the book once the current transaction commits. The book must
+     * have been read after its counter was updated.
+     */
+    public void put(Book book) {
+        Long bookId = book.getId();
+        int lendable = book.getStatus() == BookStatus.AVAILABLE ? book.getAvailableCopies() : 0;
+        long version = book.getVersion();
+        TransactionCallbacks.afterCommit(() -> counters.compute(bookId, (id, existing) ->
+                existing != null && existing.version > version ? existing : new Counter(lendable, version)));
+    }
+
+    public void remove(Long bookId) {
+        TransactionCallbacks.afterCommit(() -> counters.remove(bookId));
+    }
+
+    public int size() {
+        return counters.size();
+    }
+
+    private static final class Counter {
+        private final AtomicInteger available;
+        private final long version;
+        private final long refreshedAt = System.nanoTime();
+
+        private Counter(int available, long version) {
+            this.available = new AtomicInteger(available);
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.library.book.service;
+
+import com.library.book.dto.BookCopyDTO;
+import com.library.book.entity.Book;
+import com.library.book.entity.BookCopy;
+import com.library.book.enums.BookStatus;
+import com.library.book.repository.BookCopyRepository;
+import com.library.book.repository.BookRepository;
+import com.library.borrowing.service.BorrowingRecordService;
+import com.library.config.CacheConfig;
+import com.library.exception.InvalidRequestException;
+import com.library.outbox.enums.OutboxEventType;
+import com.library.outbox.service.OutboxWriter;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Holdings of a title: adding copies and taking single copies out of or back into circulation.
+ * Lending itself goes through the borrowing service, which also serves the title's hold queue
+ * with any copy put on the shelf here. Every change updates the copies and the title's counters
+ * in one transaction, which also records a BOOK_UPDATED event when the counters moved.
+ */
+@Service
+public class BookCopyService {
+
+    public static final int MAX_NEW_COPIES = 500;
+
+    private final BookRepository bookRepository;
+    private final BookCopyRepository bookCopyRepository;
+    private final BookCatalogIndex bookCatalogIndex;
+    private final BookAvailabilityIndex bookAvailabilityIndex;
+    private final BookCopyCounters bookCopyCounters;
+    private final BorrowingRecordService borrowingRecordService;
+    private final BookService bookService;
+    private final OutboxWriter outboxWriter;
+
+    @Autowired
+    public BookCopyService(BookRepository bookRepository, BookCopyRepository bookCopyRepository,
+                           BookCatalogIndex bookCatalogIndex, BookAvailabilityIndex bookAvailabilityIndex,
+                           BookCopyCounters bookCopyCounters, BorrowingRecordService borrowingRecordService,
+                           BookService bookService, OutboxWriter outboxWriter) {
+        this.bookRepository = bookRepository;
+        this.bookCopyRepository = bookCopyRepository;
+        this.bookCatalogIndex = bookCatalogIndex;
+        this.bookAvailabilityIndex = bookAvailabilityIndex;
+        this.bookCopyCounters = bookCopyCounters;
+        this.borrowingRecordService = borrowingRecordService;
+        this.bookService = bookService;
+        this.outboxWriter = outboxWriter;
+    }
+
+    @Transactional(readOnly = true)
+    public List<BookCopyDTO> getCopies(Long bookId) {
+        if (!bookRepository.existsById(bookId)) {
+            throw new EntityNotFoundException("Book not found with id: " + bookId);
+        }
+        return bookCopyRepository.findByBookIdOrderById(bookId).stream()
+                .map(copy -> convertToDTO(copy, bookId))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Adds copies to the title. Patrons waiting for it are lent the new copies first, oldest hold
+     * first, and only the rest are put on the shelf.
+     */
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "#bookId")
+    @Transactional
+    public List<BookCopyDTO> addCopies(Long bookId, int count) {
+        if (count < 1 || count > MAX_NEW_COPIES) {
+            throw new InvalidRequestException("Between 1 and " + MAX_NEW_COPIES + " copies can be added at a time");
+        }
+        if (!bookRepository.existsById(bookId)) {
+            throw new EntityNotFoundException("Book not found with id: " + bookId);
+        }
+        Book book = bookRepository.getReferenceById(bookId);
+        List<BookCopy> copies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            copies.add(new BookCopy(book, BookStatus.AVAILABLE));
+        }
+        List<BookCopy> saved = bookCopyRepository.saveAll(copies);
+        Set<BookCopy> shelved = new HashSet<>(borrowingRecordService.lendToWaitingPatrons(bookId, saved));
+        List<BookCopyDTO> added = saved.stream()
+                .map(copy -> new BookCopyDTO(copy.getId(), bookId,
+                        (shelved.contains(copy) ? BookStatus.AVAILABLE : BookStatus.BORROWED).name()))
+                .collect(Collectors.toList());
+
+        bookRepository.adjustCopies(bookId, count, shelved.size());
+        titleChanged(bookId);
+        return added;
+    }
+
+    /**
+     * Takes a copy out of circulation (LOST, UNDER_MAINTENANCE) or puts it back (AVAILABLE).
+     * Copies on loan change status only through a return. A copy put back while patrons wait for
+     * the title is lent to the head of the queue instead of the shelf.
+     */
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "#bookId")
+    @Transactional
+    public BookCopyDTO updateCopyStatus(Long bookId, Long copyId, BookStatus status) {
+        if (status == BookStatus.BORROWED) {
+            throw new InvalidRequestException("Copies are lent through the borrowing endpoints");
+        }
+        BookCopy copy = bookCopyRepository.findById(copyId)
+                .filter(found -> found.getBook().getId().equals(bookId))
+                .orElseThrow(() -> new EntityNotFoundException("Copy " + copyId + " not found for book with id: " + bookId));
+        BookStatus previous = copy.getStatus();
+        if (previous == BookStatus.BORROWED) {
+            throw new IllegalStateException("Copy " + copyId + " is on loan");
+        }
+        if (previous == status) {
+            return convertToDTO(copy, bookId);
+        }
+
+        if (bookCopyRepository.updateStatus(List.of(copyId), previous, status) == 0) {
+            throw new OptimisticLockingFailureException("Copy " + copyId + " was changed concurrently");
+        }
+        BookStatus current = status;
+        if (status == BookStatus.AVAILABLE && borrowingRecordService.lendToWaitingPatrons(bookId, List.of(copy)).isEmpty()) {
+            current = BookStatus.BORROWED;
+        }
+        int availableDelta = (current == BookStatus.AVAILABLE ? 1 : 0) - (previous == BookStatus.AVAILABLE ? 1 : 0);
+        if (availableDelta != 0) {
+            bookRepository.adjustCopies(bookId, 0, availableDelta);
+            titleChanged(bookId);
+        }
+        return new BookCopyDTO(copyId, bookId, current.name());
+    }
+
+    // Brings the indexes up to the title's new counters and publishes them
+    private void titleChanged(Long bookId) {
+        Book book = bookRepository.findById(bookId)
+                .orElseThrow(() -> new EntityNotFoundException("Book not found with id: " + bookId));
+        bookCatalogIndex.put(book);
+        bookAvailabilityIndex.put(book);
+        bookCopyCounters.put(book);
+        outboxWriter.record(OutboxEventType.BOOK_UPDATED, bookId, bookService.convertToDTO(book));
+    }
+
+    private BookCopyDTO convertToDTO(BookCopy copy, Long bookId) {
+        return new BookCopyDTO(copy.getId(), bookId, String.valueOf(copy.getStatus()));
+    }
+}
@@ -0,0 +1,362 @@
+package com.library.book.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.book.dto.BookDTO;
+import com.library.book.dto.BookImportResultDTO;
+import com.library.book.enums.BookStatus;
+import com.library.book.repository.BookImportRepository;
+import com.library.config.CacheConfig;
+import com.library.outbox.enums.OutboxEventType;
+import com.library.outbox.service.OutboxWriter;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Streams a CSV or JSON Lines catalog feed, validates each row against the {@link BookDTO}
+ * constraints, drops repeated ISBNs and upserts the remaining rows in large batches.
+ * Rejected rows are written to an error file instead of failing the import. The upserts
+ * record no per-book events; an import that changed anything records one CATALOG_RELOADED
+ * event once its last batch has committed.
+ */
+@Service
+public class BookImportService {
+
+    public enum Format {
+        CSV,
+        JSON_LINES
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(BookImportService.class);
+
+    private static final long PROGRESS_INTERVAL = 100_000;
+
+    private final BookImportRepository bookImportRepository;
+    private final BookCatalogIndex bookCatalogIndex;
+    private final BookAvailabilityIndex bookAvailabilityIndex;
+    private final OutboxWriter outboxWriter;
+    private final TransactionTemplate transaction;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final Path errorDirectory;
+
+    @Autowired
+    public BookImportService(BookImportRepository bookImportRepository,
+                             BookCatalogIndex bookCatalogIndex,
+                             BookAvailabilityIndex bookAvailabilityIndex,
+                             OutboxWriter outboxWriter,
+                             PlatformTransactionManager transactionManager,
+                             Validator validator,
+                             ObjectMapper objectMapper,
+                             @Value("${catalog.import.batch-size}") int batchSize,
+                             @Value("${catalog.import.error-dir}") String errorDirectory) {
+        this.bookImportRepository = bookImportRepository;
+        this.bookCatalogIndex = bookCatalogIndex;
+        this.bookAvailabilityIndex = bookAvailabilityIndex;
+        this.outboxWriter = outboxWriter;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.errorDirectory = Paths.get(errorDirectory);
+    }
+
+    // Upserts may change any cached book, so the whole cache is dropped once the import is done
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, allEntries = true)
+    public BookImportResultDTO importBooks(InputStream input, Format format) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        Files.createDirectories(errorDirectory);
+        Path errorFile = Files.createTempFile(errorDirectory, "book-import-", ".errors.csv");
+
+        ImportRun run = new ImportRun();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+             BufferedWriter errors = Files.newBufferedWriter(errorFile, StandardCharsets.UTF_8)) {
+            errors.write("line,isbn,error");
+            errors.newLine();
+            run.errors = errors;
+
+            RowReader rows = format == Format.CSV ? new CsvRowReader(reader) : new JsonLinesRowReader(reader);
+            Row row;
+            while ((row = rows.next()) != null) {
+                process(run, row);
+            }
+            flush(run);
+        }
+
+        BookImportResultDTO result = new BookImportResultDTO();
+        result.setTotalRows(run.total);
+        result.setImportedRows(run.imported);
+        result.setFailedRows(run.failed);
+        if (run.failed > 0) {
+            result.setErrorFile(errorFile.toAbsolutePath().toString());
+        } else {
+            Files.deleteIfExists(errorFile);
+        }
+        if (run.imported > 0) {
+            // The upserts bypass JPA and the outbox, so the indexes cannot be patched row by row and consumers are
+            // told to re-read the catalog instead. The event is lost if the node stops before it commits; rerunning
+            // the import records it.
+            transaction.executeWithoutResult(status -> outboxWriter.record(OutboxEventType.CATALOG_RELOADED,
+                    OutboxEventType.CATALOG_ID, Map.of("importedRows", run.imported)));
+            bookCatalogIndex.rebuild();
+            bookAvailabilityIndex.rebuild();
+        }
+        result.setDurationMillis(System.currentTimeMillis() - startedAt);
+        log.info("Book import finished: {}", result);
+        return result;
+    }
+
+    private void process(ImportRun run, Row row) throws IOException {
+        run.total++;
+        if (run.total % PROGRESS_INTERVAL == 0) {
+            log.info("Book import progress: {} rows read, {} imported, {} rejected", run.total, run.imported, run.failed);
+        }
+
+        if (row.error() != null) {
+            reject(run, row.line(), null, row.error());
+            return;
+        }
+        BookDTO book = row.book();
+        if (book.getStatus() == null || book.getStatus().isBlank()) {
+            book.setStatus(BookStatus.AVAILABLE.name());
+        }
+
+        Set<ConstraintViolation<BookDTO>> violations = validator.validate(book);
+        if (!violations.isEmpty()) {
+            String message = violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+            reject(run, row.line(), book.getIsbn(), message);
+            return;
+        }
+        if (!run.seenIsbns.add(book.getIsbn())) {
+            reject(run, row.line(), book.getIsbn(), "Duplicate ISBN in import");
+            return;
+        }
+
+        run.batch.add(book);
+        run.batchLines.add(row.line());
+        if (run.batch.size() >= batchSize) {
+            flush(run);
+        }
+    }
+
+    private void flush(ImportRun run) throws IOException {
+        if (run.batch.isEmpty()) {
+            return;
+        }
+        try {
+            bookImportRepository.upsertAll(run.batch);
+            run.imported += run.batch.size();
+        } catch (DataAccessException e) {
+            // One bad row fails the whole batch; replay it row by row to keep the good ones
+            for (int i = 0; i < run.batch.size(); i++) {
+                BookDTO book = run.batch.get(i);
+                try {
+                    bookImportRepository.upsertAll(List.of(book));
+                    run.imported++;
+                } catch (DataAccessException rowFailure) {
+                    reject(run, run.batchLines.get(i), book.getIsbn(), rowFailure.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        run.batch.clear();
+        run.batchLines.clear();
+    }
+
+    private void reject(ImportRun run, long line, String isbn, String error) throws IOException {
+        run.failed++;
+        run.errors.write(line + "," + csvField(isbn) + "," + csvField(error));
+        run.errors.newLine();
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        return "\"" + value.replace("\"", "\"\"").replace('\n', ' ') + "\"";
+    }
+
+    private static class ImportRun {
+        private final Set<String> seenIsbns = new HashSet<>();
+        private final List<BookDTO> batch = new ArrayList<>();
+        private final List<Long> batchLines = new ArrayList<>();
+        private BufferedWriter errors;
+        private long total;
+        private long imported;
+        private long failed;
+    }
+
+    private record Row(long line, BookDTO book, String error) {
+    }
+
+    private interface RowReader {
+        Row next() throws IOException;
+    }
+
+    /**
+     * RFC 4180 style reader: the first record is the header, fields may be quoted and
+     * quoted fields may contain commas, doubled quotes and line breaks.
+     */
+    private static class CsvRowReader implements RowReader {
+        private final BufferedReader reader;
+        private Map<String, Integer> columns;
+        private long lineNumber;
+
+        CsvRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Row next() throws IOException {
+            if (columns == null) {
+                List<String> header = readRecord();
+                if (header == null) {
+                    return null;
+                }
+                columns = new HashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    columns.put(header.get(i).trim().toLowerCase().replace("_", ""), i);
+                }
+            }
+
+            long line = lineNumber + 1;
+            List<String> fields = readRecord();
+            while (fields != null && fields.size() == 1 && fields.get(0).isBlank()) {
+                line = lineNumber + 1;
+                fields = readRecord();
+            }
+            if (fields == null) {
+                return null;
+            }
+
+            BookDTO book = new BookDTO();
+            book.setTitle(field(fields, "title"));
+            book.setAuthor(field(fields, "author"));
+            book.setIsbn(field(fields, "isbn"));
+            book.setDescription(field(fields, "description"));
+            book.setStatus(field(fields, "status"));
+            String publicationDate = field(fields, "publicationdate");
+            if (publicationDate != null) {
+                try {
+                    book.setPublicationDate(LocalDate.parse(publicationDate));
+                } catch (DateTimeParseException e) {
+                    return new Row(line, null, "Invalid publication date: " + publicationDate);
+                }
+            }
+            return new Row(line, book, null);
+        }
+
+        private String field(List<String> fields, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= fields.size()) {
+                return null;
+            }
+            String value = fields.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        private List<String> readRecord() throws IOException {
+            String line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            lineNumber++;
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                for (int i = 0; i < line.length(); i++) {
+                    char c = line.charAt(i);
+                    if (quoted) {
+                        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                            field.append('"');
+                            i++;
+                        } else if (c == '"') {
+                            quoted = false;
+                        } else {
+                            field.append(c);
+                        }
+                    } else if (c == '"') {
+                        quoted = true;
+                    } else if (c == ',') {
+                        fields.add(field.toString());
+                        field.setLength(0);
+                    } else {
+                        field.append(c);
+                    }
+                }
+                if (!quoted) {
+                    break;
+                }
+                // The quoted field continues on the next physical line
+                line = reader.readLine();
+                if (line == null) {
+                    break;
+                }
+                lineNumber++;
+                field.append('\n');
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    private class JsonLinesRowReader implements RowReader {
+        private final BufferedReader reader;
+        private long lineNumber;
+
+        JsonLinesRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Row next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+                lineNumber++;
+            } while (line.isBlank());
+
+            try {
+                return new Row(lineNumber, objectMapper.readValue(line, BookDTO.class), null);
+            } catch (JsonProcessingException e) {
+                return new Row(lineNumber, null, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+}
@@ -1,35 +1,204 @@
 package com.library.book.service;
 
+import com.library.book.dto.BookAvailabilityDTO;
 import com.library.book.dto.BookDTO;
+import com.library.book.dto.BookPageDTO;
+import com.library.book.dto.BookSuggestionDTO;
 import com.library.book.entity.Book;
+import com.library.book.entity.BookCopy;
 import com.library.book.enums.BookStatus;
+import com.library.book.repository.BookCopyRepository;
 import com.library.book.repository.BookRepository;
+import com.library.config.CacheConfig;
+import com.library.exception.InvalidRequestException;
+import com.library.outbox.enums.OutboxEventType;
+import com.library.outbox.service.OutboxWriter;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
 public class BookService {
 
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int DEFAULT_SEARCH_LIMIT = 20;
+    public static final int MAX_SEARCH_LIMIT = 100;
+    public static final int STREAM_PAGE_SIZE = 500;
+    public static final int MAX_AVAILABILITY_IDS = 1000;
+
+    private static final String CURSOR_PREFIX = "book:";
+    private static final Pattern SEARCH_TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern ISBN_PREFIX = Pattern.compile("[0-9X-]{3,13}");
+
     private final BookRepository bookRepository;
+    private final BookCopyRepository bookCopyRepository;
+    private final BookCatalogIndex bookCatalogIndex;
+    private final BookAvailabilityIndex bookAvailabilityIndex;
+    private final BookCopyCounters bookCopyCounters;
+    private final OutboxWriter outboxWriter;
 
     @Autowired
-    public BookService(BookRepository bookRepository) {
+    public BookService(BookRepository bookRepository, BookCopyRepository bookCopyRepository,
+                       BookCatalogIndex bookCatalogIndex, BookAvailabilityIndex bookAvailabilityIndex,
+                       BookCopyCounters bookCopyCounters, OutboxWriter outboxWriter) {
         this.bookRepository = bookRepository;
+        this.bookCopyRepository = bookCopyRepository;
+        this.bookCatalogIndex = bookCatalogIndex;
+        this.bookAvailabilityIndex = bookAvailabilityIndex;
+        this.bookCopyCounters = bookCopyCounters;
+        this.outboxWriter = outboxWriter;
     }
 
     @Transactional(readOnly = true)
-    public List<BookDTO> getAllBooks() {
-        return bookRepository.findAll().stream()
+    public BookPageDTO getAllBooks(String cursor, Integer size, BookStatus status, String author) {
+        int pageSize = resolvePageSize(size);
+        long afterId = decodeCursor(cursor);
+
+        // Fetch one extra row to find out whether another page exists
+        List<Book> books = findPageAfter(afterId, status, author, Limit.of(pageSize + 1));
+        boolean hasMore = books.size() > pageSize;
+        List<BookDTO> items = books.stream()
+                .limit(pageSize)
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
+
+        String nextCursor = hasMore ? encodeCursor(items.get(items.size() - 1).getId()) : null;
+        return new BookPageDTO(items, nextCursor);
     }
 
+    /**
+     * Passes every matching book to the consumer in id order, one keyset page at a time. Each
+     * page is read in its own short transaction and the next one only once the consumer has
+     * taken the previous one, so a slow consumer holds no connection while it catches up.
+     * Books committed during the stream show up if their id is past the current position.
+     */
+    public void streamBooks(BookStatus status, String author, Consumer<BookDTO> consumer) {
+        long afterId = 0;
+        List<Book> page;
+        do {
+            page = findPageAfter(afterId, status, author, Limit.of(STREAM_PAGE_SIZE));
+            page.forEach(book -> consumer.accept(convertToDTO(book)));
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == STREAM_PAGE_SIZE);
+    }
+
+    // The query for the filters given, so the planner never has to cover absent ones
+    private List<Book> findPageAfter(long afterId, BookStatus status, String author, Limit limit) {
+        if (status != null && author != null) {
+            return bookRepository.findPageAfterByStatusAndAuthor(afterId, status, author, limit);
+        }
+        if (status != null) {
+            return bookRepository.findPageAfterByStatus(afterId, status, limit);
+        }
+        if (author != null) {
+            return bookRepository.findPageAfterByAuthor(afterId, author, limit);
+        }
+        return bookRepository.findPageAfter(afterId, limit);
+    }
+
+    /**
+     * Ranked search over title, author and description, where the last word is matched as a
+     * prefix so the same call serves autocomplete. A query that looks like an ISBN also
+     * matches books whose ISBN starts with it.
+     */
+    @Transactional(readOnly = true)
+    public List<BookDTO> searchBooks(String query, BookStatus status, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new InvalidRequestException("Search query is required");
+        }
+        int resultLimit = limit == null ? DEFAULT_SEARCH_LIMIT : limit;
+        if (resultLimit < 1 || resultLimit > MAX_SEARCH_LIMIT) {
+            throw new InvalidRequestException("Search limit must be between 1 and " + MAX_SEARCH_LIMIT);
+        }
+
+        String trimmed = query.trim();
+        String tsQuery = toPrefixTsQuery(trimmed);
+        String isbnPrefix = ISBN_PREFIX.matcher(trimmed).matches() ? trimmed + "%" : null;
+        if (tsQuery.isEmpty() && isbnPrefix == null) {
+            return List.of();
+        }
+        return bookRepository.search(tsQuery, isbnPrefix, status == null ? null : status.name(), resultLimit)
+                .stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Title/author autocomplete. Served from the in-memory catalog index when it is enabled,
+     * otherwise from the full-text search.
+     */
+    public List<BookSuggestionDTO> suggestBooks(String query, BookStatus status, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new InvalidRequestException("Search query is required");
+        }
+        int resultLimit = limit == null ? DEFAULT_SEARCH_LIMIT : limit;
+        if (resultLimit < 1 || resultLimit > MAX_SEARCH_LIMIT) {
+            throw new InvalidRequestException("Search limit must be between 1 and " + MAX_SEARCH_LIMIT);
+        }
+
+        if (bookCatalogIndex.isReady()) {
+            return bookCatalogIndex.suggest(query, status, resultLimit);
+        }
+        return searchBooks(query, status, resultLimit).stream()
+                .map(book -> new BookSuggestionDTO(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(), book.getStatus()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Batch availability check. Answered from the in-memory availability index when it is
+     * loaded; ids it does not cover, or every id when it is disabled, take one IN query.
+     */
+    public BookAvailabilityDTO getAvailability(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty() || ids.size() > MAX_AVAILABILITY_IDS) {
+            throw new InvalidRequestException("Between 1 and " + MAX_AVAILABILITY_IDS + " book ids are required");
+        }
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        BookAvailabilityDTO result = new BookAvailabilityDTO();
+        Collection<Long> unresolved = bookAvailabilityIndex.isReady()
+                ? bookAvailabilityIndex.classify(distinctIds, result)
+                : distinctIds;
+        if (!unresolved.isEmpty()) {
+            Map<Long, BookStatus> statuses = new HashMap<>();
+            for (Object[] row : bookRepository.findStatuses(unresolved)) {
+                statuses.put((Long) row[0], (BookStatus) row[1]);
+            }
+            for (Long id : unresolved) {
+                BookStatus status = statuses.get(id);
+                if (status == null) {
+                    result.getNotFound().add(id);
+                } else if (status == BookStatus.AVAILABLE) {
+                    result.getAvailable().add(id);
+                } else {
+                    result.getUnavailable().add(id);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Cacheable(cacheNames = CacheConfig.BOOKS_CACHE, key = "#id")
     @Transactional(readOnly = true)
     public BookDTO getBookById(Long id) {
         Book book = bookRepository.findById(id)
@@ -44,9 +213,20 @@ public class BookService {
         }
         Book book = convertToEntity(bookDTO);
         Book savedBook = bookRepository.save(book);
-        return convertToDTO(savedBook);
+        List<BookCopy> copies = new ArrayList<>(book.getTotalCopies());
+        for (int i = 0; i < book.getTotalCopies(); i++) {
+            copies.add(new BookCopy(savedBook, BookStatus.AVAILABLE));
+        }
+        bookCopyRepository.saveAll(copies);
+        bookCatalogIndex.put(savedBook);
+        bookAvailabilityIndex.put(savedBook);
+        bookCopyCounters.put(savedBook);
+        BookDTO created = convertToDTO(savedBook);
+        outboxWriter.record(OutboxEventType.BOOK_CREATED, created.getId(), created);
+        return created;
     }
 
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "#id")
     @Transactional
     public BookDTO updateBook(Long id, BookDTO bookDTO) {
         Book existingBook = bookRepository.findById(id)
@@ -58,18 +238,72 @@ public class BookService {
 
         updateBookFields(existingBook, bookDTO);
         Book updatedBook = bookRepository.save(existingBook);
-        return convertToDTO(updatedBook);
+        bookCatalogIndex.put(updatedBook);
+        bookAvailabilityIndex.put(updatedBook);
+        bookCopyCounters.put(updatedBook);
+        BookDTO updated = convertToDTO(updatedBook);
+        outboxWriter.record(OutboxEventType.BOOK_UPDATED, id, updated);
+        return updated;
     }
 
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "#id")
     @Transactional
     public void deleteBook(Long id) {
         if (!bookRepository.existsById(id)) {
             throw new EntityNotFoundException("Book not found with id: " + id);
         }
         bookRepository.deleteById(id);
+        bookCatalogIndex.remove(id);
+        bookAvailabilityIndex.remove(id);
+        bookCopyCounters.remove(id);
+        outboxWriter.record(OutboxEventType.BOOK_DELETED, id, Map.of("id", id));
+    }
+
+    // Only letters and digits reach to_tsquery, so user input can never inject tsquery operators
+    static String toPrefixTsQuery(String query) {
+        List<String> tokens = Arrays.stream(SEARCH_TOKEN_SEPARATOR.split(query.toLowerCase()))
+                .filter(token -> !token.isEmpty())
+                .collect(Collectors.toList());
+        if (tokens.isEmpty()) {
+            return "";
+        }
+        int last = tokens.size() - 1;
+        tokens.set(last, tokens.get(last) + ":*");
+        return String.join(" & ", tokens);
+    }
+
+    private int resolvePageSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new InvalidRequestException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return size;
+    }
+
+    private String encodeCursor(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(CURSOR_PREFIX)) {
+                throw new InvalidRequestException("Invalid cursor");
+            }
+            return Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Invalid cursor: " + cursor);
+        }
     }
 
-    private BookDTO convertToDTO(Book book) {
+    // Package-private for BookMappingBenchmark
+    BookDTO convertToDTO(Book book) {
         BookDTO dto = new BookDTO();
         dto.setId(book.getId());
         dto.setTitle(book.getTitle());
@@ -78,6 +312,8 @@ public class BookService {
         dto.setIsbn(book.getIsbn());
         dto.setDescription(book.getDescription());
         dto.setStatus(String.valueOf(book.getStatus()));
+        dto.setTotalCopies(book.getTotalCopies());
+        dto.setAvailableCopies(book.getAvailableCopies());
         return dto;
     }
 
@@ -88,7 +324,10 @@ public class BookService {
         book.setPublicationDate(dto.getPublicationDate());
         book.setIsbn(dto.getIsbn());
         book.setDescription(dto.getDescription());
-        book.setStatus(BookStatus.valueOf(dto.getStatus()));
+        int copies = dto.getTotalCopies() == null ? 1 : dto.getTotalCopies();
+        book.setTotalCopies(copies);
+        book.setAvailableCopies(copies);
+        book.setStatus(resolveStatus(BookStatus.valueOf(dto.getStatus()), copies));
         return book;
     }
 
@@ -97,7 +336,15 @@ public class BookService {
         book.setAuthor(dto.getAuthor());
         book.setPublicationDate(dto.getPublicationDate());
         book.setDescription(dto.getDescription());
-        book.setStatus(BookStatus.valueOf(String.valueOf(dto.getStatus())));
+        book.setStatus(resolveStatus(BookStatus.valueOf(String.valueOf(dto.getStatus())), book.getAvailableCopies()));
 
     }
+
+    // AVAILABLE and BORROWED follow the copies on the shelf; only withdrawing the title is set by hand
+    private static BookStatus resolveStatus(BookStatus requested, int availableCopies) {
+        if (requested == BookStatus.LOST || requested == BookStatus.UNDER_MAINTENANCE) {
+            return requested;
+        }
+        return availableCopies > 0 ? BookStatus.AVAILABLE : BookStatus.BORROWED;
+    }
 }
\ No newline at end of file
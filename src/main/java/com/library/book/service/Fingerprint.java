@@ -0,0 +1,64 @@
+package com.library.book.service;
+
+import com.library.book.repository.BookRepository;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Number of books, sum of their ids and sum of their versions. Any insert, delete or versioned
+ * update changes it, so an in-memory index and the books table with equal fingerprints hold the
+ * same versions of the same books.
+ */
+record Fingerprint(long count, long idSum, long versionSum) {
+
+    // Rows of (block, count, id sum, version sum) as returned by BookRepository.fingerprintBlocks
+    static Map<Long, Fingerprint> byBlock(List<Object[]> rows) {
+        Map<Long, Fingerprint> blocks = new HashMap<>();
+        for (Object[] row : rows) {
+            blocks.put(((Number) row[0]).longValue(), new Fingerprint(((Number) row[1]).longValue(),
+                    ((Number) row[2]).longValue(), ((Number) row[3]).longValue()));
+        }
+        return blocks;
+    }
+
+    static long blockOf(long id) {
+        return id / BookRepository.ID_BLOCK_SIZE;
+    }
+
+    // The blocks holding a book that is missing from one side or differs in version
+    static Set<Long> changedBlocks(Map<Long, Fingerprint> database, Map<Long, Fingerprint> indexed) {
+        Set<Long> changed = new HashSet<>();
+        database.forEach((block, fingerprint) -> {
+            if (!fingerprint.equals(indexed.get(block))) {
+                changed.add(block);
+            }
+        });
+        indexed.keySet().stream().filter(block -> !database.containsKey(block)).forEach(changed::add);
+        return changed;
+    }
+
+    /**
+     * Sums the books of an in-memory index into per-block fingerprints without allocating one
+     * per book.
+     */
+    static class BlockSums {
+        private final Map<Long, long[]> sums = new HashMap<>();
+
+        void add(long id, long version) {
+            long[] sum = sums.computeIfAbsent(blockOf(id), block -> new long[3]);
+            sum[0]++;
+            sum[1] += id;
+            sum[2] += version;
+        }
+
+        Map<Long, Fingerprint> toFingerprints() {
+            Map<Long, Fingerprint> blocks = new HashMap<>(sums.size() * 2);
+            sums.forEach((block, sum) -> blocks.put(block, new Fingerprint(sum[0], sum[1], sum[2])));
+            return blocks;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.library.book.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Holds an in-memory structure over the books table that is filled by a full scan and kept
+ * current by changes applied after commit. Changes committed while a rebuild scans the table
+ * are recorded and replayed onto the rebuilt structure, whose own version checks keep
+ * whichever copy of a book is newer. The structure itself need not be thread-safe.
+ */
+class RebuildableIndex<D> {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Not synchronized: a virtual thread blocked on JDBC inside a monitor would pin its carrier
+    private final Lock rebuildLock = new ReentrantLock();
+    private D data;
+    private List<Consumer<D>> pendingDuringRebuild;
+    private volatile boolean ready;
+
+    RebuildableIndex(D empty) {
+        this.data = empty;
+    }
+
+    boolean isReady() {
+        return ready;
+    }
+
+    <R> R read(Function<D, R> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.apply(data);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void apply(Consumer<D> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(data);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Swaps in a structure known to match the table, such as one loaded from a snapshot
+    void replace(D loaded) {
+        lock.writeLock().lock();
+        try {
+            data = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+    }
+
+    /**
+     * Fills {@code rebuilt} with {@code scan} and swaps it in, after replaying the changes
+     * committed meanwhile. A failed scan keeps serving the previous structure, which the live
+     * changes kept current.
+     */
+    void rebuild(D rebuilt, Consumer<D> scan) {
+        rebuildLock.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            boolean scanned = false;
+            try {
+                scan.accept(rebuilt);
+                scanned = true;
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    if (scanned) {
+                        pendingDuringRebuild.forEach(change -> change.accept(rebuilt));
+                        data = rebuilt;
+                    }
+                    pendingDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            ready = true;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+}
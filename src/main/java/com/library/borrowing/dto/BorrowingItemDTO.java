@@ -0,0 +1,31 @@
+package com.library.borrowing.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class BorrowingItemDTO {
+
+    @NotNull(message = "Book id is required")
+    private Long bookId;
+
+    @NotNull(message = "Patron id is required")
+    private Long patronId;
+
+    public BorrowingItemDTO() {}
+
+    public BorrowingItemDTO(Long bookId, Long patronId) {
+        this.bookId = bookId;
+        this.patronId = patronId;
+    }
+
+    @Override
+    public String toString() {
+        return "BorrowingItemDTO{" +
+                "bookId=" + bookId +
+                ", patronId=" + patronId +
+                '}';
+    }
+}
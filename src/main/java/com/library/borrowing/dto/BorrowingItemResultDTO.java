@@ -0,0 +1,45 @@
+package com.library.borrowing.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class BorrowingItemResultDTO {
+
+    private Long bookId;
+    private Long patronId;
+    private boolean success;
+    private String error;
+    private BorrowingRecordDTO record;
+
+    public BorrowingItemResultDTO() {}
+
+    public static BorrowingItemResultDTO succeeded(BorrowingItemDTO item, BorrowingRecordDTO record) {
+        BorrowingItemResultDTO result = new BorrowingItemResultDTO();
+        result.setBookId(item.getBookId());
+        result.setPatronId(item.getPatronId());
+        result.setSuccess(true);
+        result.setRecord(record);
+        return result;
+    }
+
+    public static BorrowingItemResultDTO failed(BorrowingItemDTO item, String error) {
+        BorrowingItemResultDTO result = new BorrowingItemResultDTO();
+        result.setBookId(item.getBookId());
+        result.setPatronId(item.getPatronId());
+        result.setSuccess(false);
+        result.setError(error);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "BorrowingItemResultDTO{" +
+                "bookId=" + bookId +
+                ", patronId=" + patronId +
+                ", success=" + success +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
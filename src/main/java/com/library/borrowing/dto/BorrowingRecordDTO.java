@@ -11,6 +11,7 @@ public class BorrowingRecordDTO {
 
     private Long id;
     private Long bookId;
+    private Long copyId;
     private Long patronId;
     private LocalDateTime borrowDate;
     private LocalDateTime dueDate;
@@ -30,6 +31,7 @@ public class BorrowingRecordDTO {
         return "BorrowingRecordDTO{" +
                 "id=" + id +
                 ", bookId=" + bookId +
+                ", copyId=" + copyId +
                 ", patronId=" + patronId +
                 ", borrowDate=" + borrowDate +
                 ", dueDate=" + dueDate +
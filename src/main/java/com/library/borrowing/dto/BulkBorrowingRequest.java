@@ -0,0 +1,20 @@
+package com.library.borrowing.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class BulkBorrowingRequest {
+
+    public static final int MAX_ITEMS = 200;
+
+    @NotEmpty(message = "At least one item is required")
+    @Size(max = MAX_ITEMS, message = "At most " + MAX_ITEMS + " items can be processed per request")
+    private List<@Valid BorrowingItemDTO> items;
+}
@@ -0,0 +1,50 @@
+package com.library.borrowing.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only view of a borrowing record, filled directly from a JPQL constructor expression
+ * so that listing loans never loads BorrowingRecord, Book or Patron entities.
+ */
+@Setter
+@Getter
+public class LoanDTO {
+
+    private Long id;
+    private Long bookId;
+    private String bookTitle;
+    private Long patronId;
+    private String patronName;
+    private LocalDateTime borrowDate;
+    private LocalDateTime dueDate;
+    private LocalDateTime returnDate;
+
+    public LoanDTO() {}
+
+    public LoanDTO(Long id, Long bookId, String bookTitle, Long patronId, String patronName,
+                   LocalDateTime borrowDate, LocalDateTime dueDate, LocalDateTime returnDate) {
+        this.id = id;
+        this.bookId = bookId;
+        this.bookTitle = bookTitle;
+        this.patronId = patronId;
+        this.patronName = patronName;
+        this.borrowDate = borrowDate;
+        this.dueDate = dueDate;
+        this.returnDate = returnDate;
+    }
+
+    @Override
+    public String toString() {
+        return "LoanDTO{" +
+                "id=" + id +
+                ", bookId=" + bookId +
+                ", patronId=" + patronId +
+                ", borrowDate=" + borrowDate +
+                ", dueDate=" + dueDate +
+                ", returnDate=" + returnDate +
+                '}';
+    }
+}
@@ -0,0 +1,34 @@
+package com.library.borrowing.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Setter
+@Getter
+public class LoanPageDTO {
+
+    private List<LoanDTO> items;
+
+    // Opaque continuation token, null when this is the last page
+    private String nextCursor;
+
+    private int size;
+
+    public LoanPageDTO() {}
+
+    public LoanPageDTO(List<LoanDTO> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.size = items.size();
+    }
+
+    @Override
+    public String toString() {
+        return "LoanPageDTO{" +
+                "size=" + size +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
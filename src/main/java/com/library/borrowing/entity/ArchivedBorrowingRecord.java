@@ -0,0 +1,56 @@
+package com.library.borrowing.entity;
+
+import com.library.book.entity.Book;
+import com.library.patron.entity.Patron;
+import jakarta.persistence.*;
+import lombok.Getter;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * A closed loan moved to the archive by {@link com.library.borrowing.service.LoanArchiver}.
+ * Only read by history queries; rows are written by the archive function in the database.
+ */
+@Getter
+@Entity
+@Immutable
+@Table(name = "borrowing_records_archive")
+public class ArchivedBorrowingRecord {
+
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id", nullable = false)
+    private Book book;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "patron_id", nullable = false)
+    private Patron patron;
+
+    @Column(name = "borrow_date", nullable = false)
+    private LocalDateTime borrowDate;
+
+    @Column(name = "due_date", nullable = false)
+    private LocalDateTime dueDate;
+
+    @Column(name = "return_date")
+    private LocalDateTime returnDate;
+
+    public ArchivedBorrowingRecord() {
+        // Default constructor
+    }
+
+    @Override
+    public String toString() {
+        return "ArchivedBorrowingRecord{" +
+                "id=" + id +
+                ", book=" + (book != null ? book.getId() : null) +
+                ", patron=" + (patron != null ? patron.getId() : null) +
+                ", borrowDate=" + borrowDate +
+                ", dueDate=" + dueDate +
+                ", returnDate=" + returnDate +
+                '}';
+    }
+}
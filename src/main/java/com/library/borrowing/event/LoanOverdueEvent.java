@@ -0,0 +1,25 @@
+package com.library.borrowing.event;
+
+import com.library.borrowing.dto.LoanDTO;
+import lombok.Getter;
+
+/**
+ * Published once for every loan that passes its due date without being returned, inside the
+ * transaction of the scan that found it.
+ */
+@Getter
+public class LoanOverdueEvent {
+
+    private final LoanDTO loan;
+
+    public LoanOverdueEvent(LoanDTO loan) {
+        this.loan = loan;
+    }
+
+    @Override
+    public String toString() {
+        return "LoanOverdueEvent{" +
+                "loan=" + loan +
+                '}';
+    }
+}
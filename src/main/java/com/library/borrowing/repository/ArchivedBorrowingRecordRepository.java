@@ -0,0 +1,56 @@
+package com.library.borrowing.repository;
+
+import com.library.borrowing.dto.LoanDTO;
+import com.library.borrowing.entity.ArchivedBorrowingRecord;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ArchivedBorrowingRecordRepository extends JpaRepository<ArchivedBorrowingRecord, Long> {
+
+    String ARCHIVED_LOAN_PROJECTION = "SELECT new com.library.borrowing.dto.LoanDTO(r.id, b.id, b.title, p.id, p.name, " +
+            "r.borrowDate, r.dueDate, r.returnDate) " +
+            "FROM ArchivedBorrowingRecord r JOIN r.book b JOIN r.patron p ";
+
+    // Same keyset pages as the loan history queries on borrowing_records, served by the archive history indexes
+
+    @Query(ARCHIVED_LOAN_PROJECTION + "WHERE r.patron.id = :patronId AND " + BorrowingRecordRepository.LOAN_KEYSET)
+    List<LoanDTO> findLoansByPatron(@Param("patronId") Long patronId,
+                                    @Param("beforeDate") LocalDateTime beforeDate,
+                                    @Param("beforeId") Long beforeId,
+                                    Limit limit);
+
+    @Query(ARCHIVED_LOAN_PROJECTION + "WHERE r.book.id = :bookId AND " + BorrowingRecordRepository.LOAN_KEYSET)
+    List<LoanDTO> findLoansByBook(@Param("bookId") Long bookId,
+                                  @Param("beforeDate") LocalDateTime beforeDate,
+                                  @Param("beforeId") Long beforeId,
+                                  Limit limit);
+
+    // First days of the months before :before that still have loans to archive: a monthly partition still
+    // attached to borrowing_records, or closed loans left in its default partition. Native scalar dates come
+    // back as java.sql.Date.
+    @Query(value = "SELECT CAST(to_date(substring(c.relname FROM 19), 'YYYY_MM') AS date) AS month " +
+            "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = CAST('borrowing_records' AS regclass) " +
+            "AND c.relname ~ '^borrowing_records_[0-9]{4}_[0-9]{2}$' " +
+            "AND to_date(substring(c.relname FROM 19), 'YYYY_MM') < :before " +
+            "UNION " +
+            "SELECT CAST(date_trunc('month', d.borrow_date) AS date) FROM borrowing_records_default d " +
+            "WHERE d.return_date IS NOT NULL AND d.borrow_date < :before " +
+            "ORDER BY month", nativeQuery = true)
+    List<Date> findArchivableMonths(@Param("before") LocalDate before);
+
+    // Moves the closed loans of one month into the archive (function from V3__borrowing_records_archive.sql)
+    @Transactional
+    @Query(value = "SELECT archive_borrowing_records_month(CAST(:month AS date))", nativeQuery = true)
+    long archiveMonth(@Param("month") LocalDate month);
+}
@@ -1,12 +1,81 @@
 package com.library.borrowing.repository;
 
+import com.library.borrowing.dto.LoanDTO;
 import com.library.borrowing.entity.BorrowingRecord;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BorrowingRecordRepository extends JpaRepository<BorrowingRecord, Long> {
+
+    String LOAN_PROJECTION = "SELECT new com.library.borrowing.dto.LoanDTO(r.id, b.id, b.title, p.id, p.name, " +
+            "r.borrowDate, r.dueDate, r.returnDate) " +
+            "FROM BorrowingRecord r JOIN r.book b JOIN r.patron p ";
+
+    String LOAN_KEYSET = "(r.borrowDate < :beforeDate OR (r.borrowDate = :beforeDate AND r.id < :beforeId)) " +
+            "ORDER BY r.borrowDate DESC, r.id DESC";
+
+    // A patron holds at most one copy of a title at a time, which borrowing enforces
     Optional<BorrowingRecord> findByBookIdAndPatronIdAndReturnDateIsNull(Long bookId, Long patronId);
-}
\ No newline at end of file
+
+    boolean existsByBookIdAndPatronIdAndReturnDateIsNull(Long bookId, Long patronId);
+
+    @Query("SELECT r FROM BorrowingRecord r WHERE r.book.id IN :bookIds AND r.returnDate IS NULL")
+    List<BorrowingRecord> findActiveByBookIds(@Param("bookIds") Collection<Long> bookIds);
+
+    // Loan listings: keyset pages, newest first, seeking past the (borrowDate, id) of the last row seen.
+    // Each one is served by the matching (owner, return_date) or (owner, borrow_date) index.
+
+    @Query(LOAN_PROJECTION + "WHERE r.patron.id = :patronId AND r.returnDate IS NULL AND " + LOAN_KEYSET)
+    List<LoanDTO> findActiveLoansByPatron(@Param("patronId") Long patronId,
+                                          @Param("beforeDate") LocalDateTime beforeDate,
+                                          @Param("beforeId") Long beforeId,
+                                          Limit limit);
+
+    @Query(LOAN_PROJECTION + "WHERE r.patron.id = :patronId AND " + LOAN_KEYSET)
+    List<LoanDTO> findLoansByPatron(@Param("patronId") Long patronId,
+                                    @Param("beforeDate") LocalDateTime beforeDate,
+                                    @Param("beforeId") Long beforeId,
+                                    Limit limit);
+
+    @Query(LOAN_PROJECTION + "WHERE r.book.id = :bookId AND r.returnDate IS NULL AND " + LOAN_KEYSET)
+    List<LoanDTO> findActiveLoansByBook(@Param("bookId") Long bookId,
+                                        @Param("beforeDate") LocalDateTime beforeDate,
+                                        @Param("beforeId") Long beforeId,
+                                        Limit limit);
+
+    @Query(LOAN_PROJECTION + "WHERE r.book.id = :bookId AND " + LOAN_KEYSET)
+    List<LoanDTO> findLoansByBook(@Param("bookId") Long bookId,
+                                  @Param("beforeDate") LocalDateTime beforeDate,
+                                  @Param("beforeId") Long beforeId,
+                                  Limit limit);
+
+    // Open loans that fell due before :until, in (dueDate, id) order after the given position;
+    // served by the partial index on open loans (idx_borrowing_records_open_due)
+    @Query(LOAN_PROJECTION + "WHERE r.returnDate IS NULL AND r.dueDate < :until " +
+            "AND (r.dueDate > :afterDue OR (r.dueDate = :afterDue AND r.id > :afterId)) " +
+            "ORDER BY r.dueDate, r.id")
+    List<LoanDTO> findOverdueAfter(@Param("until") LocalDateTime until,
+                                   @Param("afterDue") LocalDateTime afterDue,
+                                   @Param("afterId") Long afterId,
+                                   Limit limit);
+
+    @Query("SELECT COUNT(r) FROM BorrowingRecord r WHERE r.returnDate IS NULL AND r.dueDate < :now")
+    long countOverdue(@Param("now") LocalDateTime now);
+
+    // Creates the monthly partition holding :month unless it exists (function from V2__partition_borrowing_records.sql);
+    // writes, so it cannot run in the read-only transaction query methods get by default
+    @Transactional
+    @Query(value = "SELECT create_borrowing_records_partition(CAST(:month AS date))", nativeQuery = true)
+    boolean createPartition(@Param("month") LocalDate month);
+}
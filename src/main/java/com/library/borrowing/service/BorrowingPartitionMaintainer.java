@@ -0,0 +1,50 @@
+package com.library.borrowing.service;
+
+import com.library.borrowing.repository.BorrowingRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+
+/**
+ * Keeps the monthly borrow_date partitions of borrowing_records created ahead of time, so new
+ * loans never have to go to the default partition. Creating a partition that already exists
+ * is a no-op, and concurrent nodes are serialised by an advisory lock inside the database
+ * function, so every node can run the job.
+ */
+@Service
+public class BorrowingPartitionMaintainer {
+
+    private static final Logger log = LoggerFactory.getLogger(BorrowingPartitionMaintainer.class);
+
+    private final BorrowingRecordRepository borrowingRecordRepository;
+    private final int monthsAhead;
+
+    @Autowired
+    public BorrowingPartitionMaintainer(BorrowingRecordRepository borrowingRecordRepository,
+                                        @Value("${borrowing.partitions.months-ahead}") int monthsAhead) {
+        this.borrowingRecordRepository = borrowingRecordRepository;
+        this.monthsAhead = monthsAhead;
+    }
+
+    /**
+     * Makes sure the partitions from the current month up to {@code months-ahead} months
+     * later exist and returns how many had to be created.
+     */
+    @Scheduled(cron = "${borrowing.partitions.maintain-cron}")
+    public int createUpcomingPartitions() {
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        int created = 0;
+        for (int i = 0; i <= monthsAhead; i++) {
+            if (borrowingRecordRepository.createPartition(month.plusMonths(i))) {
+                created++;
+                log.info("Created borrowing_records partition for {}", month.plusMonths(i));
+            }
+        }
+        return created;
+    }
+}
@@ -1,19 +1,51 @@
 package com.library.borrowing.service;
 
 import com.library.book.entity.Book;
+import com.library.book.entity.BookCopy;
 import com.library.book.enums.BookStatus;
+import com.library.book.repository.BookCopyRepository;
 import com.library.book.repository.BookRepository;
+import com.library.book.service.BookAvailabilityIndex;
+import com.library.book.service.BookCatalogIndex;
+import com.library.book.service.BookCopyCounters;
+import com.library.borrowing.dto.BorrowingItemDTO;
+import com.library.borrowing.dto.BorrowingItemResultDTO;
 import com.library.borrowing.dto.BorrowingRecordDTO;
 import com.library.borrowing.entity.BorrowingRecord;
 import com.library.borrowing.repository.BorrowingRecordRepository;
+import com.library.config.CacheConfig;
+import com.library.hold.entity.Hold;
+import com.library.hold.service.HoldService;
+import com.library.outbox.enums.OutboxEventType;
+import com.library.outbox.service.OutboxWriter;
 import com.library.patron.entity.Patron;
 import com.library.patron.repository.PatronRepository;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class BorrowingRecordService {
@@ -21,61 +53,405 @@ public class BorrowingRecordService {
     private final BorrowingRecordRepository borrowingRecordRepository;
     private final BookRepository bookRepository;
     private final PatronRepository patronRepository;
+    private final CacheManager cacheManager;
+    private final BookCatalogIndex bookCatalogIndex;
+    private final BookAvailabilityIndex bookAvailabilityIndex;
+    private final BookCopyRepository bookCopyRepository;
+    private final BookCopyCounters bookCopyCounters;
+    private final HoldService holdService;
+    private final OutboxWriter outboxWriter;
 
     @Autowired
     public BorrowingRecordService(BorrowingRecordRepository borrowingRecordRepository,
                                   BookRepository bookRepository,
-                                  PatronRepository patronRepository) {
+                                  PatronRepository patronRepository,
+                                  CacheManager cacheManager,
+                                  BookCatalogIndex bookCatalogIndex,
+                                  BookAvailabilityIndex bookAvailabilityIndex,
+                                  BookCopyRepository bookCopyRepository,
+                                  BookCopyCounters bookCopyCounters,
+                                  HoldService holdService,
+                                  OutboxWriter outboxWriter) {
         this.borrowingRecordRepository = borrowingRecordRepository;
         this.bookRepository = bookRepository;
         this.patronRepository = patronRepository;
+        this.cacheManager = cacheManager;
+        this.bookCatalogIndex = bookCatalogIndex;
+        this.bookAvailabilityIndex = bookAvailabilityIndex;
+        this.bookCopyRepository = bookCopyRepository;
+        this.bookCopyCounters = bookCopyCounters;
+        this.holdService = holdService;
+        this.outboxWriter = outboxWriter;
     }
 
+    /**
+     * Lends one copy of the title. The copy is picked with SKIP LOCKED, so concurrent borrowers of
+     * the same title take different copies, and the title's counter is decremented last with a
+     * conditional update after the loan and its outbox event are written, so its row is only
+     * locked between that statement and the commit.
+     * When every free copy is locked by borrows still in flight, the attempt fails instead of
+     * waiting for them and is retried in a new transaction. A title with patrons in its queue is
+     * not lent over the counter: its copies go to the queue as they come back.
+     */
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "#bookId")
+    @Retryable(retryFor = {OptimisticLockingFailureException.class, PessimisticLockingFailureException.class},
+            maxAttemptsExpression = "${borrowing.retry.max-attempts}",
+            backoff = @Backoff(delayExpression = "${borrowing.retry.delay-ms}", multiplier = 2))
     @Transactional
     public BorrowingRecordDTO borrowBook(Long bookId, Long patronId) {
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new EntityNotFoundException("Book not found with id: " + bookId));
+        if (!bookCopyCounters.tryAcquire(bookId)) {
+            throw new IllegalStateException("Book is not available for borrowing" + bookId);
+        }
 
         Patron patron = patronRepository.findById(patronId)
                 .orElseThrow(() -> new EntityNotFoundException("Patron not found with id: " + patronId));
 
-        if (book.getStatus() != BookStatus.AVAILABLE) {
+        if (borrowingRecordRepository.existsByBookIdAndPatronIdAndReturnDateIsNull(bookId, patronId)) {
+            throw new IllegalStateException("Patron " + patronId + " already has a copy of book " + bookId);
+        }
+        if (!holdService.findQueuedBooks(List.of(bookId)).isEmpty()) {
+            throw new IllegalStateException(queuedMessage(bookId));
+        }
+
+        List<BookCopy> copies = bookCopyRepository.lockAvailable(bookId, 1);
+        if (copies.isEmpty()) {
+            Book book = bookRepository.findById(bookId)
+                    .orElseThrow(() -> new EntityNotFoundException("Book not found with id: " + bookId));
+            // The committed counter still counts copies whose borrowers have not committed yet
+            if (book.getStatus() == BookStatus.AVAILABLE && book.getAvailableCopies() > 0) {
+                throw new CannotAcquireLockException("Every free copy of book " + bookId + " is being lent, please retry");
+            }
             throw new IllegalStateException("Book is not available for borrowing" + bookId);
         }
+        BookCopy copy = copies.get(0);
+        claimCopies(List.of(copy.getId()));
 
         LocalDateTime borrowDate = LocalDateTime.now();
         LocalDateTime dueDate = borrowDate.plusDays(14); // Assuming a 2-week borrowing period
 
-        BorrowingRecord borrowingRecord = new BorrowingRecord(book, patron, borrowDate, dueDate);
-        book.setStatus(BookStatus.BORROWED);
-
+        BorrowingRecord borrowingRecord = new BorrowingRecord(copy.getBook(), copy, patron, borrowDate, dueDate);
         BorrowingRecord savedRecord = borrowingRecordRepository.save(borrowingRecord);
-        bookRepository.save(book);
+        // Written before the counter so the loan and its event are flushed ahead of the title's row lock
+        BorrowingRecordDTO borrowed = recordEvent(OutboxEventType.BOOK_BORROWED, savedRecord);
 
-        return convertToDTO(savedRecord);
+        // Fails when the title was withdrawn from lending; the claimed copy and the event are rolled back
+        if (bookRepository.allocateCopies(bookId, 1) == 0) {
+            throw new IllegalStateException("Book is not available for borrowing" + bookId);
+        }
+        refreshIndexes(List.of(bookId));
+
+        return borrowed;
     }
 
+    /**
+     * Closes the loan and lends the copy to the patron at the head of the title's hold queue, or
+     * puts it back on the shelf when nobody is waiting.
+     */
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "#bookId")
+    @Retryable(retryFor = {OptimisticLockingFailureException.class, PessimisticLockingFailureException.class},
+            maxAttemptsExpression = "${borrowing.retry.max-attempts}",
+            backoff = @Backoff(delayExpression = "${borrowing.retry.delay-ms}", multiplier = 2))
     @Transactional
     public BorrowingRecordDTO returnBook(Long bookId, Long patronId) {
         BorrowingRecord borrowingRecord = borrowingRecordRepository
                 .findByBookIdAndPatronIdAndReturnDateIsNull(bookId, patronId)
                 .orElseThrow(() -> new EntityNotFoundException("No active borrowing record found for this book and patron" +patronId));
 
-        Book book = borrowingRecord.getBook();
-        book.setStatus(BookStatus.AVAILABLE);
-
         borrowingRecord.setReturnDate(LocalDateTime.now());
 
         BorrowingRecord updatedRecord = borrowingRecordRepository.save(borrowingRecord);
-        bookRepository.save(book);
+        BorrowingRecordDTO returned = recordEvent(OutboxEventType.BOOK_RETURNED, updatedRecord);
+        refreshIndexes(releaseCopies(Map.of(bookId, List.of(borrowingRecord.getCopy().getId()))));
+
+        return returned;
+    }
+
+    /**
+     * Borrows every item in one transaction. Patrons and title statuses are loaded with two IN
+     * queries, the free copies of each title with one SKIP LOCKED query, and the new records are
+     * inserted as JDBC batches. Items that cannot be borrowed, including those whose free copies
+     * are all being lent by other transactions or whose title is withdrawn from lending before
+     * its counter is decremented, are reported in their result and do not affect the others;
+     * the copies picked for them stay on the shelf. Titles are locked in id order, copies before
+     * counters, like every borrow and return, so concurrent batches cannot deadlock. Items of
+     * titles with patrons in their queue fail, as in {@link #borrowBook}.
+     * <p>
+     * A concurrency conflict is not isolated to its item: it rolls back and retries the whole
+     * batch, and once the retries are exhausted it fails the batch with no item applied.
+     */
+    @Retryable(retryFor = {OptimisticLockingFailureException.class, PessimisticLockingFailureException.class},
+            maxAttemptsExpression = "${borrowing.retry.max-attempts}",
+            backoff = @Backoff(delayExpression = "${borrowing.retry.delay-ms}", multiplier = 2))
+    @Transactional
+    public List<BorrowingItemResultDTO> borrowBooks(List<BorrowingItemDTO> items) {
+        Set<Long> bookIds = collectIds(items, BorrowingItemDTO::getBookId);
+        Map<Long, BookStatus> statuses = new HashMap<>();
+        for (Object[] row : bookRepository.findStatuses(bookIds)) {
+            statuses.put((Long) row[0], (BookStatus) row[1]);
+        }
+        Map<Long, Patron> patrons = patronRepository.findAllById(collectIds(items, BorrowingItemDTO::getPatronId)).stream()
+                .collect(Collectors.toMap(Patron::getId, Function.identity()));
+        Set<LoanKey> openLoans = borrowingRecordRepository.findActiveByBookIds(bookIds).stream()
+                .map(record -> new LoanKey(record.getBook().getId(), record.getPatron().getId()))
+                .collect(Collectors.toCollection(HashSet::new));
+        Set<Long> queuedBookIds = holdService.findQueuedBooks(bookIds);
+
+        List<BorrowingItemResultDTO> results = new ArrayList<>(Collections.nCopies(items.size(), null));
+        Map<Long, List<Integer>> requestsByBook = new TreeMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            BorrowingItemDTO item = items.get(i);
+            BookStatus status = statuses.get(item.getBookId());
+            if (status == null) {
+                results.set(i, BorrowingItemResultDTO.failed(item, "Book not found with id: " + item.getBookId()));
+            } else if (!patrons.containsKey(item.getPatronId())) {
+                results.set(i, BorrowingItemResultDTO.failed(item, "Patron not found with id: " + item.getPatronId()));
+            } else if (status != BookStatus.AVAILABLE) {
+                results.set(i, BorrowingItemResultDTO.failed(item, "Book is not available for borrowing" + item.getBookId()));
+            } else if (queuedBookIds.contains(item.getBookId())) {
+                results.set(i, BorrowingItemResultDTO.failed(item, queuedMessage(item.getBookId())));
+            } else if (!openLoans.add(new LoanKey(item.getBookId(), item.getPatronId()))) {
+                // Also rejects a second request for the same title and patron within this batch
+                results.set(i, BorrowingItemResultDTO.failed(item,
+                        "Patron " + item.getPatronId() + " already has a copy of book " + item.getBookId()));
+            } else {
+                requestsByBook.computeIfAbsent(item.getBookId(), id -> new ArrayList<>()).add(i);
+            }
+        }
+
+        LocalDateTime borrowDate = LocalDateTime.now();
+        LocalDateTime dueDate = borrowDate.plusDays(14); // Assuming a 2-week borrowing period
+
+        // The free copies of every title are locked with one statement and the titles with another, copies first
+        // as in every borrow and return. A title asked for fewer copies than the busiest one of the batch may have a
+        // few more copies locked than it needs until the commit.
+        Map<Long, List<BookCopy>> freeCopies = new HashMap<>();
+        Map<Long, Book> titles = new HashMap<>();
+        if (!requestsByBook.isEmpty()) {
+            int perBook = requestsByBook.values().stream().mapToInt(List::size).max().getAsInt();
+            for (BookCopy copy : bookCopyRepository.lockAvailable(requestsByBook.keySet(), perBook)) {
+                freeCopies.computeIfAbsent(copy.getBook().getId(), id -> new ArrayList<>()).add(copy);
+            }
+            bookRepository.lockAllById(requestsByBook.keySet()).forEach(book -> titles.put(book.getId(), book));
+        }
+
+        Map<Integer, BorrowingRecord> newRecords = new HashMap<>();
+        Map<Integer, List<Long>> booksByLentCount = new TreeMap<>();
+        requestsByBook.forEach((bookId, indexes) -> {
+            Book book = titles.get(bookId);
+            // A title withdrawn since its status was read lends nothing and its copies are left unclaimed
+            boolean lendable = book != null && book.getStatus() == BookStatus.AVAILABLE;
+            List<BookCopy> copies = lendable ? freeCopies.getOrDefault(bookId, List.of()) : List.of();
+            int lent = Math.min(copies.size(), indexes.size());
+            // The title row is locked, so its counter is current: free copies we did not get are being lent
+            String failure = lendable && book.getAvailableCopies() > copies.size()
+                    ? "Every free copy of book " + bookId + " is being lent, please retry"
+                    : "Book is not available for borrowing" + bookId;
+            for (int n = 0; n < indexes.size(); n++) {
+                int index = indexes.get(n);
+                BorrowingItemDTO item = items.get(index);
+                if (n < lent) {
+                    BookCopy copy = copies.get(n);
+                    newRecords.put(index, new BorrowingRecord(copy.getBook(), copy, patrons.get(item.getPatronId()), borrowDate, dueDate));
+                } else {
+                    results.set(index, BorrowingItemResultDTO.failed(item, failure));
+                }
+            }
+            if (lent > 0) {
+                booksByLentCount.computeIfAbsent(lent, count -> new ArrayList<>()).add(bookId);
+            }
+        });
+
+        claimCopies(newRecords.values().stream().map(record -> record.getCopy().getId()).toList());
+        // One update per distinct number of copies lent, usually one for the whole batch
+        Set<Long> lentBookIds = new HashSet<>();
+        booksByLentCount.forEach((count, lentIds) -> {
+            // The titles are locked and were checked above, so only a database ignoring the locks fails this
+            if (bookRepository.allocateCopies(lentIds, count) != lentIds.size()) {
+                throw new OptimisticLockingFailureException("A copy counter changed concurrently");
+            }
+            lentBookIds.addAll(lentIds);
+        });
+        borrowingRecordRepository.saveAll(newRecords.values());
+        newRecords.forEach((index, record) ->
+                results.set(index, BorrowingItemResultDTO.succeeded(items.get(index),
+                        recordEvent(OutboxEventType.BOOK_BORROWED, record))));
+
+        refreshIndexes(lentBookIds);
+        evictBooksAfterCommit(lentBookIds);
+        return results;
+    }
+
+    /**
+     * Returns every item in one transaction, loading the active records of all books with a
+     * single IN query. Items without an active record for that book and patron are reported as failed.
+     * <p>
+     * Like {@link #borrowBooks}, a concurrency conflict rolls back and retries the whole batch, and
+     * once the retries are exhausted it fails the batch with no item applied.
+     */
+    @Retryable(retryFor = {OptimisticLockingFailureException.class, PessimisticLockingFailureException.class},
+            maxAttemptsExpression = "${borrowing.retry.max-attempts}",
+            backoff = @Backoff(delayExpression = "${borrowing.retry.delay-ms}", multiplier = 2))
+    @Transactional
+    public List<BorrowingItemResultDTO> returnBooks(List<BorrowingItemDTO> items) {
+        Map<LoanKey, BorrowingRecord> activeRecords = borrowingRecordRepository
+                .findActiveByBookIds(collectIds(items, BorrowingItemDTO::getBookId)).stream()
+                .collect(Collectors.toMap(record -> new LoanKey(record.getBook().getId(), record.getPatron().getId()),
+                        Function.identity()));
+
+        LocalDateTime returnDate = LocalDateTime.now();
+        List<BorrowingItemResultDTO> results = new ArrayList<>(items.size());
+        Map<Long, List<Long>> returnedCopies = new TreeMap<>();
+        for (BorrowingItemDTO item : items) {
+            BorrowingRecord record = activeRecords.get(new LoanKey(item.getBookId(), item.getPatronId()));
+            if (record == null || record.getReturnDate() != null) {
+                results.add(BorrowingItemResultDTO.failed(item,
+                        "No active borrowing record found for this book and patron" + item.getPatronId()));
+                continue;
+            }
+            record.setReturnDate(returnDate);
+            returnedCopies.computeIfAbsent(item.getBookId(), id -> new ArrayList<>()).add(record.getCopy().getId());
+            results.add(BorrowingItemResultDTO.succeeded(item, recordEvent(OutboxEventType.BOOK_RETURNED, record)));
+        }
+
+        refreshIndexes(releaseCopies(returnedCopies));
+        evictBooksAfterCommit(returnedCopies.keySet());
+        return results;
+    }
+
+    // Marks the picked copies as lent. All of them are still free unless the database ignored SKIP LOCKED
+    // and handed the same copy to two borrowers, in which case the whole attempt is retried.
+    private void claimCopies(Collection<Long> copyIds) {
+        if (copyIds.isEmpty()) {
+            return;
+        }
+        if (bookCopyRepository.updateStatus(copyIds, BookStatus.AVAILABLE, BookStatus.BORROWED) != copyIds.size()) {
+            throw new OptimisticLockingFailureException("A copy was lent concurrently");
+        }
+    }
+
+    // Lends returned copies straight to the patrons queued for their titles, oldest hold first, puts the others back
+    // on the shelf and returns the titles whose counters changed. A copy that changes hands stays lent, so neither it
+    // nor its title's counter is written, and patrons walking in cannot take it ahead of the queue. Only copies still
+    // marked as lent are released, so a loan whose copy had already been put back, or was never marked as lent,
+    // cannot push a counter past the copies owned. Copies are locked before titles, in id order, like borrows lock
+    // them, and apart from one claim per title with patrons waiting the statements do not grow with the titles.
+    // The titles are locked before their queues are read: a hold placed concurrently locks its title too, so it is
+    // either seen here or sees the copies back on the shelf and is refused.
+    private Set<Long> releaseCopies(Map<Long, List<Long>> copyIdsByBook) {
+        List<Long> copyIds = copyIdsByBook.values().stream().flatMap(List::stream).toList();
+        Map<Long, BookCopy> copies = bookCopyRepository.lockAllById(copyIds).stream()
+                .collect(Collectors.toMap(BookCopy::getId, Function.identity()));
+        bookRepository.lockAllById(copyIdsByBook.keySet());
+        Set<Long> queuedBookIds = holdService.findQueuedBooks(copyIdsByBook.keySet());
+
+        List<Long> shelvedCopyIds = new ArrayList<>();
+        Map<Integer, List<Long>> booksByShelvedCount = new TreeMap<>();
+        new TreeMap<>(copyIdsByBook).forEach((bookId, ids) -> {
+            List<BookCopy> lent = ids.stream()
+                    .map(copies::get)
+                    .filter(copy -> copy != null && copy.getStatus() == BookStatus.BORROWED)
+                    .toList();
+            List<BookCopy> unclaimed = queuedBookIds.contains(bookId) ? handOverToHolders(bookId, lent) : lent;
+            if (!unclaimed.isEmpty()) {
+                unclaimed.forEach(copy -> shelvedCopyIds.add(copy.getId()));
+                booksByShelvedCount.computeIfAbsent(unclaimed.size(), count -> new ArrayList<>()).add(bookId);
+            }
+        });
+        if (shelvedCopyIds.isEmpty()) {
+            return Set.of();
+        }
+
+        bookCopyRepository.updateStatus(shelvedCopyIds, BookStatus.BORROWED, BookStatus.AVAILABLE);
+        Set<Long> shelvedBookIds = new HashSet<>();
+        booksByShelvedCount.values().forEach(shelvedBookIds::addAll);
+        booksByShelvedCount.forEach((count, bookIds) -> bookRepository.adjustCopies(bookIds, 0, count));
+        return shelvedBookIds;
+    }
+
+    /**
+     * Lends copies of the title put on the shelf outside a return, new ones or ones back from
+     * maintenance, to the patrons at the head of its queue, like a return would, and returns the
+     * copies left for the shelf. The copies must already be marked as available in the caller's
+     * transaction, which counts only the returned ones as free.
+     */
+    @Transactional
+    public List<BookCopy> lendToWaitingPatrons(Long bookId, List<BookCopy> copies) {
+        // Locked before the queue is read, for the same reason as in a return
+        bookRepository.lockById(bookId)
+                .orElseThrow(() -> new EntityNotFoundException("Book not found with id: " + bookId));
+        if (copies.isEmpty() || holdService.findQueuedBooks(List.of(bookId)).isEmpty()) {
+            return copies;
+        }
+        List<BookCopy> unclaimed = handOverToHolders(bookId, copies);
+        claimCopies(copies.subList(0, copies.size() - unclaimed.size()).stream().map(BookCopy::getId).toList());
+        return unclaimed;
+    }
+
+    // Lends the title's copies to the patrons at the head of its queue and returns the copies left over
+    private List<BookCopy> handOverToHolders(Long bookId, List<BookCopy> copies) {
+        if (copies.isEmpty()) {
+            return copies;
+        }
+        List<Hold> holds = holdService.claimNext(bookId, copies.size());
+
+        LocalDateTime borrowDate = LocalDateTime.now();
+        LocalDateTime dueDate = borrowDate.plusDays(14); // Assuming a 2-week borrowing period
+        List<BorrowingRecord> loans = new ArrayList<>(holds.size());
+        for (int n = 0; n < holds.size(); n++) {
+            BookCopy copy = copies.get(n);
+            loans.add(new BorrowingRecord(copy.getBook(), copy, holds.get(n).getPatron(), borrowDate, dueDate));
+        }
+        borrowingRecordRepository.saveAll(loans);
+        loans.forEach(loan -> recordEvent(OutboxEventType.BOOK_BORROWED, loan));
+        holdService.fulfil(holds);
+        return copies.subList(holds.size(), copies.size());
+    }
+
+    // Re-reads the titles after their counters changed and publishes them to the in-memory indexes after commit
+    private void refreshIndexes(Collection<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        for (Book book : bookRepository.findAllById(bookIds)) {
+            bookCatalogIndex.put(book);
+            bookAvailabilityIndex.put(book);
+            bookCopyCounters.put(book);
+        }
+    }
+
+    private static String queuedMessage(Long bookId) {
+        return "Book " + bookId + " is kept for the patrons waiting for it";
+    }
 
-        return convertToDTO(updatedRecord);
+    private static Set<Long> collectIds(List<BorrowingItemDTO> items, Function<BorrowingItemDTO, Long> idGetter) {
+        return items.stream().map(idGetter).collect(Collectors.toSet());
+    }
+
+    // Bulk operations touch many keys, which @CacheEvict cannot express; the decorator defers each eviction to after commit
+    private void evictBooksAfterCommit(Collection<Long> bookIds) {
+        Cache cache = cacheManager.getCache(CacheConfig.BOOKS_CACHE);
+        if (cache == null) {
+            return;
+        }
+        Cache transactionAwareCache = new TransactionAwareCacheDecorator(cache);
+        bookIds.forEach(transactionAwareCache::evict);
+    }
+
+    private record LoanKey(Long bookId, Long patronId) {
+    }
+
+    // Records the change in the outbox, in this transaction, and returns the DTO it was recorded with
+    private BorrowingRecordDTO recordEvent(OutboxEventType type, BorrowingRecord record) {
+        BorrowingRecordDTO dto = convertToDTO(record);
+        outboxWriter.record(type, dto.getBookId(), dto);
+        return dto;
     }
 
     private BorrowingRecordDTO convertToDTO(BorrowingRecord record) {
         BorrowingRecordDTO dto = new BorrowingRecordDTO();
         dto.setId(record.getId());
         dto.setBookId(record.getBook().getId());
+        dto.setCopyId(record.getCopy() != null ? record.getCopy().getId() : null);
         dto.setPatronId(record.getPatron().getId());
         dto.setBorrowDate(record.getBorrowDate());
         dto.setDueDate(record.getDueDate());
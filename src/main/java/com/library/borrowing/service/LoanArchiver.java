@@ -0,0 +1,68 @@
+package com.library.borrowing.service;
+
+import com.library.borrowing.repository.ArchivedBorrowingRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+/**
+ * Moves closed loans borrowed more than {@code borrowing.archive.after-months} whole months ago
+ * from borrowing_records to borrowing_records_archive, one month per transaction. A month still
+ * attached to borrowing_records is detached and re-attached to the archive as a whole, so the
+ * cost does not grow with the number of loans; loans returned after their month was archived
+ * follow on a later run. Loan history reads both tables.
+ */
+@Service
+public class LoanArchiver {
+
+    public static final String ARCHIVED_METRIC = "library.loans.archived";
+
+    private static final Logger log = LoggerFactory.getLogger(LoanArchiver.class);
+
+    private final ArchivedBorrowingRecordRepository archivedBorrowingRecordRepository;
+    private final Counter archivedLoans;
+    private final int afterMonths;
+
+    @Autowired
+    public LoanArchiver(ArchivedBorrowingRecordRepository archivedBorrowingRecordRepository,
+                        MeterRegistry meterRegistry,
+                        @Value("${borrowing.archive.after-months}") int afterMonths) {
+        this.archivedBorrowingRecordRepository = archivedBorrowingRecordRepository;
+        this.archivedLoans = Counter.builder(ARCHIVED_METRIC)
+                .description("Closed loans moved to the archive")
+                .register(meterRegistry);
+        this.afterMonths = afterMonths;
+    }
+
+    /**
+     * Archives every month that is old enough and returns the number of loans moved. A month
+     * that fails, for instance because the lock on borrowing_records was not granted in time,
+     * is left for the next run.
+     */
+    @Scheduled(cron = "${borrowing.archive.cron}")
+    public long archive() {
+        LocalDate before = LocalDate.now().withDayOfMonth(1).minusMonths(afterMonths);
+        long archived = 0;
+        for (Date start : archivedBorrowingRecordRepository.findArchivableMonths(before)) {
+            LocalDate month = start.toLocalDate();
+            try {
+                long moved = archivedBorrowingRecordRepository.archiveMonth(month);
+                archived += moved;
+                archivedLoans.increment(moved);
+                log.info("Archived {} closed loans borrowed in {}", moved, month);
+            } catch (DataAccessException e) {
+                log.warn("Archiving the loans borrowed in {} failed, retrying on the next run", month, e);
+            }
+        }
+        return archived;
+    }
+}
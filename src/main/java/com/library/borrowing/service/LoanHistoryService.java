@@ -0,0 +1,151 @@
+package com.library.borrowing.service;
+
+import com.library.book.repository.BookRepository;
+import com.library.borrowing.dto.LoanDTO;
+import com.library.borrowing.dto.LoanPageDTO;
+import com.library.borrowing.repository.ArchivedBorrowingRecordRepository;
+import com.library.borrowing.repository.BorrowingRecordRepository;
+import com.library.exception.InvalidRequestException;
+import com.library.patron.repository.PatronRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Current loans and loan history of a patron or a book, newest first, in keyset pages.
+ * Rows come straight from projection queries; no entity is loaded. History spans
+ * borrowing_records and the archive: both are read from the same position and merged.
+ */
+@Service
+public class LoanHistoryService {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final String CURSOR_PREFIX = "loan:";
+    // Position before the newest possible loan, used for the first page
+    private static final LocalDateTime FIRST_PAGE_DATE = LocalDateTime.of(9999, 12, 31, 0, 0);
+    // Newest first, the order of the keyset queries
+    private static final Comparator<LoanDTO> NEWEST_FIRST = Comparator.comparing(LoanDTO::getBorrowDate)
+            .thenComparing(LoanDTO::getId)
+            .reversed();
+
+    private final BorrowingRecordRepository borrowingRecordRepository;
+    private final ArchivedBorrowingRecordRepository archivedBorrowingRecordRepository;
+    private final BookRepository bookRepository;
+    private final PatronRepository patronRepository;
+
+    @Autowired
+    public LoanHistoryService(BorrowingRecordRepository borrowingRecordRepository,
+                              ArchivedBorrowingRecordRepository archivedBorrowingRecordRepository,
+                              BookRepository bookRepository,
+                              PatronRepository patronRepository) {
+        this.borrowingRecordRepository = borrowingRecordRepository;
+        this.archivedBorrowingRecordRepository = archivedBorrowingRecordRepository;
+        this.bookRepository = bookRepository;
+        this.patronRepository = patronRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public LoanPageDTO getPatronLoans(Long patronId, boolean activeOnly, String cursor, Integer size) {
+        int pageSize = resolvePageSize(size);
+        Position after = decodeCursor(cursor);
+        Limit limit = Limit.of(pageSize + 1);
+        List<LoanDTO> loans = activeOnly
+                ? borrowingRecordRepository.findActiveLoansByPatron(patronId, after.borrowDate(), after.id(), limit)
+                : merge(borrowingRecordRepository.findLoansByPatron(patronId, after.borrowDate(), after.id(), limit),
+                        archivedBorrowingRecordRepository.findLoansByPatron(patronId, after.borrowDate(), after.id(), limit),
+                        limit);
+        // Only an empty first page needs the extra query to tell an unknown patron from one without loans
+        if (loans.isEmpty() && cursor == null && !patronRepository.existsById(patronId)) {
+            throw new EntityNotFoundException("Patron not found with id: " + patronId);
+        }
+        return toPage(loans, pageSize);
+    }
+
+    @Transactional(readOnly = true)
+    public LoanPageDTO getBookLoans(Long bookId, boolean activeOnly, String cursor, Integer size) {
+        int pageSize = resolvePageSize(size);
+        Position after = decodeCursor(cursor);
+        Limit limit = Limit.of(pageSize + 1);
+        List<LoanDTO> loans = activeOnly
+                ? borrowingRecordRepository.findActiveLoansByBook(bookId, after.borrowDate(), after.id(), limit)
+                : merge(borrowingRecordRepository.findLoansByBook(bookId, after.borrowDate(), after.id(), limit),
+                        archivedBorrowingRecordRepository.findLoansByBook(bookId, after.borrowDate(), after.id(), limit),
+                        limit);
+        if (loans.isEmpty() && cursor == null && !bookRepository.existsById(bookId)) {
+            throw new EntityNotFoundException("Book not found with id: " + bookId);
+        }
+        return toPage(loans, pageSize);
+    }
+
+    // Open loans of archived months stay in borrowing_records, so the two sources can interleave
+    private List<LoanDTO> merge(List<LoanDTO> current, List<LoanDTO> archived, Limit limit) {
+        if (archived.isEmpty()) {
+            return current;
+        }
+        if (current.isEmpty()) {
+            return archived;
+        }
+        List<LoanDTO> loans = new ArrayList<>(current.size() + archived.size());
+        loans.addAll(current);
+        loans.addAll(archived);
+        loans.sort(NEWEST_FIRST);
+        return loans.subList(0, Math.min(loans.size(), limit.max()));
+    }
+
+    // The query fetched one extra row to find out whether another page exists
+    private LoanPageDTO toPage(List<LoanDTO> loans, int pageSize) {
+        if (loans.size() <= pageSize) {
+            return new LoanPageDTO(loans, null);
+        }
+        List<LoanDTO> items = loans.subList(0, pageSize);
+        LoanDTO last = items.get(pageSize - 1);
+        return new LoanPageDTO(List.copyOf(items), encodeCursor(last.getBorrowDate(), last.getId()));
+    }
+
+    private int resolvePageSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new InvalidRequestException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return size;
+    }
+
+    private String encodeCursor(LocalDateTime borrowDate, Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + borrowDate + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Position decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return new Position(FIRST_PAGE_DATE, Long.MAX_VALUE);
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf('|');
+            if (!decoded.startsWith(CURSOR_PREFIX) || separator < 0) {
+                throw new InvalidRequestException("Invalid cursor");
+            }
+            return new Position(LocalDateTime.parse(decoded.substring(CURSOR_PREFIX.length(), separator)),
+                    Long.parseLong(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidRequestException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private record Position(LocalDateTime borrowDate, Long id) {
+    }
+}
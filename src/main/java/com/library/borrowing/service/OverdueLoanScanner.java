@@ -0,0 +1,141 @@
+package com.library.borrowing.service;
+
+import com.library.borrowing.dto.LoanDTO;
+import com.library.borrowing.event.LoanOverdueEvent;
+import com.library.borrowing.repository.BorrowingRecordRepository;
+import com.library.job.entity.JobWatermark;
+import com.library.job.repository.JobWatermarkRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finds loans that have passed their due date without being returned and publishes a
+ * {@link LoanOverdueEvent} for each. A run only reads loans that fell due between the stored
+ * watermark and its start time, walking the partial index on open loans in batches, and then
+ * moves the watermark to its start time. The whole run is one transaction holding an
+ * advisory lock, so when several nodes fire at once only one of them scans.
+ */
+@Service
+public class OverdueLoanScanner {
+
+    public static final String JOB_NAME = "overdue-loan-scan";
+    public static final String SCAN_METRIC = "library.overdue.scan";
+    public static final String DETECTED_METRIC = "library.overdue.detected";
+    public static final String OPEN_METRIC = "library.overdue.open";
+
+    // Watermark of the very first run, which therefore picks up every loan already overdue
+    static final LocalDateTime INITIAL_WATERMARK = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final Logger log = LoggerFactory.getLogger(OverdueLoanScanner.class);
+
+    private final BorrowingRecordRepository borrowingRecordRepository;
+    private final JobWatermarkRepository jobWatermarkRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transaction;
+    private final MeterRegistry meterRegistry;
+    private final Counter detected;
+    private final AtomicLong openOverdue = new AtomicLong();
+    private final int batchSize;
+    private final boolean advisoryLock;
+
+    @Autowired
+    public OverdueLoanScanner(BorrowingRecordRepository borrowingRecordRepository,
+                              JobWatermarkRepository jobWatermarkRepository,
+                              ApplicationEventPublisher eventPublisher,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${borrowing.overdue.batch-size}") int batchSize,
+                              @Value("${borrowing.overdue.advisory-lock}") boolean advisoryLock) {
+        this.borrowingRecordRepository = borrowingRecordRepository;
+        this.jobWatermarkRepository = jobWatermarkRepository;
+        this.eventPublisher = eventPublisher;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.detected = Counter.builder(DETECTED_METRIC)
+                .description("Loans found to have passed their due date")
+                .register(meterRegistry);
+        Gauge.builder(OPEN_METRIC, openOverdue, AtomicLong::get)
+                .description("Open loans past their due date, as of the last scan")
+                .register(meterRegistry);
+        this.batchSize = batchSize;
+        this.advisoryLock = advisoryLock;
+    }
+
+    /**
+     * Runs one incremental scan and returns the number of newly overdue loans, or -1 when
+     * another node holds the lock.
+     */
+    @Scheduled(cron = "${borrowing.overdue.scan-cron}")
+    public int scan() {
+        long startedAt = System.nanoTime();
+        String outcome = "failed";
+        try {
+            Integer found = transaction.execute(status -> scanLocked());
+            outcome = found < 0 ? "skipped" : "completed";
+            return found;
+        } finally {
+            Timer.builder(SCAN_METRIC)
+                    .description("Duration of overdue loan scans")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private int scanLocked() {
+        if (advisoryLock && !jobWatermarkRepository.tryAdvisoryLock(JOB_NAME)) {
+            log.debug("Overdue loan scan skipped, another node is running it");
+            return -1;
+        }
+
+        JobWatermark watermark = jobWatermarkRepository.findById(JOB_NAME)
+                .orElseGet(() -> new JobWatermark(JOB_NAME, INITIAL_WATERMARK));
+        // A node whose clock lags behind the last scanner must not move the watermark back
+        LocalDateTime until = LocalDateTime.now();
+        if (until.isBefore(watermark.getWatermark())) {
+            until = watermark.getWatermark();
+        }
+        LocalDateTime afterDue = watermark.getWatermark();
+        long afterId = 0;
+        int found = 0;
+        List<LoanDTO> batch;
+        do {
+            batch = borrowingRecordRepository.findOverdueAfter(until, afterDue, afterId, Limit.of(batchSize));
+            for (LoanDTO loan : batch) {
+                eventPublisher.publishEvent(new LoanOverdueEvent(loan));
+            }
+            if (!batch.isEmpty()) {
+                LoanDTO last = batch.get(batch.size() - 1);
+                afterDue = last.getDueDate();
+                afterId = last.getId();
+            }
+            found += batch.size();
+        } while (batch.size() == batchSize);
+
+        watermark.setWatermark(until);
+        jobWatermarkRepository.save(watermark);
+        detected.increment(found);
+        openOverdue.set(borrowingRecordRepository.countOverdue(until));
+        if (found > 0) {
+            log.info("Overdue loan scan found {} newly overdue loans, {} open loans are overdue", found, openOverdue.get());
+        }
+        return found;
+    }
+}
@@ -0,0 +1,104 @@
+package com.library.config;
+
+import com.library.metrics.RequestQueryStatistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Executors for the asynchronous catalog reads. The request thread is handed back to Tomcat as
+ * soon as the work is queued. Point reads run on a bounded pool whose full queue rejects new
+ * reads with 503 instead of letting them pile up, and which caps how many of them can hold a
+ * database connection at once. Catalog streams, which last as long as their client takes to
+ * read them, run apart on virtual threads with a limit of their own, so slow stream clients
+ * cannot take the threads of the point reads.
+ */
+@Configuration
+public class AsyncConfig implements WebMvcConfigurer {
+
+    public static final String CATALOG_READ_EXECUTOR = "catalogReadExecutor";
+    public static final String CATALOG_STREAM_EXECUTOR = "catalogStreamExecutor";
+
+    private final int threads;
+    private final int queueCapacity;
+    private final int maxConcurrentStreams;
+    private final long streamTimeoutMillis;
+
+    public AsyncConfig(@Value("${catalog.read.threads}") int threads,
+                       @Value("${catalog.read.queue-capacity}") int queueCapacity,
+                       @Value("${catalog.stream.max-concurrent}") int maxConcurrentStreams,
+                       @Value("${catalog.stream.timeout-ms}") long streamTimeoutMillis) {
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        this.streamTimeoutMillis = streamTimeoutMillis;
+    }
+
+    @Bean(name = CATALOG_READ_EXECUTOR)
+    public ThreadPoolTaskExecutor catalogReadExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("catalog-read-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setTaskDecorator(propagatingCallerContext());
+        return executor;
+    }
+
+    @Bean(name = CATALOG_STREAM_EXECUTOR)
+    public AsyncTaskExecutor catalogStreamExecutor() {
+        SimpleAsyncTaskExecutor virtualThreads = new SimpleAsyncTaskExecutor("catalog-stream-");
+        virtualThreads.setVirtualThreads(true);
+        virtualThreads.setTaskDecorator(propagatingCallerContext());
+        return limitConcurrency(virtualThreads, maxConcurrentStreams);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        // Runs StreamingResponseBody, so the timeout bounds a whole catalog stream. Point reads pass their own
+        // executor and time out after catalog.read.timeout-ms.
+        configurer.setTaskExecutor(catalogStreamExecutor());
+        configurer.setDefaultTimeout(streamTimeoutMillis);
+    }
+
+    // The caller's security context goes along so that replica routing can tell whose read it is
+    private static TaskDecorator propagatingCallerContext() {
+        return runnable -> RequestQueryStatistics.propagating(DelegatingSecurityContextRunnable.create(runnable, null));
+    }
+
+    /**
+     * Runs at most {@code limit} tasks at once and rejects the others, where the throttle of
+     * {@link SimpleAsyncTaskExecutor} would block the request thread until one finishes.
+     */
+    static AsyncTaskExecutor limitConcurrency(AsyncTaskExecutor executor, int limit) {
+        Semaphore permits = new Semaphore(limit);
+        return new TaskExecutorAdapter(task -> {
+            if (!permits.tryAcquire()) {
+                throw new TaskRejectedException("All " + limit + " catalog streams are in use");
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        });
+    }
+}
@@ -0,0 +1,41 @@
+package com.library.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+/**
+ * Caches are Caffeine-backed and sized through the spring.cache.* properties.
+ * The caching advice runs outside the transaction advice, so evictions happen
+ * only after the surrounding transaction has committed. Only the service timing
+ * advice sits outside it, so cache hits are still timed.
+ */
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE + 1)
+public class CacheConfig {
+
+    public static final String BOOKS_CACHE = "books";
+    public static final String PATRONS_CACHE = "patrons";
+    public static final String USERS_CACHE = "users";
+
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> usersCacheCustomizer(
+            JwtConfig jwtConfig,
+            @Value("${cache.users.maximum-size}") long maximumSize,
+            @Value("${cache.users.expire-after-write-seconds}") long expireAfterWriteSeconds) {
+        // A cached principal must never outlive the token that authenticated it
+        long ttlSeconds = Math.min(expireAfterWriteSeconds, jwtConfig.getExpiration());
+        return cacheManager -> cacheManager.registerCustomCache(USERS_CACHE, Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build());
+    }
+}
@@ -13,4 +13,10 @@ public class JwtConfig {
     @Value("${jwt.expiration}")
     private int expiration;
 
+    @Value("${jwt.verified-cache-size}")
+    private int verifiedCacheSize;
+
+    @Value("${jwt.stateless}")
+    private boolean stateless;
+
 }
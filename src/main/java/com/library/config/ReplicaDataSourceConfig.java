@@ -0,0 +1,87 @@
+package com.library.config;
+
+import com.library.datasource.ReadYourWritesTracker;
+import com.library.datasource.ReplicaLagMonitor;
+import com.library.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Replaces the single connection pool with a primary and a replica pool behind a
+ * {@link ReplicaRoutingDataSource}, so that {@code @Transactional(readOnly = true)} service
+ * methods read from the replica. Flyway, the schedulers and everything outside a transaction
+ * keep using the primary.
+ */
+@Configuration
+@ConditionalOnProperty(name = "replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    public static final String PRIMARY_DATA_SOURCE = "primaryDataSource";
+    public static final String REPLICA_DATA_SOURCE = "replicaDataSource";
+
+    @Bean(name = PRIMARY_DATA_SOURCE)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean(name = REPLICA_DATA_SOURCE)
+    public HikariDataSource replicaDataSource(@Qualifier(PRIMARY_DATA_SOURCE) HikariDataSource primary,
+                                              @Value("${replica.datasource.url}") String url,
+                                              @Value("${replica.datasource.username}") String username,
+                                              @Value("${replica.datasource.password}") String password,
+                                              @Value("${replica.datasource.maximum-pool-size}") int maximumPoolSize) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        // Fail over to the primary quickly rather than make a read wait out the primary's timeout
+        dataSource.setConnectionTimeout(Math.min(primary.getConnectionTimeout(), 1000));
+        // Not fail-fast, so the application starts while the replica is down and reads from the primary
+        dataSource.setInitializationFailTimeout(-1);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier(PRIMARY_DATA_SOURCE) DataSource primary,
+                                               @Qualifier(REPLICA_DATA_SOURCE) DataSource replica,
+                                               @Value("${replica.max-lag}") Duration maxLag,
+                                               MeterRegistry meterRegistry) {
+        return new ReplicaLagMonitor(primary, replica, maxLag, meterRegistry);
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(@Value("${replica.read-your-writes-window}") Duration window,
+                                                       @Value("${replica.read-your-writes-users}") long maximumUsers) {
+        return new ReadYourWritesTracker(window, maximumUsers);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier(PRIMARY_DATA_SOURCE) DataSource primary,
+                                 @Qualifier(REPLICA_DATA_SOURCE) DataSource replica,
+                                 ReplicaLagMonitor lagMonitor, ReadYourWritesTracker readYourWrites,
+                                 MeterRegistry meterRegistry) {
+        ReplicaRoutingDataSource routing =
+                new ReplicaRoutingDataSource(primary, replica, lagMonitor, readYourWrites, meterRegistry);
+        // Delays the connection until the first statement, when the transaction's read-only flag is set
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
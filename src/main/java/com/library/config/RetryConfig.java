@@ -0,0 +1,13 @@
+package com.library.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.retry.annotation.EnableRetry;
+
+/**
+ * Enables @Retryable. The retry advice is ordered outside the transaction advice,
+ * so every attempt runs in a fresh transaction.
+ */
+@Configuration
+@EnableRetry
+public class RetryConfig {
+}
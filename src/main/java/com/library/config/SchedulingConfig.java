@@ -0,0 +1,13 @@
+package com.library.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs. Jobs that must not run on several nodes at once guard
+ * themselves with a database advisory lock.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,29 @@
+package com.library.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs {@code @Cacheable} methods against the primary. The caches are shared by every reader on
+ * the node and only dropped when the node itself changes the entry, so a value read from a lagging
+ * replica would be served long after the replica has caught up. It runs outside the caching and
+ * transaction advice, so the scope also covers a connection taken as the transaction begins.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(name = "replica.enabled", havingValue = "true")
+public class CacheFillRoutingAspect {
+
+    @Around("@annotation(org.springframework.cache.annotation.Cacheable)")
+    public Object fillFromPrimary(ProceedingJoinPoint joinPoint) throws Throwable {
+        try (ReplicaRoutingDataSource.Scope ignored = ReplicaRoutingDataSource.primaryOnly()) {
+            return joinPoint.proceed();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.library.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * Remembers which users committed a write in the last {@code window}, so that their reads keep
+ * going to the primary until the replica has had time to replay the write. Only writes made
+ * through this node are known; the window should be longer than the replica lag allowed.
+ */
+public class ReadYourWritesTracker {
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesTracker(Duration window, long maximumUsers) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maximumUsers)
+                .build();
+    }
+
+    public void wrote(String user) {
+        recentWriters.put(user, Boolean.TRUE);
+    }
+
+    public boolean wroteRecently(String user) {
+        return recentWriters.getIfPresent(user) != null;
+    }
+}
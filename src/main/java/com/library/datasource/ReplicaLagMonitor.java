@@ -0,0 +1,88 @@
+package com.library.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Measures how far the replica is behind the primary and decides whether reads may go to it.
+ * The replica counts as caught up once it has replayed the primary's current WAL position;
+ * otherwise its lag is the time since the last transaction it replayed, which overstates the lag
+ * after a quiet spell on the primary and so errs towards reading from the primary.
+ * <p>
+ * Until the first check, and whenever the replica cannot be reached, reads go to the primary.
+ */
+public class ReplicaLagMonitor {
+
+    public static final String LAG_METRIC = "library.replica.lag";
+    public static final String USABLE_METRIC = "library.replica.usable";
+
+    // A server that is not in recovery is a primary itself and has no lag
+    static final String LAG_SQL = "SELECT CASE " +
+            "WHEN NOT pg_is_in_recovery() THEN 0 " +
+            "WHEN pg_last_wal_replay_lsn() >= CAST(? AS pg_lsn) THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 'Infinity') END";
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final double maxLagSeconds;
+    private volatile boolean usable;
+    private volatile double lagSeconds = Double.NaN;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, Duration maxLag, MeterRegistry meterRegistry) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        Gauge.builder(LAG_METRIC, this, monitor -> monitor.lagSeconds)
+                .description("Replay lag of the read replica in seconds, NaN while it cannot be reached")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder(USABLE_METRIC, this, monitor -> monitor.usable ? 1 : 0)
+                .description("1 while read-only transactions are sent to the replica")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${replica.lag.check-interval-ms}")
+    public void check() {
+        try {
+            String primaryLsn = primary.queryForObject("SELECT CAST(pg_current_wal_lsn() AS text)", String.class);
+            Double lag = replica.queryForObject(LAG_SQL, Double.class, primaryLsn);
+            lagSeconds = lag;
+            boolean caughtUp = lag <= maxLagSeconds;
+            if (caughtUp != usable) {
+                log.info("Read replica {} reads, lag {}s", caughtUp ? "resumes" : "stops taking", lag);
+            }
+            usable = caughtUp;
+        } catch (DataAccessException e) {
+            markUnavailable(e);
+        }
+    }
+
+    public boolean isUsable() {
+        return usable;
+    }
+
+    public double getLagSeconds() {
+        return lagSeconds;
+    }
+
+    /**
+     * Stops sending reads to the replica until the next successful check.
+     */
+    public void markUnavailable(Exception cause) {
+        if (usable) {
+            log.warn("Read replica unavailable, reads go to the primary: {}", cause.getMessage());
+        }
+        usable = false;
+        lagSeconds = Double.NaN;
+    }
+}
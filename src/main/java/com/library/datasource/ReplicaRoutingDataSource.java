@@ -0,0 +1,118 @@
+package com.library.datasource;
+
+import com.library.transaction.TransactionCallbacks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the primary. A read stays
+ * on the primary while the replica lags too far behind or cannot be reached, and while the
+ * current user has committed a write within the read-your-writes window, and inside a
+ * {@link #primaryOnly()} scope, which keeps what is read there from being cached while stale.
+ * <p>
+ * The choice is made when a connection is requested, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the transaction
+ * manager then binds a proxy, and the physical connection is only fetched at the first statement,
+ * once the transaction's read-only flag is known.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    public static final String ROUTED_METRIC = "library.datasource.routed";
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaLagMonitor lagMonitor;
+    private final ReadYourWritesTracker readYourWrites;
+    private final Counter routedToPrimary;
+    private final Counter routedToReplica;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor,
+                                    ReadYourWritesTracker readYourWrites, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.lagMonitor = lagMonitor;
+        this.readYourWrites = readYourWrites;
+        this.routedToPrimary = routedCounter(meterRegistry, "primary");
+        this.routedToReplica = routedCounter(meterRegistry, "replica");
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (routesToReplica()) {
+            try {
+                Connection connection = replica.getConnection();
+                routedToReplica.increment();
+                return connection;
+            } catch (SQLException e) {
+                lagMonitor.markUnavailable(e);
+            }
+        }
+        routedToPrimary.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        routedToPrimary.increment();
+        return primary.getConnection(username, password);
+    }
+
+    boolean routesToReplica() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return false;
+        }
+        String user = currentUser();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            rememberWriteAfterCommit(user);
+            return false;
+        }
+        return PRIMARY_ONLY.get() == null && lagMonitor.isUsable()
+                && (user == null || !readYourWrites.wroteRecently(user));
+    }
+
+    /**
+     * Sends every connection the current thread requests to the primary until the scope is closed.
+     * Unlike a write transaction, it does not start the user's read-your-writes window.
+     */
+    public static Scope primaryOnly() {
+        if (PRIMARY_ONLY.get() != null) {
+            return () -> { };
+        }
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        return PRIMARY_ONLY::remove;
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    // The window starts at commit, when the write becomes visible on the primary and starts replicating
+    private void rememberWriteAfterCommit(String user) {
+        if (user != null) {
+            TransactionCallbacks.afterCommit(() -> readYourWrites.wrote(user));
+        }
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+
+    private static Counter routedCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder(ROUTED_METRIC)
+                .description("Connections handed out by the replica routing data source")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+}
@@ -1,23 +1,40 @@
 package com.library.exception;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.servlet.NoHandlerFoundException;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeoutException;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+    public static final String ERRORS_METRIC = "library.errors";
+
+    private final MeterRegistry meterRegistry;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationExceptions(MethodArgumentNotValidException ex) {
+        countError(ex, HttpStatus.BAD_REQUEST);
         Map<String, String> errors = new HashMap<>();
         ex.getBindingResult().getAllErrors().forEach((error) -> {
             String fieldName = ((FieldError) error).getField();
@@ -29,6 +46,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(EntityNotFoundException.class)
     public ResponseEntity<Map<String, String>> handleEntityNotFoundException(EntityNotFoundException ex) {
+        countError(ex, HttpStatus.NOT_FOUND);
         Map<String, String> error = new HashMap<>();
         error.put("error", "Entity not found");
         error.put("reason", ex.getMessage());
@@ -37,6 +55,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity<Map<String, String>> handleDataIntegrityViolationException(DataIntegrityViolationException ex) {
+        countError(ex, HttpStatus.CONFLICT);
         Map<String, String> error = new HashMap<>();
         error.put("error", "Data integrity violation");
         error.put("message", "Database operation failed due to data integrity constraints");
@@ -45,8 +64,62 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, String>> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        countError(ex, HttpStatus.CONFLICT);
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Concurrent update conflict");
+        error.put("message", "The resource was modified by another request, please retry");
+        error.put("reason", ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    }
+
+    // Still locked by other transactions after the retries, for instance every free copy of a title being lent
+    @ExceptionHandler(PessimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, String>> handlePessimisticLockingFailureException(PessimisticLockingFailureException ex) {
+        countError(ex, HttpStatus.CONFLICT);
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Concurrent update conflict");
+        error.put("message", "The resource is being modified by another request, please retry");
+        error.put("reason", ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    }
+
+    // No pooled connection became free within the Hikari connection timeout
+    @ExceptionHandler(CannotCreateTransactionException.class)
+    public ResponseEntity<Map<String, String>> handleCannotCreateTransactionException(CannotCreateTransactionException ex) {
+        countError(ex, HttpStatus.SERVICE_UNAVAILABLE);
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Database unavailable");
+        error.put("message", "No database connection is available, please retry later");
+        error.put("reason", ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    // The catalog read executor and its queue are full, or every catalog stream is in use
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<Map<String, String>> handleTaskRejectedException(TaskRejectedException ex) {
+        countError(ex, HttpStatus.SERVICE_UNAVAILABLE);
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Server busy");
+        error.put("message", "Too many concurrent requests, please retry later");
+        error.put("reason", ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    // A catalog read did not finish within catalog.read.timeout-ms
+    @ExceptionHandler(TimeoutException.class)
+    public ResponseEntity<Map<String, String>> handleTimeoutException(TimeoutException ex) {
+        countError(ex, HttpStatus.SERVICE_UNAVAILABLE);
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Request timed out");
+        error.put("message", "The request took too long, please retry later");
+        return new ResponseEntity<>(error, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler(NoHandlerFoundException.class)
     public ResponseEntity<Map<String, String>> handleNoHandlerFoundException(NoHandlerFoundException ex) {
+        countError(ex, HttpStatus.NOT_FOUND);
         Map<String, String> error = new HashMap<>();
         error.put("error", "No handler found");
         error.put("message", "The requested URL was not found on the server");
@@ -57,6 +130,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(AuthenticationFailedException.class)
     public ResponseEntity<Map<String, String>> handleAuthenticationFailedException(AuthenticationFailedException ex) {
+        countError(ex, HttpStatus.UNAUTHORIZED);
         Map<String, String> error = new HashMap<>();
         error.put("error", "Authentication failed");
         error.put("message", ex.getMessage());
@@ -65,6 +139,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(UnauthorizedException.class)
     public ResponseEntity<Map<String, String>> handleUnauthorizedException(UnauthorizedException ex) {
+        countError(ex, HttpStatus.FORBIDDEN);
         Map<String, String> error = new HashMap<>();
         error.put("error", "Unauthorized");
         error.put("message", ex.getMessage());
@@ -73,6 +148,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(IllegalStateException.class)
     public ResponseEntity<Map<String, String>> handleIllegalStateException(IllegalStateException ex) {
+        countError(ex, HttpStatus.BAD_REQUEST);
         Map<String, String> error = new HashMap<>();
         error.put("error", "Invalid state");
         error.put("reason", ex.getMessage());
@@ -80,11 +156,41 @@ public class GlobalExceptionHandler {
     }
 
 
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidRequestException(InvalidRequestException ex) {
+        countError(ex, HttpStatus.BAD_REQUEST);
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Invalid request");
+        error.put("reason", ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<Map<String, String>> handleMethodArgumentTypeMismatchException(MethodArgumentTypeMismatchException ex) {
+        countError(ex, HttpStatus.BAD_REQUEST);
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Invalid request");
+        error.put("reason", "Invalid value '" + ex.getValue() + "' for parameter " + ex.getName());
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleGlobalException(Exception ex) {
+        countError(ex, HttpStatus.INTERNAL_SERVER_ERROR);
         Map<String, String> error = new HashMap<>();
         error.put("error", "An unexpected error occurred");
         error.put("reason", ex.getMessage());
         return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
     }
+
+    // One counter per exception type and response status, so spikes can be traced to their cause
+    private void countError(Exception ex, HttpStatus status) {
+        Counter.builder(ERRORS_METRIC)
+                .description("Requests that ended in an error response")
+                .tag("exception", ex.getClass().getSimpleName())
+                .tag("status", String.valueOf(status.value()))
+                .register(meterRegistry)
+                .increment();
+    }
 }
@@ -0,0 +1,11 @@
+package com.library.exception;
+
+/**
+ * Malformed client input, such as a bad cursor, page size or filter, answered with 400. Other
+ * IllegalArgumentExceptions are bugs and stay server errors.
+ */
+public class InvalidRequestException extends RuntimeException {
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,38 @@
+package com.library.hold.controller;
+
+import com.library.hold.dto.HoldDTO;
+import com.library.hold.service.HoldService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api")
+public class HoldController {
+
+    private final HoldService holdService;
+
+    @Autowired
+    public HoldController(HoldService holdService) {
+        this.holdService = holdService;
+    }
+
+    @PostMapping("/hold/{bookId}/patron/{patronId}")
+    public ResponseEntity<HoldDTO> placeHold(@PathVariable Long bookId, @PathVariable Long patronId) {
+        return new ResponseEntity<>(holdService.placeHold(bookId, patronId), HttpStatus.CREATED);
+    }
+
+    @DeleteMapping("/hold/{bookId}/patron/{patronId}")
+    public ResponseEntity<Void> cancelHold(@PathVariable Long bookId, @PathVariable Long patronId) {
+        holdService.cancelHold(bookId, patronId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/books/{bookId}/holds")
+    public ResponseEntity<List<HoldDTO>> getQueue(@PathVariable Long bookId) {
+        return ResponseEntity.ok(holdService.getQueue(bookId));
+    }
+}
@@ -0,0 +1,42 @@
+package com.library.hold.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Setter
+@Getter
+public class HoldDTO {
+
+    private Long id;
+    private Long bookId;
+    private Long patronId;
+    private String status;
+    private LocalDateTime placedAt;
+    private LocalDateTime closedAt;
+    // 1 for the next patron to be served; only set on waiting holds
+    private Integer position;
+
+    public HoldDTO() {}
+
+    public HoldDTO(Long bookId, Long patronId, String status, LocalDateTime placedAt) {
+        this.bookId = bookId;
+        this.patronId = patronId;
+        this.status = status;
+        this.placedAt = placedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "HoldDTO{" +
+                "id=" + id +
+                ", bookId=" + bookId +
+                ", patronId=" + patronId +
+                ", status='" + status + '\'' +
+                ", placedAt=" + placedAt +
+                ", closedAt=" + closedAt +
+                ", position=" + position +
+                '}';
+    }
+}
@@ -0,0 +1,73 @@
+package com.library.hold.entity;
+
+import com.library.book.entity.Book;
+import com.library.hold.enums.HoldStatus;
+import com.library.patron.entity.Patron;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+/**
+ * A patron's place in the queue for a title. It is closed as fulfilled when a returned copy is
+ * lent to the patron, or as cancelled by the patron.
+ */
+@Setter
+@Getter
+@Entity
+// The partial indexes on waiting holds are created by the Flyway migration in db/migration
+@Table(name = "holds")
+public class Hold {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "holds_seq")
+    @SequenceGenerator(name = "holds_seq", sequenceName = "holds_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Book book;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "patron_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Patron patron;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private HoldStatus status;
+
+    // Queue order; also the start of the wait
+    @Column(name = "placed_at", nullable = false)
+    private LocalDateTime placedAt;
+
+    @Column(name = "closed_at")
+    private LocalDateTime closedAt;
+
+    public Hold() {
+        // Default constructor
+    }
+
+    public Hold(Book book, Patron patron, LocalDateTime placedAt) {
+        this.book = book;
+        this.patron = patron;
+        this.status = HoldStatus.WAITING;
+        this.placedAt = placedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "Hold{" +
+                "id=" + id +
+                ", book=" + (book != null ? book.getId() : null) +
+                ", patron=" + (patron != null ? patron.getId() : null) +
+                ", status=" + status +
+                ", placedAt=" + placedAt +
+                ", closedAt=" + closedAt +
+                '}';
+    }
+}
@@ -0,0 +1,7 @@
+package com.library.hold.enums;
+
+public enum HoldStatus {
+    WAITING,
+    FULFILLED,
+    CANCELLED
+}
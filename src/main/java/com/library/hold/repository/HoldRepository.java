@@ -0,0 +1,59 @@
+package com.library.hold.repository;
+
+import com.library.hold.entity.Hold;
+import com.library.hold.enums.HoldStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface HoldRepository extends JpaRepository<Hold, Long> {
+
+    List<Hold> findByBookIdAndStatusOrderByPlacedAtAscIdAsc(Long bookId, HoldStatus status);
+
+    boolean existsByBookIdAndPatronIdAndStatus(Long bookId, Long patronId, HoldStatus status);
+
+    long countByStatus(HoldStatus status);
+
+    @Query("SELECT COUNT(h) FROM Hold h WHERE h.book.id = :bookId " +
+            "AND h.status = com.library.hold.enums.HoldStatus.WAITING " +
+            "AND (h.placedAt < :placedAt OR (h.placedAt = :placedAt AND h.id < :id))")
+    long countWaitingBefore(@Param("bookId") Long bookId, @Param("placedAt") LocalDateTime placedAt, @Param("id") Long id);
+
+    @Query("SELECT DISTINCT h.book.id FROM Hold h WHERE h.book.id IN :bookIds " +
+            "AND h.status = com.library.hold.enums.HoldStatus.WAITING")
+    List<Long> findBookIdsWithWaitingHolds(@Param("bookIds") Collection<Long> bookIds);
+
+    // The head of the title's queue, walked through the partial index. SKIP LOCKED lets concurrent returns of the
+    // title serve different holds, and returns of other titles never meet. Patrons who got a copy some other way
+    // since they queued are passed over, as are holds on a title withdrawn from lending.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = AvailableSettings.JAKARTA_LOCK_TIMEOUT, value = "-2"))
+    @Query("SELECT h FROM Hold h WHERE h.book.id = :bookId " +
+            "AND h.status = com.library.hold.enums.HoldStatus.WAITING " +
+            "AND NOT EXISTS (SELECT r.id FROM BorrowingRecord r WHERE r.book.id = :bookId " +
+            "AND r.patron = h.patron AND r.returnDate IS NULL) " +
+            "AND EXISTS (SELECT b.id FROM Book b WHERE b.id = :bookId " +
+            "AND b.status IN (com.library.book.enums.BookStatus.AVAILABLE, com.library.book.enums.BookStatus.BORROWED)) " +
+            "ORDER BY h.placedAt, h.id")
+    List<Hold> lockNextWaiting(@Param("bookId") Long bookId, Limit limit);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Hold h SET h.status = com.library.hold.enums.HoldStatus.CANCELLED, h.closedAt = :closedAt " +
+            "WHERE h.book.id = :bookId AND h.patron.id = :patronId AND h.status = com.library.hold.enums.HoldStatus.WAITING")
+    int cancelWaiting(@Param("bookId") Long bookId, @Param("patronId") Long patronId, @Param("closedAt") LocalDateTime closedAt);
+}
@@ -0,0 +1,168 @@
+package com.library.hold.service;
+
+import com.library.book.entity.Book;
+import com.library.book.enums.BookStatus;
+import com.library.book.repository.BookRepository;
+import com.library.borrowing.repository.BorrowingRecordRepository;
+import com.library.hold.dto.HoldDTO;
+import com.library.hold.entity.Hold;
+import com.library.hold.enums.HoldStatus;
+import com.library.hold.repository.HoldRepository;
+import com.library.patron.entity.Patron;
+import com.library.patron.repository.PatronRepository;
+import com.library.transaction.TransactionCallbacks;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Queues patrons for titles whose copies are all lent. The queue of a title is served oldest hold
+ * first by the borrowing service, which lends a returned copy to the head of the queue instead of
+ * putting it back on the shelf.
+ */
+@Service
+public class HoldService {
+
+    public static final String WAITING_METRIC = "library.holds.waiting";
+    public static final String QUEUE_DEPTH_METRIC = "library.holds.queue.depth";
+    public static final String WAIT_METRIC = "library.holds.wait";
+
+    private final HoldRepository holdRepository;
+    private final BookRepository bookRepository;
+    private final PatronRepository patronRepository;
+    private final BorrowingRecordRepository borrowingRecordRepository;
+    private final DistributionSummary queueDepth;
+    private final Timer waitTime;
+
+    @Autowired
+    public HoldService(HoldRepository holdRepository,
+                       BookRepository bookRepository,
+                       PatronRepository patronRepository,
+                       BorrowingRecordRepository borrowingRecordRepository,
+                       MeterRegistry meterRegistry) {
+        this.holdRepository = holdRepository;
+        this.bookRepository = bookRepository;
+        this.patronRepository = patronRepository;
+        this.borrowingRecordRepository = borrowingRecordRepository;
+        // Read from the database on each scrape, so every node reports the same figure
+        Gauge.builder(WAITING_METRIC, holdRepository, repository -> repository.countByStatus(HoldStatus.WAITING))
+                .description("Holds waiting for a copy")
+                .register(meterRegistry);
+        this.queueDepth = DistributionSummary.builder(QUEUE_DEPTH_METRIC)
+                .description("Position in the title's queue of a newly placed hold")
+                .register(meterRegistry);
+        this.waitTime = Timer.builder(WAIT_METRIC)
+                .description("Time from placing a hold to being lent a copy")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues the patron for a title whose copies are all lent and returns the hold with its
+     * position in the queue. The title is locked, like returns and restored copies lock it before
+     * reading its queue, so a copy cannot reach the shelf unseen while the hold is placed.
+     */
+    @Transactional
+    public HoldDTO placeHold(Long bookId, Long patronId) {
+        Book book = bookRepository.lockById(bookId)
+                .orElseThrow(() -> new EntityNotFoundException("Book not found with id: " + bookId));
+        if (book.getStatus() == BookStatus.AVAILABLE) {
+            throw new IllegalStateException("Book " + bookId + " has a copy available for borrowing");
+        }
+        if (book.getStatus() != BookStatus.BORROWED) {
+            throw new IllegalStateException("Book " + bookId + " is withdrawn from lending");
+        }
+        Patron patron = patronRepository.findById(patronId)
+                .orElseThrow(() -> new EntityNotFoundException("Patron not found with id: " + patronId));
+        if (borrowingRecordRepository.existsByBookIdAndPatronIdAndReturnDateIsNull(bookId, patronId)) {
+            throw new IllegalStateException("Patron " + patronId + " already has a copy of book " + bookId);
+        }
+        // The unique index on waiting holds settles two concurrent requests of the same patron
+        if (holdRepository.existsByBookIdAndPatronIdAndStatus(bookId, patronId, HoldStatus.WAITING)) {
+            throw new IllegalStateException("Patron " + patronId + " is already waiting for book " + bookId);
+        }
+
+        Hold hold = holdRepository.save(new Hold(book, patron, LocalDateTime.now()));
+        int position = (int) holdRepository.countWaitingBefore(bookId, hold.getPlacedAt(), hold.getId()) + 1;
+        queueDepth.record(position);
+        return convertToDTO(hold, position);
+    }
+
+    @Transactional
+    public void cancelHold(Long bookId, Long patronId) {
+        if (holdRepository.cancelWaiting(bookId, patronId, LocalDateTime.now()) == 0) {
+            throw new EntityNotFoundException("No waiting hold found for book " + bookId + " and patron " + patronId);
+        }
+    }
+
+    /**
+     * The waiting holds of a title in the order they will be served.
+     */
+    @Transactional(readOnly = true)
+    public List<HoldDTO> getQueue(Long bookId) {
+        if (!bookRepository.existsById(bookId)) {
+            throw new EntityNotFoundException("Book not found with id: " + bookId);
+        }
+        List<Hold> holds = holdRepository.findByBookIdAndStatusOrderByPlacedAtAscIdAsc(bookId, HoldStatus.WAITING);
+        List<HoldDTO> queue = new ArrayList<>(holds.size());
+        for (Hold hold : holds) {
+            queue.add(convertToDTO(hold, queue.size() + 1));
+        }
+        return queue;
+    }
+
+    /**
+     * The titles among {@code bookIds} with at least one patron waiting, so callers only claim holds where some exist.
+     */
+    @Transactional
+    public Set<Long> findQueuedBooks(Collection<Long> bookIds) {
+        return new HashSet<>(holdRepository.findBookIdsWithWaitingHolds(bookIds));
+    }
+
+    /**
+     * Locks up to {@code count} holds at the head of the title's queue for the caller's
+     * transaction, which must lend each of them a copy and then {@link #fulfil} them.
+     */
+    @Transactional
+    public List<Hold> claimNext(Long bookId, int count) {
+        return holdRepository.lockNextWaiting(bookId, Limit.of(count));
+    }
+
+    @Transactional
+    public void fulfil(List<Hold> holds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Duration> waits = new ArrayList<>(holds.size());
+        for (Hold hold : holds) {
+            hold.setStatus(HoldStatus.FULFILLED);
+            hold.setClosedAt(now);
+            waits.add(Duration.between(hold.getPlacedAt(), now));
+        }
+        // Recorded once the loans are committed, so a retried return does not count its waits twice
+        TransactionCallbacks.afterCommit(() -> waits.forEach(waitTime::record));
+    }
+
+    private HoldDTO convertToDTO(Hold hold, Integer position) {
+        HoldDTO dto = new HoldDTO();
+        dto.setId(hold.getId());
+        dto.setBookId(hold.getBook().getId());
+        dto.setPatronId(hold.getPatron().getId());
+        dto.setStatus(String.valueOf(hold.getStatus()));
+        dto.setPlacedAt(hold.getPlacedAt());
+        dto.setClosedAt(hold.getClosedAt());
+        dto.setPosition(position);
+        return dto;
+    }
+}
@@ -0,0 +1,44 @@
+package com.library.job.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * How far an incremental background job has got, shared by every node that runs it.
+ */
+@Setter
+@Getter
+@Entity
+@Table(name = "job_watermarks")
+public class JobWatermark {
+
+    @Id
+    @Column(name = "job_name", length = 100)
+    private String jobName;
+
+    @Column(nullable = false)
+    private LocalDateTime watermark;
+
+    public JobWatermark() {
+        // Default constructor
+    }
+
+    public JobWatermark(String jobName, LocalDateTime watermark) {
+        this.jobName = jobName;
+        this.watermark = watermark;
+    }
+
+    @Override
+    public String toString() {
+        return "JobWatermark{" +
+                "jobName='" + jobName + '\'' +
+                ", watermark=" + watermark +
+                '}';
+    }
+}
@@ -0,0 +1,15 @@
+package com.library.job.repository;
+
+import com.library.job.entity.JobWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JobWatermarkRepository extends JpaRepository<JobWatermark, String> {
+
+    // Postgres transaction-level advisory lock: held until commit or rollback, false if another node holds it
+    @Query(value = "SELECT pg_try_advisory_xact_lock(hashtext(:jobName))", nativeQuery = true)
+    boolean tryAdvisoryLock(@Param("jobName") String jobName);
+}
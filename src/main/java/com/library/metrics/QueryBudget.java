@@ -0,0 +1,18 @@
+package com.library.metrics;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Maximum number of SQL statements a request to this handler may execute, overriding
+ * metrics.queries.budget. Going over it is logged, or fails the request when
+ * metrics.queries.fail-over-budget is set, as it is in tests.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    int value();
+}
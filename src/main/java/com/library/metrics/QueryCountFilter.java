@@ -0,0 +1,137 @@
+package com.library.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the SQL statements each request executed as {@code library.request.queries} and the
+ * time spent in them as {@code library.request.query.time}, tagged like http.server.requests
+ * with the method and the matched URI template. It runs before the security filters, so the
+ * user lookup of the JWT filter is included. Asynchronous requests are recorded once their
+ * result has been dispatched back. Requests over their {@link QueryBudget} are logged as
+ * likely N+1 queries, or fail when metrics.queries.fail-over-budget is set.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    public static final String QUERIES_METRIC = "library.request.queries";
+    public static final String QUERY_TIME_METRIC = "library.request.query.time";
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+    public static final String QUERY_TIME_HEADER = "X-Query-Time-Ms";
+
+    private static final Logger log = LoggerFactory.getLogger(QueryCountFilter.class);
+
+    private static final String STATISTICS_ATTRIBUTE = QueryCountFilter.class.getName() + ".statistics";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean headersEnabled;
+    private final int defaultBudget;
+    private final boolean failOverBudget;
+
+    public QueryCountFilter(MeterRegistry meterRegistry,
+                            @Value("${metrics.queries.headers-enabled}") boolean headersEnabled,
+                            @Value("${metrics.queries.budget}") int defaultBudget,
+                            @Value("${metrics.queries.fail-over-budget}") boolean failOverBudget) {
+        this.meterRegistry = meterRegistry;
+        this.headersEnabled = headersEnabled;
+        this.defaultBudget = defaultBudget;
+        this.failOverBudget = failOverBudget;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestQueryStatistics statistics = isAsyncDispatch(request)
+                ? (RequestQueryStatistics) request.getAttribute(STATISTICS_ATTRIBUTE)
+                : null;
+        if (statistics == null) {
+            statistics = new RequestQueryStatistics();
+            request.setAttribute(STATISTICS_ATTRIBUTE, statistics);
+        }
+
+        RequestQueryStatistics previous = RequestQueryStatistics.bind(statistics);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestQueryStatistics.bind(previous);
+            if (!isAsyncStarted(request)) {
+                record(request, statistics);
+                // Bodyless responses are still open here; the others got the headers from QueryStatisticsHeaderAdvice
+                if (headersEnabled && !response.isCommitted()) {
+                    writeHeaders(response, statistics);
+                }
+            }
+        }
+        if (!isAsyncStarted(request)) {
+            checkBudget(request, statistics);
+        }
+    }
+
+    static void writeHeaders(HttpServletResponse response, RequestQueryStatistics statistics) {
+        response.setHeader(QUERY_COUNT_HEADER, String.valueOf(statistics.getStatements()));
+        response.setHeader(QUERY_TIME_HEADER, String.valueOf(TimeUnit.NANOSECONDS.toMillis(statistics.getNanos())));
+    }
+
+    private void record(HttpServletRequest request, RequestQueryStatistics statistics) {
+        String method = request.getMethod();
+        String uri = uri(request);
+        DistributionSummary.builder(QUERIES_METRIC)
+                .description("SQL statements executed per HTTP request")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(statistics.getStatements());
+        Timer.builder(QUERY_TIME_METRIC)
+                .description("Time spent executing SQL statements per HTTP request")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(statistics.getNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private void checkBudget(HttpServletRequest request, RequestQueryStatistics statistics) {
+        int budget = defaultBudget;
+        if (request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handler
+                && handler.hasMethodAnnotation(QueryBudget.class)) {
+            budget = handler.getMethodAnnotation(QueryBudget.class).value();
+        }
+        if (budget <= 0 || statistics.getStatements() <= budget) {
+            return;
+        }
+
+        String message = request.getMethod() + " " + uri(request) + " executed " + statistics.getStatements()
+                + " SQL statements, over its budget of " + budget + " (possible N+1 query)";
+        if (failOverBudget) {
+            throw new IllegalStateException(message);
+        }
+        log.warn(message);
+    }
+
+    private static String uri(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? "UNKNOWN" : pattern.toString();
+    }
+}
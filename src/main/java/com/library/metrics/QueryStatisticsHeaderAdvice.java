@@ -0,0 +1,37 @@
+package com.library.metrics;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Adds the query count and time headers just before a response body is written, which is
+ * the last point where headers can still be set. Meant for development only.
+ */
+@ControllerAdvice
+@ConditionalOnProperty(name = "metrics.queries.headers-enabled", havingValue = "true")
+public class QueryStatisticsHeaderAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (response instanceof ServletServerHttpResponse servletResponse) {
+            HttpServletResponse httpResponse = servletResponse.getServletResponse();
+            QueryCountFilter.writeHeaders(httpResponse, RequestQueryStatistics.current());
+        }
+        return body;
+    }
+}
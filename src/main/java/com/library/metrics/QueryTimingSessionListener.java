@@ -0,0 +1,32 @@
+package com.library.metrics;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Created by Hibernate for every session (hibernate.session.events.auto). Adds each statement
+ * or batch execution and its duration to the {@link RequestQueryStatistics} of the thread.
+ */
+public class QueryTimingSessionListener implements SessionEventListener {
+
+    private long executionStartedAt;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executionStartedAt = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestQueryStatistics.current().record(System.nanoTime() - executionStartedAt);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        executionStartedAt = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        RequestQueryStatistics.current().record(System.nanoTime() - executionStartedAt);
+    }
+}
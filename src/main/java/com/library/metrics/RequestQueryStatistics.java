@@ -0,0 +1,61 @@
+package com.library.metrics;
+
+/**
+ * JDBC statements executed by Hibernate and the time spent executing them, for one request.
+ * {@link QueryCountFilter} binds a fresh instance to the request thread, and
+ * {@link #propagating(Runnable)} carries it over to executor threads that work for the
+ * request. Statements issued through JdbcTemplate bypass Hibernate and are not counted.
+ */
+public final class RequestQueryStatistics {
+
+    private static final ThreadLocal<RequestQueryStatistics> CURRENT = ThreadLocal.withInitial(RequestQueryStatistics::new);
+
+    private int statements;
+    private long nanos;
+
+    RequestQueryStatistics() {
+    }
+
+    public static RequestQueryStatistics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Makes the given statistics the current ones of this thread and returns the ones they replaced.
+     */
+    public static RequestQueryStatistics bind(RequestQueryStatistics statistics) {
+        RequestQueryStatistics previous = CURRENT.get();
+        CURRENT.set(statistics);
+        return previous;
+    }
+
+    /**
+     * Wraps a task so that the statements it executes count towards the statistics that are
+     * current where the task was created. Used as a TaskDecorator; only one thread works
+     * on a request at a time, so the counters need no synchronization.
+     */
+    public static Runnable propagating(Runnable task) {
+        RequestQueryStatistics statistics = current();
+        return () -> {
+            RequestQueryStatistics previous = bind(statistics);
+            try {
+                task.run();
+            } finally {
+                bind(previous);
+            }
+        };
+    }
+
+    void record(long elapsedNanos) {
+        statements++;
+        nanos += elapsedNanos;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+}
@@ -0,0 +1,24 @@
+package com.library.outbox.enums;
+
+/**
+ * Changes published through the outbox. Book events belong to one book, so consumers can keep one
+ * key per book; the payload is the book or loan as it was after the change. CATALOG_RELOADED
+ * follows a bulk import, whose rows bypass the outbox, and tells consumers to re-read the catalog.
+ */
+public enum OutboxEventType {
+    BOOK_CREATED,
+    BOOK_UPDATED,
+    BOOK_DELETED,
+    BOOK_BORROWED,
+    BOOK_RETURNED,
+    CATALOG_RELOADED;
+
+    public static final String BOOK_AGGREGATE = "book";
+    public static final String CATALOG_AGGREGATE = "catalog";
+    // There is a single catalog
+    public static final long CATALOG_ID = 0;
+
+    public String aggregateType() {
+        return this == CATALOG_RELOADED ? CATALOG_AGGREGATE : BOOK_AGGREGATE;
+    }
+}
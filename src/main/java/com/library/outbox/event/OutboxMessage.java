@@ -0,0 +1,49 @@
+package com.library.outbox.event;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.library.outbox.entity.OutboxEvent;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * An outbox event as handed to the sinks. Delivery is at least once, so consumers should skip ids
+ * they have already applied.
+ */
+@Getter
+public class OutboxMessage {
+
+    private final Long id;
+    private final String aggregateType;
+    private final Long aggregateId;
+    private final String type;
+    private final LocalDateTime occurredAt;
+    // Already JSON, so it is embedded as is when the message itself is serialized
+    @JsonRawValue
+    private final String payload;
+
+    public OutboxMessage(Long id, String aggregateType, Long aggregateId, String type, LocalDateTime occurredAt, String payload) {
+        this.id = id;
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.type = type;
+        this.occurredAt = occurredAt;
+        this.payload = payload;
+    }
+
+    public static OutboxMessage of(OutboxEvent event) {
+        return new OutboxMessage(event.getId(), event.getAggregateType(), event.getAggregateId(),
+                event.getEventType(), event.getOccurredAt(), event.getPayload());
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxMessage{" +
+                "id=" + id +
+                ", aggregateType='" + aggregateType + '\'' +
+                ", aggregateId=" + aggregateId +
+                ", type='" + type + '\'' +
+                ", occurredAt=" + occurredAt +
+                '}';
+    }
+}
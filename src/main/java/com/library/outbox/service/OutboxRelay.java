@@ -0,0 +1,137 @@
+package com.library.outbox.service;
+
+import com.library.job.repository.JobWatermarkRepository;
+import com.library.outbox.entity.OutboxEvent;
+import com.library.outbox.event.OutboxMessage;
+import com.library.outbox.repository.OutboxEventRepository;
+import com.library.outbox.sink.OutboxSink;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the outbox to every enabled {@link OutboxSink} in batches, oldest event first. A
+ * batch is read, handed to the sinks and deleted in one transaction, so a failure leaves it in
+ * place for the next run and delivery is at least once. Each transaction holds an advisory lock,
+ * so a single node relays at a time and events leave in id order.
+ * <p>
+ * Ids come from per-node sequence blocks, so events recorded on different nodes at about the same
+ * time may be published out of order; events of one node keep theirs.
+ */
+@Service
+public class OutboxRelay {
+
+    public static final String JOB_NAME = "outbox-relay";
+    public static final String RELAY_METRIC = "library.outbox.relay";
+    public static final String PUBLISHED_METRIC = "library.outbox.published";
+    public static final String PENDING_METRIC = "library.outbox.pending";
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final JobWatermarkRepository jobWatermarkRepository;
+    private final List<OutboxSink> sinks;
+    private final TransactionTemplate transaction;
+    private final MeterRegistry meterRegistry;
+    private final Counter published;
+    private final int batchSize;
+    private final int maxBatches;
+    private final boolean advisoryLock;
+
+    @Autowired
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       JobWatermarkRepository jobWatermarkRepository,
+                       List<OutboxSink> sinks,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${outbox.relay.batch-size}") int batchSize,
+                       @Value("${outbox.relay.max-batches}") int maxBatches,
+                       @Value("${outbox.relay.advisory-lock}") boolean advisoryLock) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.jobWatermarkRepository = jobWatermarkRepository;
+        this.sinks = sinks;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.published = Counter.builder(PUBLISHED_METRIC)
+                .description("Outbox events handed to the sinks")
+                .register(meterRegistry);
+        Gauge.builder(PENDING_METRIC, outboxEventRepository, OutboxEventRepository::count)
+                .description("Outbox events not published yet")
+                .register(meterRegistry);
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.advisoryLock = advisoryLock;
+    }
+
+    /**
+     * Publishes up to {@code outbox.relay.max-batches} batches and returns the number of events
+     * published, or -1 when another node holds the lock.
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms}")
+    public int relay() {
+        // With every sink disabled the events are kept, and show in the pending gauge, rather than dropped
+        if (sinks.isEmpty()) {
+            return 0;
+        }
+        long startedAt = System.nanoTime();
+        String outcome = "failed";
+        try {
+            int total = 0;
+            for (int batch = 0; batch < maxBatches; batch++) {
+                Integer count = transaction.execute(status -> relayBatch());
+                if (count < 0) {
+                    outcome = "skipped";
+                    return total > 0 ? total : -1;
+                }
+                total += count;
+                if (count < batchSize) {
+                    break;
+                }
+            }
+            outcome = "completed";
+            return total;
+        } finally {
+            Timer.builder(RELAY_METRIC)
+                    .description("Duration of outbox relay runs")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private int relayBatch() {
+        if (advisoryLock && !jobWatermarkRepository.tryAdvisoryLock(JOB_NAME)) {
+            log.debug("Outbox relay skipped, another node is running it");
+            return -1;
+        }
+        List<OutboxEvent> events = outboxEventRepository.findOldest(Limit.of(batchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        List<OutboxMessage> batch = events.stream().map(OutboxMessage::of).toList();
+        for (OutboxSink sink : sinks) {
+            try {
+                sink.publish(batch);
+            } catch (Exception e) {
+                // Sinks that already took the batch get it again on the next run
+                throw new IllegalStateException("Outbox sink " + sink.name() + " failed on a batch of " + batch.size(), e);
+            }
+        }
+        outboxEventRepository.deleteAllInBatch(events);
+        published.increment(batch.size());
+        return batch.size();
+    }
+}
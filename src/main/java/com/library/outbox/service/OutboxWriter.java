@@ -0,0 +1,41 @@
+package com.library.outbox.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.outbox.entity.OutboxEvent;
+import com.library.outbox.enums.OutboxEventType;
+import com.library.outbox.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records an event in the outbox as part of the caller's transaction, so the event exists exactly
+ * when the change it describes was committed. Publishing is left to {@link OutboxRelay}.
+ */
+@Component
+public class OutboxWriter {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public OutboxWriter(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(OutboxEventType type, Long aggregateId, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the " + type + " event of " + aggregateId, e);
+        }
+        outboxEventRepository.save(new OutboxEvent(type.aggregateType(), aggregateId, type.name(), json, LocalDateTime.now()));
+    }
+}
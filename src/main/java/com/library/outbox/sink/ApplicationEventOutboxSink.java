@@ -0,0 +1,35 @@
+package com.library.outbox.sink;
+
+import com.library.outbox.event.OutboxMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * In-process bus: every message is published as a Spring application event, so beans of this node
+ * follow the changes with an {@code @EventListener} for {@link OutboxMessage}.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.sink.bus.enabled", havingValue = "true")
+public class ApplicationEventOutboxSink implements OutboxSink {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public ApplicationEventOutboxSink(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public String name() {
+        return "bus";
+    }
+
+    @Override
+    public void publish(List<OutboxMessage> batch) {
+        batch.forEach(eventPublisher::publishEvent);
+    }
+}
@@ -0,0 +1,17 @@
+package com.library.outbox.sink;
+
+import com.library.outbox.event.OutboxMessage;
+
+import java.util.List;
+
+/**
+ * Destination of the events published by the outbox relay. A batch counts as delivered when
+ * {@link #publish} returns; if it throws, the batch stays in the outbox and is offered again on
+ * the next run, to every sink.
+ */
+public interface OutboxSink {
+
+    String name();
+
+    void publish(List<OutboxMessage> batch) throws Exception;
+}
@@ -0,0 +1,56 @@
+package com.library.outbox.sink;
+
+import com.library.outbox.event.OutboxMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Stand-in for a message broker: a bounded in-memory topic that consumers drain with
+ * {@link #poll}. A batch that does not fit is refused whole, so the relay stops and the events
+ * wait in the outbox until consumers catch up, as they would with a broker applying back-pressure.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.sink.broker.enabled", havingValue = "true")
+public class QueueOutboxSink implements OutboxSink {
+
+    private final BlockingQueue<OutboxMessage> topic;
+
+    @Autowired
+    public QueueOutboxSink(@Value("${outbox.sink.broker.capacity}") int capacity) {
+        this.topic = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public String name() {
+        return "broker";
+    }
+
+    // The relay is the only producer, so the free space cannot shrink between the check and the offers
+    @Override
+    public synchronized void publish(List<OutboxMessage> batch) {
+        if (topic.remainingCapacity() < batch.size()) {
+            throw new IllegalStateException("Broker topic is full, " + topic.size() + " messages not consumed yet");
+        }
+        topic.addAll(batch);
+    }
+
+    /**
+     * Takes up to {@code max} messages in the order they were published.
+     */
+    public List<OutboxMessage> poll(int max) {
+        List<OutboxMessage> messages = new ArrayList<>(Math.min(max, topic.size()));
+        topic.drainTo(messages, max);
+        return messages;
+    }
+
+    public int size() {
+        return topic.size();
+    }
+}
@@ -1,10 +1,13 @@
 package com.library.patron.service;
 
+import com.library.config.CacheConfig;
 import com.library.patron.dto.PatronDTO;
 import com.library.patron.entity.Patron;
 import com.library.patron.repository.PatronRepository;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,6 +32,7 @@ public class PatronService {
                 .collect(Collectors.toList());
     }
 
+    @Cacheable(cacheNames = CacheConfig.PATRONS_CACHE, key = "#id")
     @Transactional(readOnly = true)
     public PatronDTO getPatronById(Long id) {
         Patron patron = patronRepository.findById(id)
@@ -46,6 +50,7 @@ public class PatronService {
         return convertToDTO(savedPatron);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.PATRONS_CACHE, key = "#id")
     @Transactional
     public PatronDTO updatePatron(Long id, PatronDTO patronDTO) {
         Patron existingPatron = patronRepository.findById(id)
@@ -60,6 +65,7 @@ public class PatronService {
         return convertToDTO(updatedPatron);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.PATRONS_CACHE, key = "#id")
     @Transactional
     public void deletePatron(Long id) {
         if (!patronRepository.existsById(id)) {
@@ -3,6 +3,9 @@ package com.library.security;
 
 import com.library.user.User;
 import com.library.user.UserService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -33,16 +36,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
 
         String token = getTokenFromRequest(request);
-        String username = jwtTokenProvider.extractUsername(token);
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            User userDetails = this.userService.getUserByUsername(username);
+        if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            try {
+                // Signature and expiration are verified once here, the claims are reused below
+                Claims claims = jwtTokenProvider.parseClaims(token);
+                User userDetails = jwtTokenProvider.isStateless(claims)
+                        ? jwtTokenProvider.getUserFromClaims(claims)
+                        : this.userService.getUserByUsername(claims.getSubject());
 
-            if (jwtTokenProvider.validateToken(token, userDetails)) {
-                UsernamePasswordAuthenticationToken authenticationToken =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+                if (jwtTokenProvider.validateToken(claims, userDetails)) {
+                    UsernamePasswordAuthenticationToken authenticationToken =
+                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+                }
+            } catch (JwtException | IllegalArgumentException | EntityNotFoundException e) {
+                // Invalid token or unknown user: continue unauthenticated and let the access rules decide
             }
         }
         filterChain.doFilter(request, response);
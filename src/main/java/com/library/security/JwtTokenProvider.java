@@ -1,26 +1,54 @@
 package com.library.security;
 
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.library.config.JwtConfig;
+import com.library.user.Role;
 import com.library.user.User;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtTokenProvider {
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLE_CLAIM = "role";
+    static final String VERSION_CLAIM = "ver";
+
     private final JwtConfig jwtConfig;
+    private final TokenRevocationList tokenRevocationList;
+
+    // Claims of tokens whose signature was already checked, keyed by token hash, each dropped at its exp
+    private final Cache<String, Claims> verifiedTokens;
 
-    public JwtTokenProvider(JwtConfig jwtConfig) {
+    public JwtTokenProvider(JwtConfig jwtConfig, TokenRevocationList tokenRevocationList) {
         this.jwtConfig = jwtConfig;
+        this.tokenRevocationList = tokenRevocationList;
+        this.verifiedTokens = jwtConfig.getVerifiedCacheSize() > 0
+                ? Caffeine.newBuilder()
+                .maximumSize(jwtConfig.getVerifiedCacheSize())
+                .expireAfter(new ExpireAtTokenExpiration())
+                .build()
+                : null;
     }
 
     public String generateToken(User userDetails) {
         Map<String, Object> claims = new HashMap<>();
+        claims.put(USER_ID_CLAIM, userDetails.getId());
+        claims.put(ROLE_CLAIM, userDetails.getRole().name());
+        claims.put(VERSION_CLAIM, userDetails.getTokenVersion());
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(userDetails.getUsername())
@@ -30,22 +58,102 @@ public class JwtTokenProvider {
                 .compact();
     }
 
+    /**
+     * Verifies the signature and expiration of the token once and returns its claims.
+     * Throws a {@link io.jsonwebtoken.JwtException} when the token is invalid or expired.
+     */
+    public Claims parseClaims(String token) {
+        if (verifiedTokens == null) {
+            return parse(token);
+        }
+        String key = hash(token);
+        Claims claims = verifiedTokens.getIfPresent(key);
+        if (claims == null) {
+            claims = parse(token);
+            verifiedTokens.put(key, claims);
+        }
+        return claims;
+    }
+
+    public boolean validateToken(Claims claims, User userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername())
+                && !isTokenExpired(claims)
+                && !isTokenRevoked(claims, userDetails);
+    }
 
     public boolean validateToken(String token, User userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && isTokenExpired(token));
+        return validateToken(parseClaims(token), userDetails);
     }
 
     public String extractUsername(String token) {
-        return Jwts.parser().setSigningKey(jwtConfig.getSecret()).parseClaimsJws(token).getBody().getSubject();
+        return parseClaims(token).getSubject();
+    }
+
+    /**
+     * Whether the principal can be built from the signed claims alone: stateless mode is
+     * enabled and the token carries the user id, role and version claims.
+     */
+    public boolean isStateless(Claims claims) {
+        return jwtConfig.isStateless()
+                && claims.get(USER_ID_CLAIM) != null
+                && claims.get(ROLE_CLAIM) != null
+                && claims.get(VERSION_CLAIM) != null;
+    }
+
+    // Detached principal rebuilt from the claims; it only carries what authorization needs
+    public User getUserFromClaims(Claims claims) {
+        User user = new User();
+        user.setId(claims.get(USER_ID_CLAIM, Long.class));
+        user.setUsername(claims.getSubject());
+        user.setRole(Role.valueOf(claims.get(ROLE_CLAIM, String.class)));
+        user.setTokenVersion(claims.get(VERSION_CLAIM, Integer.class));
+        return user;
     }
 
-    private boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return !expiration.before(new Date());
+    private Claims parse(String token) {
+        return Jwts.parser().setSigningKey(jwtConfig.getSecret()).parseClaimsJws(token).getBody();
     }
 
-    private Date getExpirationDateFromToken(String token) {
-        return Jwts.parser().setSigningKey(jwtConfig.getSecret()).parseClaimsJws(token).getBody().getExpiration();
+    private boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration() == null || claims.getExpiration().before(new Date());
+    }
+
+    private boolean isTokenRevoked(Claims claims, User userDetails) {
+        Integer version = claims.get(VERSION_CLAIM, Integer.class);
+        if (version == null) {
+            // Tokens issued before versioning carry no version and can only expire
+            return false;
+        }
+        return version < userDetails.getTokenVersion() || tokenRevocationList.isRevoked(userDetails.getId(), version);
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static class ExpireAtTokenExpiration implements Expiry<String, Claims> {
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            if (claims.getExpiration() == null) {
+                return 0;
+            }
+            long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,93 @@
+package com.library.security;
+
+import com.library.config.JwtConfig;
+import com.library.user.RevokedUser;
+import com.library.user.RevokedUserRepository;
+import com.library.user.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Minimum accepted token version per user. Only users whose tokens were ever
+ * revoked are tracked, so the map stays small and the check never touches the database.
+ * Deleted users are kept in revoked_users until their last token has expired, so their
+ * revocation survives a restart even though their users row is gone.
+ * Revocations made on other nodes are picked up by {@link #reload()} every
+ * {@code jwt.revocation.reload-interval-ms}.
+ */
+@Component
+public class TokenRevocationList {
+
+    private final UserRepository userRepository;
+    private final RevokedUserRepository revokedUserRepository;
+    private final JwtConfig jwtConfig;
+    private final long reloadIntervalMillis;
+    private final Map<Long, Integer> minimumVersions = new ConcurrentHashMap<>();
+    private volatile LocalDateTime lastLoad;
+
+    public TokenRevocationList(UserRepository userRepository, RevokedUserRepository revokedUserRepository,
+                               JwtConfig jwtConfig,
+                               @Value("${jwt.revocation.reload-interval-ms}") long reloadIntervalMillis) {
+        this.userRepository = userRepository;
+        this.revokedUserRepository = revokedUserRepository;
+        this.jwtConfig = jwtConfig;
+        this.reloadIntervalMillis = reloadIntervalMillis;
+    }
+
+    @PostConstruct
+    void load() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        loadTokenVersions();
+        revokedUserRepository.deleteRevokedBefore(startedAt.minusSeconds(jwtConfig.getExpiration()));
+        for (RevokedUser revoked : revokedUserRepository.findAll()) {
+            revokeAll(revoked.getUserId());
+        }
+        lastLoad = startedAt;
+    }
+
+    /**
+     * Merges in the revocations written since the last load, wherever they were made. Versions only ever go
+     * up, so nothing is dropped. Deletions are read again from one interval before the last load, which
+     * covers transactions still committing then and some clock skew between the nodes that stamp them.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.reload-interval-ms}",
+            initialDelayString = "${jwt.revocation.reload-interval-ms}")
+    public void reload() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        loadTokenVersions();
+        LocalDateTime since = lastLoad.minus(Duration.ofMillis(reloadIntervalMillis));
+        for (RevokedUser revoked : revokedUserRepository.findRevokedSince(since)) {
+            revokeAll(revoked.getUserId());
+        }
+        lastLoad = startedAt;
+    }
+
+    private void loadTokenVersions() {
+        for (Object[] row : userRepository.findRevokedTokenVersions()) {
+            revokeBefore((Long) row[0], (Integer) row[1]);
+        }
+    }
+
+    public void revokeBefore(Long userId, int version) {
+        minimumVersions.merge(userId, version, Math::max);
+    }
+
+    public void revokeAll(Long userId) {
+        minimumVersions.put(userId, Integer.MAX_VALUE);
+    }
+
+    public boolean isRevoked(Long userId, int version) {
+        if (userId == null) {
+            return false;
+        }
+        Integer minimumVersion = minimumVersions.get(userId);
+        return minimumVersion != null && version < minimumVersion;
+    }
+}
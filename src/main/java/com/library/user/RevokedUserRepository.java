@@ -0,0 +1,25 @@
+package com.library.user;
+
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevokedUserRepository extends JpaRepository<RevokedUser, Long> {
+
+    // Tokens of users revoked before this point have all expired
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RevokedUser r WHERE r.revokedAt < :before")
+    int deleteRevokedBefore(@Param("before") LocalDateTime before);
+
+    @Query("SELECT r FROM RevokedUser r WHERE r.revokedAt >= :since")
+    List<RevokedUser> findRevokedSince(@Param("since") LocalDateTime since);
+}
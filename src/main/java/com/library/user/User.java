@@ -5,6 +5,7 @@ import com.library.patron.entity.Patron;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
@@ -31,6 +32,11 @@ public class User {
     @Enumerated(EnumType.STRING)
     private Role role;
 
+    // Bumped whenever the user's credentials or role change; tokens carrying an older version are rejected
+    @Column(name = "token_version", nullable = false)
+    @ColumnDefault("0")
+    private int tokenVersion;
+
     @OneToOne(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private Patron patron;
 
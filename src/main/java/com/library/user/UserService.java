@@ -1,20 +1,34 @@
 package com.library.user;
 
 
+import com.library.config.CacheConfig;
 import com.library.config.PasswordEncoderConfig;
+import com.library.security.TokenRevocationList;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
 
 
 @Service
 public class UserService {
     private final UserRepository userRepository;
+    private final RevokedUserRepository revokedUserRepository;
+    private final CacheManager cacheManager;
+    private final TokenRevocationList tokenRevocationList;
 
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, RevokedUserRepository revokedUserRepository,
+                       CacheManager cacheManager, TokenRevocationList tokenRevocationList) {
         this.userRepository = userRepository;
-
+        this.revokedUserRepository = revokedUserRepository;
+        this.cacheManager = cacheManager;
+        this.tokenRevocationList = tokenRevocationList;
     }
 
     public User createUser(String username, String password, Role role) {
@@ -29,6 +43,7 @@ public class UserService {
         return userRepository.save(user);
     }
 
+    @Cacheable(cacheNames = CacheConfig.USERS_CACHE, key = "#username")
     public User getUserByUsername(String username) {
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> new EntityNotFoundException("User not found with username: " + username));
@@ -43,16 +58,35 @@ public class UserService {
             throw new IllegalArgumentException("Username already exists");
         }
 
+        String previousUsername = user.getUsername();
         user.setUsername(username);
         user.setPassword(password);
         user.setRole(role);
-        return userRepository.save(user);
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        User updatedUser = userRepository.save(user);
+
+        tokenRevocationList.revokeBefore(id, updatedUser.getTokenVersion());
+        evictPrincipal(previousUsername);
+        evictPrincipal(username);
+        return updatedUser;
     }
 
+    // The revocation is stored with the delete, so tokens of the deleted user stay rejected after a restart
+    @Transactional
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new EntityNotFoundException("User not found with id: " + id);
-        }
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + id));
+        revokedUserRepository.save(new RevokedUser(id, LocalDateTime.now()));
         userRepository.deleteById(id);
+        tokenRevocationList.revokeAll(id);
+        evictPrincipal(user.getUsername());
+    }
+
+    // The cache is keyed by username, which the id-based mutations only learn after loading the user
+    private void evictPrincipal(String username) {
+        Cache cache = cacheManager.getCache(CacheConfig.USERS_CACHE);
+        if (cache != null) {
+            cache.evict(username);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,6 @@
+-- Version columns: users.token_version invalidates the tokens issued before it was bumped, books.version backs
+-- optimistic locking and tells the in-memory indexes which books changed.
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS token_version INTEGER NOT NULL DEFAULT 0;
+
+ALTER TABLE books ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
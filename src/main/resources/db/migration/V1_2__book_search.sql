@@ -0,0 +1,11 @@
+-- Full-text search over books: weighted document kept up to date by Postgres itself
+ALTER TABLE books ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('simple', coalesce(title, '')), 'A') ||
+    setweight(to_tsvector('simple', coalesce(author, '')), 'B') ||
+    setweight(to_tsvector('simple', coalesce(description, '')), 'C')
+) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_books_search_vector ON books USING GIN (search_vector);
+
+-- Serves ISBN prefix lookups (isbn LIKE '978%'), which the unique index cannot under a non-C collation
+CREATE INDEX IF NOT EXISTS idx_books_isbn_prefix ON books (isbn text_pattern_ops);
@@ -0,0 +1,16 @@
+-- Loan ids come from a sequence handed out in blocks of 50 instead of an identity column, so Hibernate can batch
+-- the inserts of a bulk borrow. The loan lookups by patron or book and open or past get composite indexes.
+
+ALTER TABLE borrowing_records ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS borrowing_records_seq START WITH 1 INCREMENT BY 50;
+
+SELECT setval('borrowing_records_seq', greatest((SELECT max(id) FROM borrowing_records), 1));
+
+DROP INDEX IF EXISTS idx_book_id;
+DROP INDEX IF EXISTS idx_patron_id;
+
+CREATE INDEX IF NOT EXISTS idx_borrowing_patron_active ON borrowing_records (patron_id, return_date);
+CREATE INDEX IF NOT EXISTS idx_borrowing_patron_history ON borrowing_records (patron_id, borrow_date);
+CREATE INDEX IF NOT EXISTS idx_borrowing_book_active ON borrowing_records (book_id, return_date);
+CREATE INDEX IF NOT EXISTS idx_borrowing_book_history ON borrowing_records (book_id, borrow_date);
@@ -0,0 +1,8 @@
+-- Open loans by due date for the overdue scan; returned loans, the vast majority, are left out of the index
+CREATE INDEX IF NOT EXISTS idx_borrowing_records_open_due ON borrowing_records (due_date, id) WHERE return_date IS NULL;
+
+-- Where each incremental job left off
+CREATE TABLE IF NOT EXISTS job_watermarks (
+    job_name  VARCHAR(100) NOT NULL PRIMARY KEY,
+    watermark TIMESTAMP(6) NOT NULL
+);
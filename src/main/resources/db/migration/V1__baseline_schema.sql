@@ -0,0 +1,50 @@
+-- Schema as it stood when Hibernate still managed it (spring.jpa.hibernate.ddl-auto=update). Databases created
+-- that way are baselined at this version and continue from V1.1; the V1.x migrations tolerate the objects that
+-- ddl-auto may already have added to them.
+
+CREATE TABLE users (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username VARCHAR(255) NOT NULL UNIQUE,
+    password VARCHAR(255) NOT NULL,
+    role     VARCHAR(255) NOT NULL CHECK (role IN ('PATRON', 'LIBRARIAN', 'ADMIN'))
+);
+
+CREATE TABLE books (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    title            VARCHAR(255)  NOT NULL,
+    author           VARCHAR(255)  NOT NULL,
+    publication_date DATE,
+    isbn             VARCHAR(13)   NOT NULL UNIQUE,
+    description      VARCHAR(1000),
+    status           VARCHAR(255)  NOT NULL CHECK (status IN ('AVAILABLE', 'BORROWED', 'LOST', 'UNDER_MAINTENANCE'))
+);
+
+CREATE INDEX idx_title ON books (title);
+CREATE INDEX idx_author ON books (author);
+CREATE INDEX idx_status ON books (status);
+
+CREATE TABLE patrons (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name         VARCHAR(255)  NOT NULL,
+    email        VARCHAR(255)  NOT NULL UNIQUE,
+    phone_number VARCHAR(20),
+    address      VARCHAR(1000),
+    user_id      BIGINT        NOT NULL UNIQUE REFERENCES users (id)
+);
+
+CREATE INDEX idx_name ON patrons (name);
+CREATE INDEX idx_email ON patrons (email);
+
+CREATE TABLE borrowing_records (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    book_id     BIGINT       NOT NULL REFERENCES books (id),
+    patron_id   BIGINT       NOT NULL REFERENCES patrons (id),
+    borrow_date TIMESTAMP(6) NOT NULL,
+    due_date    TIMESTAMP(6) NOT NULL,
+    return_date TIMESTAMP(6)
+);
+
+CREATE INDEX idx_book_id ON borrowing_records (book_id);
+CREATE INDEX idx_patron_id ON borrowing_records (patron_id);
+CREATE INDEX idx_borrow_date ON borrowing_records (borrow_date);
+CREATE INDEX idx_return_date ON borrowing_records (return_date);
@@ -0,0 +1,84 @@
+-- Range-partitions borrowing_records by month of borrow_date and replaces the single column indexes with
+-- composite and partial ones.
+--
+-- Open loans are few and recent: they live in the newest partitions and in the small partial indexes, which
+-- is all the borrow, return and overdue paths touch. Closed loans age into partitions that are never written
+-- again, so a whole month can be detached for archival in one statement instead of a large DELETE.
+--
+-- The primary key has to include the partition column. Ids still come from borrowing_records_seq alone, and
+-- Hibernate adds borrow_date (@PartitionKey) to its updates so they are pruned to a single partition.
+
+ALTER TABLE borrowing_records RENAME TO borrowing_records_unpartitioned;
+
+CREATE TABLE borrowing_records (
+    id          BIGINT       NOT NULL,
+    book_id     BIGINT       NOT NULL,
+    patron_id   BIGINT       NOT NULL,
+    borrow_date TIMESTAMP(6) NOT NULL,
+    due_date    TIMESTAMP(6) NOT NULL,
+    return_date TIMESTAMP(6),
+    CONSTRAINT pk_borrowing_records PRIMARY KEY (id, borrow_date),
+    CONSTRAINT fk_borrowing_records_book FOREIGN KEY (book_id) REFERENCES books (id),
+    CONSTRAINT fk_borrowing_records_patron FOREIGN KEY (patron_id) REFERENCES patrons (id)
+) PARTITION BY RANGE (borrow_date);
+
+-- Catches loans of a month whose partition does not exist yet; create_borrowing_records_partition moves them out
+CREATE TABLE borrowing_records_default PARTITION OF borrowing_records DEFAULT;
+
+-- Creates the partition for the month containing for_month, named borrowing_records_yyyy_mm, unless it already
+-- exists. Returns whether it was created. Rows of that month sitting in the default partition are moved into the
+-- new table before it is attached, since attaching fails while the default partition holds any of them.
+CREATE FUNCTION create_borrowing_records_partition(for_month DATE) RETURNS BOOLEAN
+LANGUAGE plpgsql AS $$
+DECLARE
+    range_start    DATE := date_trunc('month', for_month)::date;
+    range_end      DATE := (date_trunc('month', for_month) + INTERVAL '1 month')::date;
+    partition_name TEXT := 'borrowing_records_' || to_char(for_month, 'YYYY_MM');
+BEGIN
+    -- Nodes running the partition job at the same time create each partition once
+    PERFORM pg_advisory_xact_lock(hashtext('borrowing_records_partitions'));
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I (LIKE borrowing_records INCLUDING DEFAULTS INCLUDING CONSTRAINTS)',
+                   partition_name);
+    EXECUTE format('WITH moved AS (DELETE FROM borrowing_records_default '
+                   'WHERE borrow_date >= %L AND borrow_date < %L RETURNING *) '
+                   'INSERT INTO %I SELECT * FROM moved', range_start, range_end, partition_name);
+    EXECUTE format('ALTER TABLE borrowing_records ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, range_start, range_end);
+    RETURN TRUE;
+END;
+$$;
+
+-- One partition per month from the oldest loan to three months ahead; BorrowingPartitionMaintainer keeps
+-- creating them ahead of time from then on
+SELECT create_borrowing_records_partition(month::date)
+FROM generate_series(
+        date_trunc('month', coalesce((SELECT min(borrow_date) FROM borrowing_records_unpartitioned), now())),
+        date_trunc('month', now()) + INTERVAL '3 months',
+        INTERVAL '1 month') AS month;
+
+INSERT INTO borrowing_records (id, book_id, patron_id, borrow_date, due_date, return_date)
+SELECT id, book_id, patron_id, borrow_date, due_date, return_date
+FROM borrowing_records_unpartitioned;
+
+DROP TABLE borrowing_records_unpartitioned;
+
+-- Indexes are built after the copy and are created on every partition, current and future.
+
+-- The open loan of a book by a patron, looked up on every return; also serves the open loans of a book
+CREATE INDEX idx_borrowing_open_book_patron ON borrowing_records (book_id, patron_id) WHERE return_date IS NULL;
+
+-- Current loans of a patron, newest first
+CREATE INDEX idx_borrowing_open_patron ON borrowing_records (patron_id, borrow_date) WHERE return_date IS NULL;
+
+-- Loan history per patron and per book, newest first
+CREATE INDEX idx_borrowing_patron_history ON borrowing_records (patron_id, borrow_date);
+CREATE INDEX idx_borrowing_book_history ON borrowing_records (book_id, borrow_date);
+
+-- Open loans by due date for the overdue scan
+CREATE INDEX idx_borrowing_records_open_due ON borrowing_records (due_date, id) WHERE return_date IS NULL;
+
+ANALYZE borrowing_records;
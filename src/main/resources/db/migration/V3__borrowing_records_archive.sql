@@ -0,0 +1,74 @@
+-- Cold store for closed loans: months past the archive threshold are detached from borrowing_records and
+-- attached here whole, so archiving moves no rows. The hot table keeps fewer partitions for its lookups to
+-- probe, and the archive only keeps the indexes history reads need.
+
+CREATE TABLE borrowing_records_archive (
+    id          BIGINT       NOT NULL,
+    book_id     BIGINT       NOT NULL,
+    patron_id   BIGINT       NOT NULL,
+    borrow_date TIMESTAMP(6) NOT NULL,
+    due_date    TIMESTAMP(6) NOT NULL,
+    return_date TIMESTAMP(6),
+    CONSTRAINT pk_borrowing_records_archive PRIMARY KEY (id, borrow_date),
+    CONSTRAINT fk_borrowing_records_archive_book FOREIGN KEY (book_id) REFERENCES books (id),
+    CONSTRAINT fk_borrowing_records_archive_patron FOREIGN KEY (patron_id) REFERENCES patrons (id)
+) PARTITION BY RANGE (borrow_date);
+
+-- Same definitions as the hot history indexes, so a detached partition's own indexes are reused on attach
+CREATE INDEX idx_borrowing_archive_patron_history ON borrowing_records_archive (patron_id, borrow_date);
+CREATE INDEX idx_borrowing_archive_book_history ON borrowing_records_archive (book_id, borrow_date);
+
+-- Moves the closed loans of the month containing for_month into the archive and returns how many were moved.
+-- The month's partition, if still attached to borrowing_records, is detached; its open loans are put back into
+-- borrowing_records (they land in the default partition), its partial indexes are dropped and it is attached to
+-- the archive as borrowing_records_archive_yyyy_mm. Loans of an archived month returned later are picked up
+-- from the default partition by the next call. The month is then rewritten in patron order, fully packed.
+CREATE FUNCTION archive_borrowing_records_month(for_month DATE) RETURNS BIGINT
+LANGUAGE plpgsql AS $$
+DECLARE
+    range_start  DATE := date_trunc('month', for_month)::date;
+    range_end    DATE := (date_trunc('month', for_month) + INTERVAL '1 month')::date;
+    hot_name     TEXT := 'borrowing_records_' || to_char(for_month, 'YYYY_MM');
+    archive_name TEXT := 'borrowing_records_archive_' || to_char(for_month, 'YYYY_MM');
+    partial_index TEXT;
+    cluster_index TEXT;
+    detached     BIGINT := 0;
+    returned     BIGINT;
+BEGIN
+    -- Detaching locks borrowing_records exclusively; give up instead of queueing all loan traffic behind it
+    PERFORM set_config('lock_timeout', '5s', true);
+    PERFORM pg_advisory_xact_lock(hashtext('borrowing_records_partitions'));
+
+    IF to_regclass(hot_name) IS NOT NULL THEN
+        EXECUTE format('ALTER TABLE borrowing_records DETACH PARTITION %I', hot_name);
+        EXECUTE format('WITH open_loans AS (DELETE FROM %I WHERE return_date IS NULL RETURNING *) '
+                       'INSERT INTO borrowing_records SELECT * FROM open_loans', hot_name);
+        FOR partial_index IN
+            SELECT indexrelid::regclass::text FROM pg_index
+            WHERE indrelid = to_regclass(hot_name) AND indpred IS NOT NULL
+        LOOP
+            EXECUTE format('DROP INDEX %s', partial_index);
+        END LOOP;
+        EXECUTE format('ALTER TABLE %I RENAME TO %I', hot_name, archive_name);
+        EXECUTE format('SELECT count(*) FROM %I', archive_name) INTO detached;
+        EXECUTE format('ALTER TABLE borrowing_records_archive ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                       archive_name, range_start, range_end);
+    ELSIF to_regclass(archive_name) IS NULL THEN
+        EXECUTE format('CREATE TABLE %I PARTITION OF borrowing_records_archive FOR VALUES FROM (%L) TO (%L)',
+                       archive_name, range_start, range_end);
+    END IF;
+
+    EXECUTE format('WITH closed AS (DELETE FROM borrowing_records_default '
+                   'WHERE return_date IS NOT NULL AND borrow_date >= %L AND borrow_date < %L RETURNING *) '
+                   'INSERT INTO %I SELECT * FROM closed', range_start, range_end, archive_name);
+    GET DIAGNOSTICS returned = ROW_COUNT;
+
+    IF detached + returned > 0 THEN
+        SELECT inhrelid::regclass::text INTO cluster_index
+        FROM pg_inherits JOIN pg_index ON indexrelid = inhrelid
+        WHERE inhparent = 'idx_borrowing_archive_patron_history'::regclass AND indrelid = to_regclass(archive_name);
+        EXECUTE format('CLUSTER %I USING %s', archive_name, cluster_index);
+    END IF;
+    RETURN detached + returned;
+END;
+$$;
@@ -0,0 +1,46 @@
+-- Multi-copy holdings: a books row is a title and book_copies holds its physical items. The title keeps the
+-- number of copies it owns and of those on the shelf; borrowing claims a free copy and takes one off the
+-- counter with a conditional update, so the counter can never go below zero or lend more copies than exist.
+--
+-- Every existing book becomes a title with a single copy in the book's current state, and its open loan, if
+-- any, is attached to that copy. Copy ids reuse the book ids for this.
+
+ALTER TABLE books ADD COLUMN total_copies INTEGER NOT NULL DEFAULT 1,
+                  ADD COLUMN available_copies INTEGER NOT NULL DEFAULT 1;
+
+UPDATE books SET available_copies = 0 WHERE status <> 'AVAILABLE';
+
+ALTER TABLE books ALTER COLUMN total_copies DROP DEFAULT,
+                  ALTER COLUMN available_copies DROP DEFAULT,
+                  ADD CONSTRAINT chk_books_copies CHECK (available_copies >= 0 AND available_copies <= total_copies);
+
+CREATE SEQUENCE book_copies_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE book_copies (
+    id      BIGINT       NOT NULL,
+    book_id BIGINT       NOT NULL,
+    status  VARCHAR(255) NOT NULL CHECK (status IN ('AVAILABLE', 'BORROWED', 'LOST', 'UNDER_MAINTENANCE')),
+    CONSTRAINT pk_book_copies PRIMARY KEY (id),
+    CONSTRAINT fk_book_copies_book FOREIGN KEY (book_id) REFERENCES books (id) ON DELETE CASCADE
+);
+
+INSERT INTO book_copies (id, book_id, status)
+SELECT id, id, status FROM books;
+
+SELECT setval('book_copies_seq', greatest((SELECT max(id) FROM book_copies), 1));
+
+CREATE INDEX idx_book_copies_book ON book_copies (book_id, id);
+
+-- Free copies of a title in id order, which is what a borrow scans; lent and withdrawn copies are left out
+CREATE INDEX idx_book_copies_available ON book_copies (book_id, id) WHERE status = 'AVAILABLE';
+
+-- The archive gets the column too: partitions move between the two tables and must keep the same columns
+ALTER TABLE borrowing_records ADD COLUMN copy_id BIGINT;
+ALTER TABLE borrowing_records_archive ADD COLUMN copy_id BIGINT;
+
+UPDATE borrowing_records SET copy_id = book_id WHERE return_date IS NULL;
+
+ALTER TABLE borrowing_records
+    ADD CONSTRAINT fk_borrowing_records_copy FOREIGN KEY (copy_id) REFERENCES book_copies (id);
+ALTER TABLE borrowing_records_archive
+    ADD CONSTRAINT fk_borrowing_records_archive_copy FOREIGN KEY (copy_id) REFERENCES book_copies (id);
@@ -0,0 +1,25 @@
+-- Holds: patrons queue for a title whose copies are all lent, and a returned copy is lent straight to the
+-- oldest waiting hold. Closed holds are kept for the wait time history but leave the partial indexes.
+
+CREATE SEQUENCE holds_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE holds (
+    id        BIGINT       NOT NULL,
+    book_id   BIGINT       NOT NULL,
+    patron_id BIGINT       NOT NULL,
+    status    VARCHAR(255) NOT NULL CHECK (status IN ('WAITING', 'FULFILLED', 'CANCELLED')),
+    placed_at TIMESTAMP(6) NOT NULL,
+    closed_at TIMESTAMP(6),
+    CONSTRAINT pk_holds PRIMARY KEY (id),
+    CONSTRAINT fk_holds_book FOREIGN KEY (book_id) REFERENCES books (id) ON DELETE CASCADE,
+    CONSTRAINT fk_holds_patron FOREIGN KEY (patron_id) REFERENCES patrons (id) ON DELETE CASCADE
+);
+
+-- The queue of a title in the order it is served. Ids come from per-node sequence blocks, so they only break
+-- ties between holds placed at the same instant.
+CREATE INDEX idx_holds_queue ON holds (book_id, placed_at, id) WHERE status = 'WAITING';
+
+-- A patron waits at most once per title
+CREATE UNIQUE INDEX uq_holds_waiting_patron ON holds (book_id, patron_id) WHERE status = 'WAITING';
+
+CREATE INDEX idx_holds_patron ON holds (patron_id);
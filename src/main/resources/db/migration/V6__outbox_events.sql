@@ -0,0 +1,14 @@
+-- Transactional outbox: mutations insert their events here in their own transaction, and the relay publishes
+-- them in id order and deletes them, so the table only holds events not yet delivered.
+
+CREATE SEQUENCE outbox_events_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE outbox_events (
+    id             BIGINT       NOT NULL,
+    aggregate_type VARCHAR(50)  NOT NULL,
+    aggregate_id   BIGINT       NOT NULL,
+    event_type     VARCHAR(50)  NOT NULL,
+    payload        TEXT         NOT NULL,
+    occurred_at    TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_outbox_events PRIMARY KEY (id)
+);
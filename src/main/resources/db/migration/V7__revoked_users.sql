@@ -0,0 +1,8 @@
+-- Deleted users whose tokens may still be unexpired. Stateless tokens are checked against this list instead of
+-- the users table, so the revocation has to outlive the user's row; rows older than the token lifetime are purged.
+
+CREATE TABLE revoked_users (
+    user_id    BIGINT       NOT NULL,
+    revoked_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_revoked_users PRIMARY KEY (user_id)
+);
@@ -0,0 +1,8 @@
+-- Keyset pages of the catalog filtered by author or status seek to (filter, last id) and read the page in index
+-- order. The composite indexes also serve every lookup the single column ones did, so those are dropped.
+
+CREATE INDEX idx_books_author_id ON books (author, id);
+CREATE INDEX idx_books_status_id ON books (status, id);
+
+DROP INDEX idx_author;
+DROP INDEX idx_status;
@@ -0,0 +1,115 @@
+package com.library.book.service;
+
+import com.library.book.dto.BookAvailabilityDTO;
+import com.library.book.entity.Book;
+import com.library.book.enums.BookStatus;
+import com.library.book.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookAvailabilityIndexTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private static final long MAX_INDEXED_ID = 100_000;
+
+    private BookAvailabilityIndex bookAvailabilityIndex;
+
+    @BeforeEach
+    void setUp() {
+        bookAvailabilityIndex = new BookAvailabilityIndex(bookRepository, transactionManager, true, MAX_INDEXED_ID);
+        when(bookRepository.streamAvailability()).thenReturn(Stream.of(
+                new Object[]{1L, BookStatus.AVAILABLE, 0L},
+                new Object[]{2L, BookStatus.BORROWED, 3L},
+                new Object[]{5L, BookStatus.LOST, 1L}));
+        bookAvailabilityIndex.rebuild();
+    }
+
+    @Test
+    void classify_ShouldAnswerFromBitmapAndLeaveOutOfRangeIds() {
+        long outOfRange = MAX_INDEXED_ID + 1;
+        BookAvailabilityDTO result = new BookAvailabilityDTO();
+
+        List<Long> unresolved = bookAvailabilityIndex.classify(List.of(1L, 2L, 3L, 5L, outOfRange), result);
+
+        assertTrue(bookAvailabilityIndex.isReady());
+        assertEquals(List.of(1L), result.getAvailable());
+        assertEquals(List.of(2L, 5L), result.getUnavailable());
+        assertEquals(List.of(3L), result.getNotFound());
+        assertEquals(List.of(outOfRange), unresolved);
+        assertEquals(3, bookAvailabilityIndex.size());
+    }
+
+    @Test
+    void putAndRemove_ShouldKeepNewestVersionAndIgnoreChangesAfterDeletion() {
+        bookAvailabilityIndex.put(book(2L, 4L, BookStatus.AVAILABLE));
+        // An older change arriving late must not overwrite the newer one
+        bookAvailabilityIndex.put(book(2L, 3L, BookStatus.BORROWED));
+        bookAvailabilityIndex.put(book(70_000L, 0L, BookStatus.AVAILABLE));
+        bookAvailabilityIndex.remove(1L);
+        bookAvailabilityIndex.put(book(1L, 1L, BookStatus.AVAILABLE));
+
+        BookAvailabilityDTO result = new BookAvailabilityDTO();
+        bookAvailabilityIndex.classify(List.of(1L, 2L, 70_000L), result);
+
+        assertEquals(List.of(2L, 70_000L), result.getAvailable());
+        assertEquals(List.of(1L), result.getNotFound());
+        assertTrue(bookAvailabilityIndex.memoryBytes() > 70_000L * Integer.BYTES);
+    }
+
+    @Test
+    void refresh_ShouldReloadOnlyTheBlocksChangedOnOtherNodes() {
+        // Elsewhere: book 2 returned, book 5 deleted, book 7 created, and a book created in the next block
+        when(bookRepository.fingerprintBlocks(MAX_INDEXED_ID)).thenReturn(List.of(
+                new Object[]{0L, 3L, 10L, 4L},
+                new Object[]{1L, 1L, 4096L, 0L}));
+        when(bookRepository.findAvailabilityInIdRange(0L, 4096L)).thenReturn(List.of(
+                new Object[]{1L, BookStatus.AVAILABLE, 0L},
+                new Object[]{2L, BookStatus.AVAILABLE, 4L},
+                new Object[]{7L, BookStatus.AVAILABLE, 0L}));
+        when(bookRepository.findAvailabilityInIdRange(4096L, 8192L)).thenReturn(List.<Object[]>of(
+                new Object[]{4096L, BookStatus.BORROWED, 0L}));
+
+        bookAvailabilityIndex.refresh();
+
+        BookAvailabilityDTO result = new BookAvailabilityDTO();
+        bookAvailabilityIndex.classify(List.of(1L, 2L, 5L, 7L, 4096L), result);
+        assertEquals(List.of(1L, 2L, 7L), result.getAvailable());
+        assertEquals(List.of(4096L), result.getUnavailable());
+        assertEquals(List.of(5L), result.getNotFound());
+    }
+
+    @Test
+    void refresh_WhenNoBlockChanged_ShouldNotReadAnyBook() {
+        when(bookRepository.fingerprintBlocks(MAX_INDEXED_ID)).thenReturn(List.<Object[]>of(new Object[]{0L, 3L, 8L, 4L}));
+
+        bookAvailabilityIndex.refresh();
+
+        verify(bookRepository, never()).findAvailabilityInIdRange(anyLong(), anyLong());
+        assertEquals(3, bookAvailabilityIndex.size());
+    }
+
+    private static Book book(Long id, long version, BookStatus status) {
+        Book book = new Book("Dune", "Frank Herbert", LocalDate.of(1965, 8, 1), "9780441172719", null, status);
+        book.setId(id);
+        book.setVersion(version);
+        return book;
+    }
+}
@@ -0,0 +1,151 @@
+package com.library.book.service;
+
+import com.library.book.dto.BookSuggestionDTO;
+import com.library.book.entity.Book;
+import com.library.book.enums.BookStatus;
+import com.library.book.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookCatalogIndexTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    private Path snapshotDirectory;
+
+    private BookCatalogIndex bookCatalogIndex;
+
+    @BeforeEach
+    void setUp() {
+        bookCatalogIndex = newIndex();
+    }
+
+    @Test
+    void suggest_ShouldMatchEveryWordAsPrefixAndFilterByStatus() {
+        when(bookRepository.streamAll()).thenReturn(Stream.of(
+                book(1L, "Dune", "Frank Herbert", BookStatus.AVAILABLE),
+                book(2L, "Dune Messiah", "Frank Herbert", BookStatus.BORROWED),
+                book(3L, "Dune Road", "Jane Frankel", BookStatus.AVAILABLE),
+                book(4L, "Neuromancer", "William Gibson", BookStatus.AVAILABLE)));
+        bookCatalogIndex.rebuild();
+
+        assertEquals(List.of(1L, 2L, 3L), ids(bookCatalogIndex.suggest("du", null, 10)));
+        assertEquals(List.of(1L, 2L), ids(bookCatalogIndex.suggest("dune herb", null, 10)));
+        assertEquals(List.of(1L, 3L), ids(bookCatalogIndex.suggest("Frank", BookStatus.AVAILABLE, 10)));
+        assertEquals(List.of(1L), ids(bookCatalogIndex.suggest("dune", null, 1)));
+        assertTrue(bookCatalogIndex.suggest("?!", null, 10).isEmpty());
+    }
+
+    @Test
+    void putAndRemove_ShouldUpdateIndexIncrementally() {
+        when(bookRepository.streamAll()).thenReturn(Stream.of(book(1L, "Dune", "Frank Herbert", BookStatus.AVAILABLE)));
+        bookCatalogIndex.rebuild();
+
+        Book renamed = book(1L, "Children of Dune", "Frank Herbert", BookStatus.BORROWED);
+        renamed.setVersion(1);
+        bookCatalogIndex.put(renamed);
+        bookCatalogIndex.put(book(2L, "Foundation", "Isaac Asimov", BookStatus.AVAILABLE));
+
+        assertEquals(List.of(1L), ids(bookCatalogIndex.suggest("child", BookStatus.BORROWED, 10)));
+        assertTrue(bookCatalogIndex.suggest("dune", BookStatus.AVAILABLE, 10).isEmpty());
+
+        // An older copy arriving late must not overwrite the newer one
+        bookCatalogIndex.put(book(1L, "Dune", "Frank Herbert", BookStatus.AVAILABLE));
+        assertEquals("Children of Dune", bookCatalogIndex.suggest("dune", null, 10).get(0).getTitle());
+
+        bookCatalogIndex.remove(1L);
+        assertTrue(bookCatalogIndex.suggest("dune", null, 10).isEmpty());
+        assertEquals(1, bookCatalogIndex.size());
+        assertTrue(bookCatalogIndex.estimatedMemoryBytes() > 0);
+    }
+
+    @Test
+    void loadSnapshot_ShouldRestoreIndexOnlyWhileFingerprintMatches() {
+        when(bookRepository.streamAll()).thenReturn(Stream.of(
+                book(1L, "Dune", "Frank Herbert", BookStatus.AVAILABLE),
+                book(5L, "Neuromancer", "William Gibson", BookStatus.LOST)));
+        bookCatalogIndex.rebuild();
+        bookCatalogIndex.writeSnapshot();
+
+        BookCatalogIndex restarted = newIndex();
+        when(bookRepository.fingerprint()).thenReturn(Collections.singletonList(new Object[]{2L, 6L, 0L}));
+        assertTrue(restarted.loadSnapshot());
+        assertTrue(restarted.isReady());
+        assertEquals("LOST", restarted.suggest("gibson", null, 10).get(0).getStatus());
+
+        BookCatalogIndex stale = newIndex();
+        when(bookRepository.fingerprint()).thenReturn(Collections.singletonList(new Object[]{2L, 6L, 1L}));
+        assertFalse(stale.loadSnapshot());
+        assertFalse(stale.isReady());
+    }
+
+    @Test
+    void refresh_ShouldApplyChangesCommittedOnOtherNodes() {
+        when(bookRepository.streamAll()).thenReturn(Stream.of(
+                book(1L, "Dune", "Frank Herbert", BookStatus.AVAILABLE),
+                book(5L, "Neuromancer", "William Gibson", BookStatus.AVAILABLE)));
+        bookCatalogIndex.rebuild();
+        // Elsewhere: book 1 renamed, book 5 deleted
+        Book renamed = book(1L, "Dune Messiah", "Frank Herbert", BookStatus.AVAILABLE);
+        renamed.setVersion(1);
+        when(bookRepository.fingerprintBlocks(Long.MAX_VALUE)).thenReturn(List.<Object[]>of(new Object[]{0L, 1L, 1L, 1L}));
+        when(bookRepository.findIdRange(0L, 4096L)).thenReturn(List.of(renamed));
+
+        bookCatalogIndex.refresh();
+
+        assertEquals("Dune Messiah", bookCatalogIndex.suggest("dune", null, 10).get(0).getTitle());
+        assertTrue(bookCatalogIndex.suggest("gibson", null, 10).isEmpty());
+        assertEquals(1, bookCatalogIndex.size());
+    }
+
+    @Test
+    void refresh_WhenNoBlockChanged_ShouldNotReadAnyBook() {
+        when(bookRepository.streamAll()).thenReturn(Stream.of(book(1L, "Dune", "Frank Herbert", BookStatus.AVAILABLE)));
+        bookCatalogIndex.rebuild();
+        when(bookRepository.fingerprintBlocks(Long.MAX_VALUE)).thenReturn(List.<Object[]>of(new Object[]{0L, 1L, 1L, 0L}));
+
+        bookCatalogIndex.refresh();
+
+        verify(bookRepository, never()).findIdRange(anyLong(), anyLong());
+    }
+
+    private BookCatalogIndex newIndex() {
+        return new BookCatalogIndex(bookRepository, entityManager, transactionManager, true,
+                snapshotDirectory.resolve("catalog-index.bin").toString());
+    }
+
+    private static Book book(Long id, String title, String author, BookStatus status) {
+        Book book = new Book(title, author, LocalDate.of(1965, 8, 1), "978044117271" + id, null, status);
+        book.setId(id);
+        return book;
+    }
+
+    private static List<Long> ids(List<BookSuggestionDTO> suggestions) {
+        return suggestions.stream().map(BookSuggestionDTO::getId).toList();
+    }
+}
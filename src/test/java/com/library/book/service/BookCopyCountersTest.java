@@ -0,0 +1,68 @@
+package com.library.book.service;
+
+import com.library.book.entity.Book;
+import com.library.book.enums.BookStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookCopyCountersTest {
+
+    @Test
+    void tryAcquire_ShouldHandOutTheKnownCopiesThenTurnBorrowersAway() {
+        BookCopyCounters counters = new BookCopyCounters(Duration.ofMinutes(1));
+        counters.put(book(1L, 2, 5L, BookStatus.AVAILABLE));
+
+        assertTrue(counters.tryAcquire(1L));
+        assertTrue(counters.tryAcquire(1L));
+        assertFalse(counters.tryAcquire(1L));
+        // Unknown titles are left to the database
+        assertTrue(counters.tryAcquire(2L));
+    }
+
+    @Test
+    void put_ShouldIgnoreOlderVersionsAndCountWithdrawnTitlesAsEmpty() {
+        BookCopyCounters counters = new BookCopyCounters(Duration.ofMinutes(1));
+        counters.put(book(1L, 0, 7L, BookStatus.BORROWED));
+        counters.put(book(1L, 3, 6L, BookStatus.AVAILABLE));
+        counters.put(book(2L, 3, 1L, BookStatus.UNDER_MAINTENANCE));
+
+        assertFalse(counters.tryAcquire(1L));
+        assertFalse(counters.tryAcquire(2L));
+    }
+
+    @Test
+    void tryAcquire_WhenTheCountExpiredOrTheBorrowRolledBack_ShouldAskTheDatabaseAgain() throws InterruptedException {
+        BookCopyCounters expiring = new BookCopyCounters(Duration.ofMillis(1));
+        expiring.put(book(1L, 0, 1L, BookStatus.BORROWED));
+        Thread.sleep(5);
+        assertTrue(expiring.tryAcquire(1L));
+
+        BookCopyCounters counters = new BookCopyCounters(Duration.ofMinutes(1));
+        counters.put(book(1L, 1, 1L, BookStatus.AVAILABLE));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertTrue(counters.tryAcquire(1L));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(0, counters.size());
+        assertTrue(counters.tryAcquire(1L));
+    }
+
+    private static Book book(Long id, int availableCopies, long version, BookStatus status) {
+        Book book = new Book("Dune", "Frank Herbert", LocalDate.of(1965, 8, 1), "9780441172719", null, status);
+        book.setId(id);
+        book.setTotalCopies(3);
+        book.setAvailableCopies(availableCopies);
+        book.setVersion(version);
+        return book;
+    }
+}
@@ -0,0 +1,179 @@
+package com.library.book.service;
+
+import com.library.book.dto.BookCopyDTO;
+import com.library.book.entity.Book;
+import com.library.book.entity.BookCopy;
+import com.library.book.enums.BookStatus;
+import com.library.book.repository.BookCopyRepository;
+import com.library.book.repository.BookRepository;
+import com.library.borrowing.service.BorrowingRecordService;
+import com.library.exception.InvalidRequestException;
+import com.library.outbox.enums.OutboxEventType;
+import com.library.outbox.service.OutboxWriter;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookCopyServiceTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private BookCopyRepository bookCopyRepository;
+
+    @Mock
+    private BookCatalogIndex bookCatalogIndex;
+
+    @Mock
+    private BookAvailabilityIndex bookAvailabilityIndex;
+
+    @Mock
+    private BookCopyCounters bookCopyCounters;
+
+    @Mock
+    private BorrowingRecordService borrowingRecordService;
+
+    @Mock
+    private BookService bookService;
+
+    @Mock
+    private OutboxWriter outboxWriter;
+
+    @InjectMocks
+    private BookCopyService bookCopyService;
+
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        book = new Book();
+        book.setId(1L);
+        book.setStatus(BookStatus.AVAILABLE);
+    }
+
+    @Test
+    void addCopies_ShouldShelveTheNewCopiesAndRaiseBothCounters() {
+        when(bookRepository.existsById(1L)).thenReturn(true);
+        when(bookRepository.getReferenceById(1L)).thenReturn(book);
+        when(bookCopyRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(borrowingRecordService.lendToWaitingPatrons(eq(1L), anyList())).thenAnswer(invocation -> invocation.getArgument(1));
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+
+        List<BookCopyDTO> added = bookCopyService.addCopies(1L, 3);
+
+        assertEquals(3, added.size());
+        assertTrue(added.stream().allMatch(copy -> copy.getStatus().equals("AVAILABLE")));
+        verify(bookRepository).adjustCopies(1L, 3, 3);
+        verify(bookCopyCounters).put(book);
+        verify(outboxWriter).record(eq(OutboxEventType.BOOK_UPDATED), eq(1L), any());
+    }
+
+    @Test
+    void addCopies_WhenPatronsAreWaiting_ShouldCountOnlyTheCopiesLeftForTheShelf() {
+        when(bookRepository.existsById(1L)).thenReturn(true);
+        when(bookRepository.getReferenceById(1L)).thenReturn(book);
+        when(bookCopyRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        // Two patrons are waiting: the first two copies are lent to them
+        when(borrowingRecordService.lendToWaitingPatrons(eq(1L), anyList())).thenAnswer(invocation -> {
+            List<BookCopy> copies = invocation.getArgument(1);
+            return copies.subList(2, copies.size());
+        });
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+
+        List<BookCopyDTO> added = bookCopyService.addCopies(1L, 3);
+
+        assertEquals(List.of("BORROWED", "BORROWED", "AVAILABLE"), added.stream().map(BookCopyDTO::getStatus).toList());
+        verify(bookRepository).adjustCopies(1L, 3, 1);
+    }
+
+    @Test
+    void addCopies_WhenCountIsOutOfRange_ShouldThrowInvalidRequestException() {
+        assertThrows(InvalidRequestException.class, () -> bookCopyService.addCopies(1L, 0));
+        assertThrows(InvalidRequestException.class, () -> bookCopyService.addCopies(1L, BookCopyService.MAX_NEW_COPIES + 1));
+        verifyNoInteractions(bookRepository, bookCopyRepository);
+    }
+
+    @Test
+    void updateCopyStatus_WhenAFreeCopyIsWithdrawn_ShouldTakeItOffTheShelf() {
+        BookCopy copy = copy(BookStatus.AVAILABLE);
+        when(bookCopyRepository.findById(10L)).thenReturn(Optional.of(copy));
+        when(bookCopyRepository.updateStatus(List.of(10L), BookStatus.AVAILABLE, BookStatus.LOST)).thenReturn(1);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+
+        BookCopyDTO result = bookCopyService.updateCopyStatus(1L, 10L, BookStatus.LOST);
+
+        assertEquals("LOST", result.getStatus());
+        verify(bookRepository).adjustCopies(1L, 0, -1);
+        verify(outboxWriter).record(eq(OutboxEventType.BOOK_UPDATED), eq(1L), any());
+    }
+
+    @Test
+    void updateCopyStatus_WhenACopyIsBackFromMaintenance_ShouldShelveIt() {
+        BookCopy copy = copy(BookStatus.UNDER_MAINTENANCE);
+        when(bookCopyRepository.findById(10L)).thenReturn(Optional.of(copy));
+        when(bookCopyRepository.updateStatus(List.of(10L), BookStatus.UNDER_MAINTENANCE, BookStatus.AVAILABLE)).thenReturn(1);
+        when(borrowingRecordService.lendToWaitingPatrons(1L, List.of(copy))).thenReturn(List.of(copy));
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+
+        BookCopyDTO result = bookCopyService.updateCopyStatus(1L, 10L, BookStatus.AVAILABLE);
+
+        assertEquals("AVAILABLE", result.getStatus());
+        verify(bookRepository).adjustCopies(1L, 0, 1);
+        verify(outboxWriter).record(eq(OutboxEventType.BOOK_UPDATED), eq(1L), any());
+    }
+
+    @Test
+    void updateCopyStatus_WhenACopyIsBackWhilePatronsWait_ShouldLeaveTheCounterAlone() {
+        BookCopy copy = copy(BookStatus.UNDER_MAINTENANCE);
+        when(bookCopyRepository.findById(10L)).thenReturn(Optional.of(copy));
+        when(bookCopyRepository.updateStatus(List.of(10L), BookStatus.UNDER_MAINTENANCE, BookStatus.AVAILABLE)).thenReturn(1);
+        when(borrowingRecordService.lendToWaitingPatrons(1L, List.of(copy))).thenReturn(List.of());
+
+        BookCopyDTO result = bookCopyService.updateCopyStatus(1L, 10L, BookStatus.AVAILABLE);
+
+        assertEquals("BORROWED", result.getStatus());
+        verify(bookRepository, never()).adjustCopies(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    void updateCopyStatus_WhenMovedBetweenWithdrawnStatuses_ShouldLeaveTheCountersAlone() {
+        when(bookCopyRepository.findById(10L)).thenReturn(Optional.of(copy(BookStatus.LOST)));
+        when(bookCopyRepository.updateStatus(List.of(10L), BookStatus.LOST, BookStatus.UNDER_MAINTENANCE)).thenReturn(1);
+
+        bookCopyService.updateCopyStatus(1L, 10L, BookStatus.UNDER_MAINTENANCE);
+
+        verify(bookRepository, never()).adjustCopies(anyLong(), anyInt(), anyInt());
+        verifyNoInteractions(outboxWriter);
+    }
+
+    @Test
+    void updateCopyStatus_WhenCopyIsOnLoanOrBelongsToAnotherBook_ShouldBeRejected() {
+        when(bookCopyRepository.findById(10L)).thenReturn(Optional.of(copy(BookStatus.BORROWED)));
+
+        assertThrows(IllegalStateException.class, () -> bookCopyService.updateCopyStatus(1L, 10L, BookStatus.LOST));
+        assertThrows(EntityNotFoundException.class, () -> bookCopyService.updateCopyStatus(2L, 10L, BookStatus.LOST));
+        assertThrows(InvalidRequestException.class, () -> bookCopyService.updateCopyStatus(1L, 10L, BookStatus.BORROWED));
+        verify(bookCopyRepository, never()).updateStatus(anyList(), any(), any());
+    }
+
+    private BookCopy copy(BookStatus status) {
+        BookCopy copy = new BookCopy(book, status);
+        copy.setId(10L);
+        return copy;
+    }
+}
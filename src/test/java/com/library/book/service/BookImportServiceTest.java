@@ -0,0 +1,146 @@
+package com.library.book.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.book.dto.BookDTO;
+import com.library.book.dto.BookImportResultDTO;
+import com.library.book.repository.BookImportRepository;
+import com.library.outbox.enums.OutboxEventType;
+import com.library.outbox.service.OutboxWriter;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookImportServiceTest {
+
+    @Mock
+    private BookImportRepository bookImportRepository;
+
+    @Mock
+    private BookCatalogIndex bookCatalogIndex;
+
+    @Mock
+    private BookAvailabilityIndex bookAvailabilityIndex;
+
+    @Mock
+    private OutboxWriter outboxWriter;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    private Path errorDirectory;
+
+    private BookImportService bookImportService;
+
+    @BeforeEach
+    void setUp() {
+        bookImportService = new BookImportService(
+                bookImportRepository,
+                bookCatalogIndex,
+                bookAvailabilityIndex,
+                outboxWriter,
+                transactionManager,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                new ObjectMapper().findAndRegisterModules(),
+                2,
+                errorDirectory.toString());
+    }
+
+    @Test
+    void importBooks_WhenCsvIsValid_ShouldUpsertInBatches() throws Exception {
+        String csv = """
+                title,author,publication_date,isbn,description,status
+                "Dune, Part One",Frank Herbert,1965-08-01,9780441172719,"Spice, ""sand""
+                and worms",AVAILABLE
+                Neuromancer,William Gibson,1984-07-01,9780441569595,,
+                Foundation,Isaac Asimov,1951-06-01,9780553293357,,LOST
+                """;
+        List<List<BookDTO>> batches = new ArrayList<>();
+        doAnswer(invocation -> batches.add(new ArrayList<>(invocation.getArgument(0)))).when(bookImportRepository).upsertAll(anyList());
+
+        BookImportResultDTO result = bookImportService.importBooks(stream(csv), BookImportService.Format.CSV);
+
+        assertEquals(3, result.getTotalRows());
+        assertEquals(3, result.getImportedRows());
+        assertEquals(0, result.getFailedRows());
+        assertNull(result.getErrorFile());
+        assertEquals(2, batches.size());
+        BookDTO dune = batches.get(0).get(0);
+        assertEquals("Dune, Part One", dune.getTitle());
+        assertEquals("Spice, \"sand\"\nand worms", dune.getDescription());
+        assertEquals("AVAILABLE", batches.get(0).get(1).getStatus());
+        // One event for the whole import, after the last batch
+        InOrder inOrder = inOrder(bookImportRepository, outboxWriter);
+        inOrder.verify(bookImportRepository, times(2)).upsertAll(anyList());
+        inOrder.verify(outboxWriter).record(OutboxEventType.CATALOG_RELOADED, OutboxEventType.CATALOG_ID, Map.of("importedRows", 3L));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void importBooks_WhenRowsAreInvalidOrDuplicated_ShouldWriteThemToErrorFile() throws Exception {
+        String jsonLines = """
+                {"title":"Dune","author":"Frank Herbert","publicationDate":"1965-08-01","isbn":"9780441172719","status":"AVAILABLE"}
+                {"title":"Dune again","author":"Frank Herbert","publicationDate":"1965-08-01","isbn":"9780441172719","status":"AVAILABLE"}
+                {"title":"","author":"Nobody","publicationDate":"1965-08-01","isbn":"9780441172719","status":"AVAILABLE"}
+                {"title": broken
+                """;
+
+        BookImportResultDTO result = bookImportService.importBooks(stream(jsonLines), BookImportService.Format.JSON_LINES);
+
+        assertEquals(4, result.getTotalRows());
+        assertEquals(1, result.getImportedRows());
+        assertEquals(3, result.getFailedRows());
+        List<String> errors = Files.readAllLines(Path.of(result.getErrorFile()));
+        assertEquals(4, errors.size());
+        assertTrue(errors.get(1).startsWith("2,\"9780441172719\",\"Duplicate ISBN"));
+        assertTrue(errors.get(2).contains("Title is required"));
+        assertTrue(errors.get(3).startsWith("4,,\"Malformed JSON"));
+    }
+
+    @Test
+    void importBooks_WhenBatchFails_ShouldRetryRowsIndividually() throws Exception {
+        String csv = """
+                title,author,publicationDate,isbn
+                Dune,Frank Herbert,1965-08-01,9780441172719
+                Neuromancer,William Gibson,1984-07-01,9780441569595
+                """;
+        ArgumentCaptor<List<BookDTO>> captor = ArgumentCaptor.captor();
+        doThrow(new DataIntegrityViolationException("batch failed"))
+                .doNothing()
+                .doThrow(new DataIntegrityViolationException("value too long"))
+                .when(bookImportRepository).upsertAll(captor.capture());
+
+        BookImportResultDTO result = bookImportService.importBooks(stream(csv), BookImportService.Format.CSV);
+
+        assertEquals(1, result.getImportedRows());
+        assertEquals(1, result.getFailedRows());
+        verify(bookImportRepository, times(3)).upsertAll(anyList());
+        assertTrue(Files.readString(Path.of(result.getErrorFile())).contains("value too long"));
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
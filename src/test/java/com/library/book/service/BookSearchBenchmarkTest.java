@@ -0,0 +1,105 @@
+package com.library.book.service;
+
+import com.library.book.dto.BookDTO;
+import com.library.book.enums.BookStatus;
+import com.library.book.repository.BookImportRepository;
+import com.library.book.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Latency check for book search on a generated catalog. Needs a real Postgres, so it only runs when
+ * pointed at one: mvn test -Dtest=BookSearchBenchmarkTest -Dbenchmark.datasource.url=jdbc:postgresql://localhost:5432/library
+ * Optional: -Dbenchmark.books (default 1000000), -Dbenchmark.p99-millis (default 50).
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark.datasource.url", matches = ".+")
+class BookSearchBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSearchBenchmarkTest.class);
+
+    private static final String[] WORDS = {
+            "river", "shadow", "empire", "garden", "winter", "silver", "memory", "ocean", "forest", "engine",
+            "history", "machine", "stone", "light", "harbor", "signal", "kingdom", "storm", "paper", "island"
+    };
+    private static final String[] AUTHORS = {
+            "Adams", "Baker", "Clarke", "Dickens", "Eliot", "Fowler", "Gibson", "Herbert", "Ishiguro", "Jemisin"
+    };
+    private static final int QUERIES = 2_000;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookImportRepository bookImportRepository;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getProperty("benchmark.datasource.url"));
+    }
+
+    @Test
+    void searchBooks_OnGeneratedCatalog_ShouldMeetLatencyTarget() {
+        long books = Long.getLong("benchmark.books", 1_000_000);
+        long p99Target = Long.getLong("benchmark.p99-millis", 50);
+        Random random = new Random(42);
+        seed(books, random);
+
+        long[] latencies = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String query = i % 2 == 0
+                    ? WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)].substring(0, 3)
+                    : AUTHORS[random.nextInt(AUTHORS.length)].substring(0, 4);
+            BookStatus status = i % 3 == 0 ? BookStatus.AVAILABLE : null;
+            long startedAt = System.nanoTime();
+            bookService.searchBooks(query, status, BookService.DEFAULT_SEARCH_LIMIT);
+            latencies[i] = System.nanoTime() - startedAt;
+        }
+        Arrays.sort(latencies);
+
+        double p50 = latencies[QUERIES / 2] / 1_000_000.0;
+        double p99 = latencies[(int) (QUERIES * 0.99)] / 1_000_000.0;
+        log.info("Book search over {} books: p50={}ms p99={}ms", bookRepository.count(),
+                String.format("%.2f", p50), String.format("%.2f", p99));
+        assertTrue(p99 <= p99Target, "p99 " + p99 + "ms exceeds target " + p99Target + "ms");
+    }
+
+    private void seed(long books, Random random) {
+        long existing = bookRepository.count();
+        List<BookDTO> batch = new ArrayList<>(5_000);
+        for (long i = existing; i < books; i++) {
+            BookDTO book = new BookDTO(
+                    WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i,
+                    AUTHORS[random.nextInt(AUTHORS.length)],
+                    LocalDate.of(1900 + random.nextInt(120), 1, 1),
+                    String.format("9%012d", i),
+                    random.nextBoolean() ? BookStatus.AVAILABLE.name() : BookStatus.BORROWED.name());
+            book.setDescription(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]);
+            batch.add(book);
+            if (batch.size() == 5_000) {
+                bookImportRepository.upsertAll(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            bookImportRepository.upsertAll(batch);
+        }
+    }
+}
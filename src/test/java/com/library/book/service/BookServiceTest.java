@@ -1,9 +1,17 @@
 package com.library.book.service;
 
+import com.library.book.dto.BookAvailabilityDTO;
 import com.library.book.dto.BookDTO;
+import com.library.book.dto.BookPageDTO;
+import com.library.book.dto.BookSuggestionDTO;
 import com.library.book.entity.Book;
+import com.library.book.entity.BookCopy;
 import com.library.book.enums.BookStatus;
+import com.library.book.repository.BookCopyRepository;
 import com.library.book.repository.BookRepository;
+import com.library.exception.InvalidRequestException;
+import com.library.outbox.enums.OutboxEventType;
+import com.library.outbox.service.OutboxWriter;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -13,9 +21,12 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,25 +36,206 @@ class BookServiceTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private BookCopyRepository bookCopyRepository;
+
+    @Mock
+    private BookCatalogIndex bookCatalogIndex;
+
+    @Mock
+    private BookAvailabilityIndex bookAvailabilityIndex;
+
+    @Mock
+    private BookCopyCounters bookCopyCounters;
+
+    @Mock
+    private OutboxWriter outboxWriter;
+
     @InjectMocks
     private BookService bookService;
 
     @Test
-    void getAllBooks_ShouldReturnListOfBookDTOs() {
+    void getAllBooks_ShouldReturnPageOfBookDTOs() {
         // Arrange
         Book book1 = new Book("Book 1", "Author 1", LocalDate.now(), "ISBN-1", "Description 1", BookStatus.AVAILABLE);
         Book book2 = new Book("Book 2", "Author 2", LocalDate.now(), "ISBN-2", "Description 2", BookStatus.BORROWED);
         List<Book> books = Arrays.asList(book1, book2);
 
-        Mockito.when(bookRepository.findAll()).thenReturn(books);
+        Mockito.when(bookRepository.findPageAfter(0L, Limit.of(BookService.DEFAULT_PAGE_SIZE + 1))).thenReturn(books);
+
+        // Act
+        BookPageDTO result = bookService.getAllBooks(null, null, null, null);
+
+        // Assert
+        Assertions.assertEquals(2, result.getSize());
+        Assertions.assertEquals("Book 1", result.getItems().get(0).getTitle());
+        Assertions.assertEquals("Book 2", result.getItems().get(1).getTitle());
+        Assertions.assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void getAllBooks_WhenMoreRowsThanPageSize_ShouldReturnCursorResumingAfterLastId() {
+        // Arrange
+        Book book1 = new Book("Book 1", "Author 1", LocalDate.now(), "ISBN-1", "Description 1", BookStatus.AVAILABLE);
+        book1.setId(10L);
+        Book book2 = new Book("Book 2", "Author 1", LocalDate.now(), "ISBN-2", "Description 2", BookStatus.AVAILABLE);
+        book2.setId(11L);
+        Mockito.when(bookRepository.findPageAfterByStatusAndAuthor(0L, BookStatus.AVAILABLE, "Author 1", Limit.of(2)))
+                .thenReturn(Arrays.asList(book1, book2));
+        Mockito.when(bookRepository.findPageAfterByStatusAndAuthor(10L, BookStatus.AVAILABLE, "Author 1", Limit.of(2)))
+                .thenReturn(List.of(book2));
+
+        // Act
+        BookPageDTO first = bookService.getAllBooks(null, 1, BookStatus.AVAILABLE, "Author 1");
+        BookPageDTO second = bookService.getAllBooks(first.getNextCursor(), 1, BookStatus.AVAILABLE, "Author 1");
+
+        // Assert
+        Assertions.assertEquals(1, first.getSize());
+        Assertions.assertNotNull(first.getNextCursor());
+        Assertions.assertEquals(11L, second.getItems().get(0).getId());
+        Assertions.assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void getAllBooks_ByAuthorOnly_ShouldUseTheAuthorQuery() {
+        // Arrange
+        Book book = new Book("Book 1", "Author 1", LocalDate.now(), "ISBN-1", "Description 1", BookStatus.BORROWED);
+        Mockito.when(bookRepository.findPageAfterByAuthor(0L, "Author 1", Limit.of(BookService.DEFAULT_PAGE_SIZE + 1)))
+                .thenReturn(List.of(book));
+
+        // Act
+        BookPageDTO result = bookService.getAllBooks(null, null, null, "Author 1");
+
+        // Assert
+        Assertions.assertEquals(1, result.getSize());
+        Mockito.verify(bookRepository, Mockito.never()).findPageAfter(Mockito.anyLong(), Mockito.any());
+    }
+
+    @Test
+    void streamBooks_ShouldReadKeysetPagesUntilAShortPage() {
+        // Arrange
+        List<Book> firstPage = new ArrayList<>();
+        for (long id = 1; id <= BookService.STREAM_PAGE_SIZE; id++) {
+            Book book = new Book("Book " + id, "Author 1", LocalDate.now(), "ISBN-" + id, null, BookStatus.AVAILABLE);
+            book.setId(id);
+            firstPage.add(book);
+        }
+        Book last = new Book("Last", "Author 1", LocalDate.now(), "ISBN-LAST", null, BookStatus.AVAILABLE);
+        last.setId(900L);
+        Mockito.when(bookRepository.findPageAfterByStatus(0L, BookStatus.AVAILABLE, Limit.of(BookService.STREAM_PAGE_SIZE)))
+                .thenReturn(firstPage);
+        Mockito.when(bookRepository.findPageAfterByStatus((long) BookService.STREAM_PAGE_SIZE, BookStatus.AVAILABLE, Limit.of(BookService.STREAM_PAGE_SIZE)))
+                .thenReturn(List.of(last));
+
+        // Act
+        List<BookDTO> streamed = new ArrayList<>();
+        bookService.streamBooks(BookStatus.AVAILABLE, null, streamed::add);
+
+        // Assert
+        Assertions.assertEquals(BookService.STREAM_PAGE_SIZE + 1, streamed.size());
+        Assertions.assertEquals(900L, streamed.get(streamed.size() - 1).getId());
+        Mockito.verify(bookRepository, Mockito.times(2)).findPageAfterByStatus(Mockito.anyLong(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void getAllBooks_WhenCursorIsMalformed_ShouldThrowInvalidRequestException() {
+        // Act & Assert
+        Assertions.assertThrows(InvalidRequestException.class, () -> bookService.getAllBooks("not-a-cursor", null, null, null));
+    }
+
+    @Test
+    void getAllBooks_WhenPageSizeExceedsLimit_ShouldThrowInvalidRequestException() {
+        // Act & Assert
+        Assertions.assertThrows(InvalidRequestException.class,
+                () -> bookService.getAllBooks(null, BookService.MAX_PAGE_SIZE + 1, null, null));
+    }
+
+    @Test
+    void searchBooks_ShouldMatchLastWordAsPrefixAndFilterByStatus() {
+        // Arrange
+        Book book = new Book("Dune Messiah", "Frank Herbert", LocalDate.now(), "9780441172696", "Description", BookStatus.AVAILABLE);
+        Mockito.when(bookRepository.search("frank & herb:*", null, "AVAILABLE", BookService.DEFAULT_SEARCH_LIMIT))
+                .thenReturn(List.of(book));
+
+        // Act
+        List<BookDTO> result = bookService.searchBooks("Frank herb", BookStatus.AVAILABLE, null);
+
+        // Assert
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertEquals("Dune Messiah", result.get(0).getTitle());
+    }
+
+    @Test
+    void searchBooks_WhenQueryLooksLikeIsbn_ShouldAlsoMatchIsbnPrefix() {
+        // Arrange
+        Mockito.when(bookRepository.search("978044:*", "978044%", null, 5)).thenReturn(List.of());
+
+        // Act
+        List<BookDTO> result = bookService.searchBooks("978044", null, 5);
+
+        // Assert
+        Assertions.assertTrue(result.isEmpty());
+        Mockito.verify(bookRepository).search("978044:*", "978044%", null, 5);
+    }
+
+    @Test
+    void suggestBooks_WhenCatalogIndexIsReady_ShouldNotQueryTheDatabase() {
+        // Arrange
+        BookSuggestionDTO suggestion = new BookSuggestionDTO(1L, "Dune", "Frank Herbert", "9780441172719", "AVAILABLE");
+        Mockito.when(bookCatalogIndex.isReady()).thenReturn(true);
+        Mockito.when(bookCatalogIndex.suggest("dun", BookStatus.AVAILABLE, BookService.DEFAULT_SEARCH_LIMIT))
+                .thenReturn(List.of(suggestion));
+
+        // Act
+        List<BookSuggestionDTO> result = bookService.suggestBooks("dun", BookStatus.AVAILABLE, null);
+
+        // Assert
+        Assertions.assertEquals(List.of(suggestion), result);
+        Mockito.verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void getAvailability_WhenIndexIsReady_ShouldOnlyQueryIdsItCannotAnswer() {
+        // Arrange
+        long outOfRange = 1L << 40;
+        Mockito.when(bookAvailabilityIndex.isReady()).thenReturn(true);
+        Mockito.when(bookAvailabilityIndex.classify(Mockito.anyCollection(), Mockito.any())).thenAnswer(invocation -> {
+            BookAvailabilityDTO result = invocation.getArgument(1);
+            result.getAvailable().add(1L);
+            result.getNotFound().add(2L);
+            return List.of(outOfRange);
+        });
+        Mockito.when(bookRepository.findStatuses(List.of(outOfRange)))
+                .thenReturn(Collections.singletonList(new Object[]{outOfRange, BookStatus.LOST}));
+
+        // Act
+        BookAvailabilityDTO result = bookService.getAvailability(List.of(1L, 2L, outOfRange, 1L));
+
+        // Assert
+        Assertions.assertEquals(List.of(1L), result.getAvailable());
+        Assertions.assertEquals(List.of(outOfRange), result.getUnavailable());
+        Assertions.assertEquals(List.of(2L), result.getNotFound());
+    }
+
+    @Test
+    void getAvailability_WhenIndexIsNotReady_ShouldQueryAllIdsAtOnce() {
+        // Arrange
+        Mockito.when(bookRepository.findStatuses(Mockito.anyCollection()))
+                .thenReturn(Collections.singletonList(new Object[]{3L, BookStatus.AVAILABLE}));
 
         // Act
-        List<BookDTO> result = bookService.getAllBooks();
+        BookAvailabilityDTO result = bookService.getAvailability(List.of(3L, 4L));
 
         // Assert
-        Assertions.assertEquals(2, result.size());
-        Assertions.assertEquals("Book 1", result.get(0).getTitle());
-        Assertions.assertEquals("Book 2", result.get(1).getTitle());
+        Assertions.assertEquals(List.of(3L), result.getAvailable());
+        Assertions.assertEquals(List.of(4L), result.getNotFound());
+        Assertions.assertThrows(InvalidRequestException.class, () -> bookService.getAvailability(List.of()));
+    }
+
+    @Test
+    void toPrefixTsQuery_ShouldDropTsQueryOperatorsFromInput() {
+        Assertions.assertEquals("war & peace:*", BookService.toPrefixTsQuery("War & (Peace"));
+        Assertions.assertEquals("", BookService.toPrefixTsQuery("!:*|"));
     }
 
     @Test
@@ -88,6 +280,26 @@ class BookServiceTest {
         Assertions.assertEquals(bookDTO.getIsbn(), result.getIsbn());
     }
 
+    @Test
+    void createBook_ShouldRegisterTheRequestedCopiesOnTheShelf() {
+        // Arrange
+        BookDTO bookDTO = new BookDTO("Book 1", "Author 1", LocalDate.now(), "ISBN-1", "BORROWED");
+        bookDTO.setTotalCopies(3);
+        Mockito.when(bookRepository.existsByIsbn(bookDTO.getIsbn())).thenReturn(false);
+        Mockito.when(bookRepository.save(Mockito.any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        BookDTO result = bookService.createBook(bookDTO);
+
+        // Assert
+        Assertions.assertEquals(3, result.getTotalCopies());
+        Assertions.assertEquals(3, result.getAvailableCopies());
+        // Without a loan the title cannot start out borrowed
+        Assertions.assertEquals("AVAILABLE", result.getStatus());
+        Mockito.verify(bookCopyRepository).saveAll(Mockito.<List<BookCopy>>argThat(copies -> copies.size() == 3
+                && copies.stream().allMatch(copy -> copy.getStatus() == BookStatus.AVAILABLE)));
+    }
+
     @Test
     void createBook_WhenISBNIsNotUnique_ShouldThrowDataIntegrityViolationException() {
         // Arrange
@@ -119,6 +331,7 @@ class BookServiceTest {
         // Assert
         Assertions.assertEquals(bookDTO.getTitle(), result.getTitle());
         Assertions.assertEquals(bookDTO.getStatus(), result.getStatus());
+        Mockito.verify(outboxWriter).record(OutboxEventType.BOOK_UPDATED, bookId, result);
     }
 
     @Test
@@ -0,0 +1,35 @@
+package com.library.borrowing.service;
+
+import com.library.borrowing.repository.BorrowingRecordRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BorrowingPartitionMaintainerTest {
+
+    @Mock
+    private BorrowingRecordRepository borrowingRecordRepository;
+
+    @Test
+    void createUpcomingPartitions_ShouldEnsureCurrentAndNextMonthsAndCountNewOnes() {
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        when(borrowingRecordRepository.createPartition(any())).thenReturn(false);
+        when(borrowingRecordRepository.createPartition(month.plusMonths(2))).thenReturn(true);
+
+        int created = new BorrowingPartitionMaintainer(borrowingRecordRepository, 2).createUpcomingPartitions();
+
+        assertEquals(1, created);
+        verify(borrowingRecordRepository).createPartition(month);
+        verify(borrowingRecordRepository).createPartition(month.plusMonths(1));
+        verify(borrowingRecordRepository).createPartition(month.plusMonths(2));
+        verifyNoMoreInteractions(borrowingRecordRepository);
+    }
+}
@@ -0,0 +1,156 @@
+package com.library.borrowing.service;
+
+import com.library.book.dto.BookDTO;
+import com.library.book.entity.Book;
+import com.library.book.enums.BookStatus;
+import com.library.book.repository.BookCopyRepository;
+import com.library.book.repository.BookRepository;
+import com.library.book.service.BookService;
+import com.library.borrowing.entity.BorrowingRecord;
+import com.library.borrowing.repository.BorrowingRecordRepository;
+import com.library.patron.entity.Patron;
+import com.library.patron.repository.PatronRepository;
+import com.library.user.Role;
+import com.library.user.User;
+import com.library.user.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Patrons racing for a few titles. The default suite runs a small smoke load; raise it to measure throughput:
+ * mvn test -Dtest=BorrowingRecordServiceContentionTest -Dcontention.patrons=32 -Dcontention.attempts=20
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class BorrowingRecordServiceContentionTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BorrowingRecordServiceContentionTest.class);
+
+    private static final int BOOKS = Integer.getInteger("contention.books", 3);
+    private static final int COPIES_PER_BOOK = 3;
+    private static final int PATRONS = Integer.getInteger("contention.patrons", 8);
+    private static final int ATTEMPTS_PER_PATRON = Integer.getInteger("contention.attempts", 5);
+
+    @Autowired
+    private BorrowingRecordService borrowingRecordService;
+
+    @Autowired
+    private BorrowingRecordRepository borrowingRecordRepository;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCopyRepository bookCopyRepository;
+
+    @Autowired
+    private PatronRepository patronRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<Long> bookIds = new ArrayList<>();
+    private final List<Long> patronIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        borrowingRecordRepository.deleteAll();
+        patronRepository.deleteAll();
+        userRepository.deleteAll();
+        bookCopyRepository.deleteAll();
+        bookRepository.deleteAll();
+
+        for (int i = 0; i < BOOKS; i++) {
+            BookDTO book = new BookDTO("Book " + i, "Author", LocalDate.now(), String.format("%013d", i), "AVAILABLE");
+            book.setTotalCopies(COPIES_PER_BOOK);
+            bookIds.add(bookService.createBook(book).getId());
+        }
+        for (int i = 0; i < PATRONS; i++) {
+            User user = new User();
+            user.setUsername("patron" + i);
+            user.setPassword("password");
+            user.setRole(Role.PATRON);
+            Patron patron = new Patron("Patron " + i, "patron" + i + "@example.com", null, null);
+            patron.setUser(userRepository.save(user));
+            patronIds.add(patronRepository.save(patron).getId());
+        }
+    }
+
+    @Test
+    void borrowBook_WhenPatronsRaceForTheSameTitles_ShouldNeverLendACopyTwice() throws Exception {
+        AtomicInteger loans = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(PATRONS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (Long patronId : patronIds) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_PATRON; i++) {
+                    Long bookId = bookIds.get(ThreadLocalRandom.current().nextInt(BOOKS));
+                    try {
+                        borrowingRecordService.borrowBook(bookId, patronId);
+                        loans.incrementAndGet();
+                        borrowingRecordService.returnBook(bookId, patronId);
+                    } catch (IllegalStateException | ConcurrencyFailureException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        executor.shutdown();
+
+        List<BorrowingRecord> records = borrowingRecordRepository.findAll();
+        assertEquals(loans.get(), records.size());
+        assertEquals(PATRONS * ATTEMPTS_PER_PATRON, loans.get() + rejected.get());
+        assertTrue(records.stream().allMatch(record -> record.getReturnDate() != null));
+
+        // No two loans of the same copy may overlap in time
+        Map<Long, List<BorrowingRecord>> byCopy = records.stream()
+                .collect(Collectors.groupingBy(record -> record.getCopy().getId()));
+        byCopy.values().forEach(loansOfCopy -> {
+            loansOfCopy.sort((a, b) -> a.getBorrowDate().compareTo(b.getBorrowDate()));
+            for (int i = 1; i < loansOfCopy.size(); i++) {
+                assertFalse(loansOfCopy.get(i).getBorrowDate().isBefore(loansOfCopy.get(i - 1).getReturnDate()));
+            }
+        });
+        // Every copy is back on the shelf and the counters agree
+        assertTrue(bookCopyRepository.findAll().stream().allMatch(copy -> copy.getStatus() == BookStatus.AVAILABLE));
+        for (Book book : bookRepository.findAll()) {
+            assertEquals(BookStatus.AVAILABLE, book.getStatus());
+            assertEquals(COPIES_PER_BOOK, book.getAvailableCopies());
+        }
+
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        log.info("Borrow contention: {} threads, {} loans, {} rejected, {} borrow attempts/s",
+                PATRONS, loans.get(), rejected.get(), Math.round(PATRONS * ATTEMPTS_PER_PATRON / seconds));
+    }
+}
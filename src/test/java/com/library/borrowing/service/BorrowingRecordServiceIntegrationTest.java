@@ -0,0 +1,182 @@
+package com.library.borrowing.service;
+
+import com.library.book.dto.BookCopyDTO;
+import com.library.book.dto.BookDTO;
+import com.library.book.entity.Book;
+import com.library.book.enums.BookStatus;
+import com.library.book.repository.BookCopyRepository;
+import com.library.book.repository.BookRepository;
+import com.library.book.service.BookCopyService;
+import com.library.book.service.BookService;
+import com.library.borrowing.dto.BorrowingItemDTO;
+import com.library.borrowing.dto.BorrowingItemResultDTO;
+import com.library.borrowing.entity.BorrowingRecord;
+import com.library.borrowing.repository.BorrowingRecordRepository;
+import com.library.hold.dto.HoldDTO;
+import com.library.hold.entity.Hold;
+import com.library.hold.repository.HoldRepository;
+import com.library.hold.service.HoldService;
+import com.library.patron.entity.Patron;
+import com.library.patron.repository.PatronRepository;
+import com.library.user.Role;
+import com.library.user.User;
+import com.library.user.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class BorrowingRecordServiceIntegrationTest {
+
+    @Autowired
+    private BorrowingRecordService borrowingRecordService;
+
+    @Autowired
+    private BorrowingRecordRepository borrowingRecordRepository;
+
+    @Autowired
+    private HoldService holdService;
+
+    @Autowired
+    private HoldRepository holdRepository;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookCopyService bookCopyService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCopyRepository bookCopyRepository;
+
+    @Autowired
+    private PatronRepository patronRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        holdRepository.deleteAll();
+        borrowingRecordRepository.deleteAll();
+        patronRepository.deleteAll();
+        userRepository.deleteAll();
+        bookCopyRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    void returnBooks_WhenALaterTitleHasAWaitingHold_ShouldLendItsCopyToTheHolder() {
+        Long first = createBook("0000000000001");
+        Long second = createBook("0000000000002");
+        Long borrower = createPatron("borrower");
+        Long holder = createPatron("holder");
+        borrowingRecordService.borrowBook(first, borrower);
+        borrowingRecordService.borrowBook(second, borrower);
+        holdService.placeHold(second, holder);
+
+        List<BorrowingItemResultDTO> results = borrowingRecordService.returnBooks(List.of(
+                new BorrowingItemDTO(first, borrower),
+                new BorrowingItemDTO(second, borrower)));
+
+        assertTrue(results.stream().allMatch(BorrowingItemResultDTO::isSuccess));
+        BorrowingRecord handedOver = borrowingRecordRepository
+                .findByBookIdAndPatronIdAndReturnDateIsNull(second, holder).orElseThrow();
+        assertEquals(BookStatus.BORROWED, bookCopyRepository.findById(handedOver.getCopy().getId()).orElseThrow().getStatus());
+        Book firstBook = bookRepository.findById(first).orElseThrow();
+        assertEquals(1, firstBook.getAvailableCopies());
+        assertEquals(BookStatus.AVAILABLE, firstBook.getStatus());
+        assertEquals(0, bookRepository.findById(second).orElseThrow().getAvailableCopies());
+    }
+
+    @Test
+    void addCopies_WhenPatronsAreWaiting_ShouldLendThemTheNewCopiesBeforeShelvingAny() {
+        Long bookId = createBook("0000000000003");
+        Long borrower = createPatron("borrower");
+        Long holder = createPatron("holder");
+        borrowingRecordService.borrowBook(bookId, borrower);
+        holdService.placeHold(bookId, holder);
+
+        List<BookCopyDTO> added = bookCopyService.addCopies(bookId, 2);
+
+        assertEquals(List.of("BORROWED", "AVAILABLE"), added.stream().map(BookCopyDTO::getStatus).toList());
+        BorrowingRecord handedOver = borrowingRecordRepository
+                .findByBookIdAndPatronIdAndReturnDateIsNull(bookId, holder).orElseThrow();
+        assertEquals(added.get(0).getId(), handedOver.getCopy().getId());
+        assertTrue(holdService.getQueue(bookId).isEmpty());
+        Book book = bookRepository.findById(bookId).orElseThrow();
+        assertEquals(3, book.getTotalCopies());
+        assertEquals(1, book.getAvailableCopies());
+    }
+
+    @Test
+    void updateCopyStatus_WhenACopyIsBackFromMaintenanceWhilePatronsWait_ShouldLendItToTheHeadOfTheQueue() {
+        Long bookId = createBook("0000000000004", 2);
+        Long borrower = createPatron("borrower");
+        Long first = createPatron("first");
+        Long second = createPatron("second");
+        Long copyId = bookCopyRepository.findByBookIdOrderById(bookId).get(0).getId();
+        bookCopyService.updateCopyStatus(bookId, copyId, BookStatus.UNDER_MAINTENANCE);
+        borrowingRecordService.borrowBook(bookId, borrower);
+        holdService.placeHold(bookId, first);
+        holdService.placeHold(bookId, second);
+
+        BookCopyDTO restored = bookCopyService.updateCopyStatus(bookId, copyId, BookStatus.AVAILABLE);
+
+        assertEquals("BORROWED", restored.getStatus());
+        assertEquals(BookStatus.BORROWED, bookCopyRepository.findById(copyId).orElseThrow().getStatus());
+        assertEquals(copyId, borrowingRecordRepository
+                .findByBookIdAndPatronIdAndReturnDateIsNull(bookId, first).orElseThrow().getCopy().getId());
+        assertEquals(List.of(second), holdService.getQueue(bookId).stream().map(HoldDTO::getPatronId).toList());
+        Book book = bookRepository.findById(bookId).orElseThrow();
+        assertEquals(0, book.getAvailableCopies());
+        assertEquals(BookStatus.BORROWED, book.getStatus());
+    }
+
+    @Test
+    void borrowBook_WhenPatronsAreWaitingForAFreeCopy_ShouldLeaveItToThem() {
+        Long bookId = createBook("0000000000005");
+        Long holder = createPatron("holder");
+        Long walkIn = createPatron("walkin");
+        // A queue next to a free copy, as holds written before copies were handed over on every path could leave it
+        holdRepository.save(new Hold(bookRepository.findById(bookId).orElseThrow(),
+                patronRepository.findById(holder).orElseThrow(), LocalDateTime.now()));
+
+        assertThrows(IllegalStateException.class, () -> borrowingRecordService.borrowBook(bookId, walkIn));
+        List<BorrowingItemResultDTO> results = borrowingRecordService.borrowBooks(List.of(new BorrowingItemDTO(bookId, walkIn)));
+        assertFalse(results.get(0).isSuccess());
+        assertEquals(1, bookRepository.findById(bookId).orElseThrow().getAvailableCopies());
+    }
+
+    private Long createBook(String isbn) {
+        return createBook(isbn, 1);
+    }
+
+    private Long createBook(String isbn, int copies) {
+        BookDTO book = new BookDTO("Book " + isbn, "Author", LocalDate.now(), isbn, "AVAILABLE");
+        book.setTotalCopies(copies);
+        return bookService.createBook(book).getId();
+    }
+
+    private Long createPatron(String name) {
+        User user = new User();
+        user.setUsername(name);
+        user.setPassword("password");
+        user.setRole(Role.PATRON);
+        Patron patron = new Patron(name, name + "@example.com", null, null);
+        patron.setUser(userRepository.save(user));
+        return patronRepository.save(patron).getId();
+    }
+}
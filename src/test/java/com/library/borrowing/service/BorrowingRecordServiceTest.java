@@ -1,25 +1,47 @@
 package com.library.borrowing.service;
 
 import com.library.book.entity.Book;
+import com.library.book.entity.BookCopy;
 import com.library.book.enums.BookStatus;
+import com.library.book.repository.BookCopyRepository;
 import com.library.book.repository.BookRepository;
+import com.library.book.service.BookAvailabilityIndex;
+import com.library.book.service.BookCatalogIndex;
+import com.library.book.service.BookCopyCounters;
+import com.library.borrowing.dto.BorrowingItemDTO;
+import com.library.borrowing.dto.BorrowingItemResultDTO;
 import com.library.borrowing.dto.BorrowingRecordDTO;
 import com.library.borrowing.entity.BorrowingRecord;
 import com.library.borrowing.repository.BorrowingRecordRepository;
+import com.library.hold.entity.Hold;
+import com.library.hold.service.HoldService;
+import com.library.outbox.enums.OutboxEventType;
+import com.library.outbox.service.OutboxWriter;
 import com.library.patron.entity.Patron;
 import com.library.patron.repository.PatronRepository;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.OptimisticLockingFailureException;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,10 +56,33 @@ class BorrowingRecordServiceTest {
     @Mock
     private PatronRepository patronRepository;
 
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private BookCatalogIndex bookCatalogIndex;
+
+    @Mock
+    private BookAvailabilityIndex bookAvailabilityIndex;
+
+    @Mock
+    private BookCopyRepository bookCopyRepository;
+
+    @Mock
+    private HoldService holdService;
+
+    @Mock
+    private OutboxWriter outboxWriter;
+
+    // Real counters: an unknown title always goes to the database
+    @Spy
+    private BookCopyCounters bookCopyCounters = new BookCopyCounters(Duration.ofMinutes(1));
+
     @InjectMocks
     private BorrowingRecordService borrowingRecordService;
 
     private Book book;
+    private BookCopy copy;
     private Patron patron;
     private BorrowingRecord borrowingRecord;
 
@@ -46,18 +91,24 @@ class BorrowingRecordServiceTest {
         book = new Book();
         book.setId(1L);
         book.setStatus(BookStatus.AVAILABLE);
+        book.setTotalCopies(1);
+        book.setAvailableCopies(1);
+
+        copy = new BookCopy(book, BookStatus.AVAILABLE);
+        copy.setId(10L);
 
         patron = new Patron();
         patron.setId(1L);
 
         borrowingRecord = new BorrowingRecord();
         borrowingRecord.setBook(book);
+        borrowingRecord.setCopy(copy);
         borrowingRecord.setPatron(patron);
     }
 
     @Test
-    void borrowBook_WhenBookNotFound_ShouldThrowEntityNotFoundException() {
-        when(bookRepository.findById(anyLong())).thenReturn(Optional.empty());
+    void borrowBook_WhenPatronNotFound_ShouldThrowEntityNotFoundException() {
+        when(patronRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class, () -> {
             borrowingRecordService.borrowBook(1L, 1L);
@@ -65,9 +116,10 @@ class BorrowingRecordServiceTest {
     }
 
     @Test
-    void borrowBook_WhenPatronNotFound_ShouldThrowEntityNotFoundException() {
-        when(bookRepository.findById(anyLong())).thenReturn(Optional.of(book));
-        when(patronRepository.findById(anyLong())).thenReturn(Optional.empty());
+    void borrowBook_WhenBookNotFound_ShouldThrowEntityNotFoundException() {
+        when(patronRepository.findById(anyLong())).thenReturn(Optional.of(patron));
+        when(bookCopyRepository.lockAvailable(eq(1L), anyInt())).thenReturn(List.of());
+        when(bookRepository.findById(1L)).thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class, () -> {
             borrowingRecordService.borrowBook(1L, 1L);
@@ -75,27 +127,97 @@ class BorrowingRecordServiceTest {
     }
 
     @Test
-    void borrowBook_WhenBookNotAvailable_ShouldThrowIllegalStateException() {
+    void borrowBook_WhenNoCopyIsFree_ShouldThrowIllegalStateException() {
         book.setStatus(BookStatus.BORROWED);
+        book.setAvailableCopies(0);
+        when(patronRepository.findById(anyLong())).thenReturn(Optional.of(patron));
+        when(bookCopyRepository.lockAvailable(eq(1L), anyInt())).thenReturn(List.of());
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+
+        assertThrows(IllegalStateException.class, () -> {
+            borrowingRecordService.borrowBook(1L, 1L);
+        });
+        verify(borrowingRecordRepository, never()).save(any());
+    }
+
+    @Test
+    void borrowBook_WhenEveryFreeCopyIsBeingLent_ShouldFailWithoutWaiting() {
+        when(patronRepository.findById(anyLong())).thenReturn(Optional.of(patron));
+        when(bookCopyRepository.lockAvailable(eq(1L), anyInt())).thenReturn(List.of());
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+
+        // Retried by @Retryable in a new transaction, instead of blocking on the other borrowers' locks
+        assertThrows(CannotAcquireLockException.class, () -> borrowingRecordService.borrowBook(1L, 1L));
+        verify(bookCopyRepository, never()).updateStatus(any(), any(), any());
+        verify(borrowingRecordRepository, never()).save(any());
+    }
 
-        when(bookRepository.findById(anyLong())).thenReturn(Optional.of(book));
+    @Test
+    void borrowBook_WhenPatronAlreadyHoldsACopy_ShouldThrowIllegalStateException() {
         when(patronRepository.findById(anyLong())).thenReturn(Optional.of(patron));
+        when(borrowingRecordRepository.existsByBookIdAndPatronIdAndReturnDateIsNull(1L, 1L)).thenReturn(true);
 
         assertThrows(IllegalStateException.class, () -> {
             borrowingRecordService.borrowBook(1L, 1L);
         });
+        verifyNoInteractions(bookCopyRepository);
     }
 
     @Test
-    void borrowBook_WhenBookAndPatronExistAndBookIsAvailable_ShouldReturnBorrowingRecordDTO() {
-        when(bookRepository.findById(anyLong())).thenReturn(Optional.of(book));
+    void borrowBook_WhenACopyIsFree_ShouldClaimItAndDecrementTheCounter() {
         when(patronRepository.findById(anyLong())).thenReturn(Optional.of(patron));
-        when(borrowingRecordRepository.save(any(BorrowingRecord.class))).thenReturn(borrowingRecord);
+        when(bookCopyRepository.lockAvailable(eq(1L), anyInt())).thenReturn(List.of(copy));
+        when(bookCopyRepository.updateStatus(List.of(10L), BookStatus.AVAILABLE, BookStatus.BORROWED)).thenReturn(1);
+        when(borrowingRecordRepository.save(any(BorrowingRecord.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(bookRepository.allocateCopies(1L, 1)).thenReturn(1);
+        when(bookRepository.findAllById(List.of(1L))).thenReturn(List.of(book));
 
         BorrowingRecordDTO result = borrowingRecordService.borrowBook(1L, 1L);
 
-        assertNotNull(result);
-        assertEquals(BookStatus.BORROWED, book.getStatus());
+        assertEquals(1L, result.getBookId());
+        assertEquals(10L, result.getCopyId());
+        verify(bookAvailabilityIndex).put(book);
+        // The event is written before the title's row is locked by the counter update
+        InOrder writes = inOrder(outboxWriter, bookRepository);
+        writes.verify(outboxWriter).record(OutboxEventType.BOOK_BORROWED, 1L, result);
+        writes.verify(bookRepository).allocateCopies(1L, 1);
+    }
+
+    @Test
+    void borrowBook_WhenTheCopyWasTakenConcurrently_ShouldFailForARetry() {
+        when(patronRepository.findById(anyLong())).thenReturn(Optional.of(patron));
+        when(bookCopyRepository.lockAvailable(eq(1L), anyInt())).thenReturn(List.of(copy));
+        when(bookCopyRepository.updateStatus(List.of(10L), BookStatus.AVAILABLE, BookStatus.BORROWED)).thenReturn(0);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> {
+            borrowingRecordService.borrowBook(1L, 1L);
+        });
+        verify(bookRepository, never()).allocateCopies(anyLong(), anyInt());
+    }
+
+    @Test
+    void borrowBook_WhenTitleIsWithdrawn_ShouldThrowIllegalStateException() {
+        when(patronRepository.findById(anyLong())).thenReturn(Optional.of(patron));
+        when(bookCopyRepository.lockAvailable(eq(1L), anyInt())).thenReturn(List.of(copy));
+        when(bookCopyRepository.updateStatus(List.of(10L), BookStatus.AVAILABLE, BookStatus.BORROWED)).thenReturn(1);
+        when(borrowingRecordRepository.save(any(BorrowingRecord.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(bookRepository.allocateCopies(1L, 1)).thenReturn(0);
+
+        assertThrows(IllegalStateException.class, () -> {
+            borrowingRecordService.borrowBook(1L, 1L);
+        });
+    }
+
+    @Test
+    void borrowBook_WhenTheCountersShowNoFreeCopy_ShouldNotQueryTheDatabase() {
+        book.setStatus(BookStatus.BORROWED);
+        book.setAvailableCopies(0);
+        bookCopyCounters.put(book);
+
+        assertThrows(IllegalStateException.class, () -> {
+            borrowingRecordService.borrowBook(1L, 1L);
+        });
+        verifyNoInteractions(patronRepository, bookCopyRepository, borrowingRecordRepository);
     }
 
     @Test
@@ -109,15 +231,216 @@ class BorrowingRecordServiceTest {
     }
 
     @Test
-    void returnBook_WhenActiveBorrowingRecordExists_ShouldReturnBorrowingRecordDTO() {
+    void returnBook_WhenActiveBorrowingRecordExists_ShouldShelveTheCopy() {
+        copy.setStatus(BookStatus.BORROWED);
         when(borrowingRecordRepository.findByBookIdAndPatronIdAndReturnDateIsNull(anyLong(), anyLong()))
                 .thenReturn(Optional.of(borrowingRecord));
         when(borrowingRecordRepository.save(any(BorrowingRecord.class))).thenReturn(borrowingRecord);
+        when(bookCopyRepository.lockAllById(List.of(10L))).thenReturn(List.of(copy));
 
         BorrowingRecordDTO result = borrowingRecordService.returnBook(1L, 1L);
 
         assertNotNull(result);
         assertNotNull(result.getReturnDate());
-        assertEquals(BookStatus.AVAILABLE, borrowingRecord.getBook().getStatus());
+        verify(bookCopyRepository).updateStatus(List.of(10L), BookStatus.BORROWED, BookStatus.AVAILABLE);
+        verify(bookRepository).adjustCopies(List.of(1L), 0, 1);
+        verify(holdService, never()).claimNext(anyLong(), anyInt());
+    }
+
+    @Test
+    void returnBook_WhenTheCopyIsAlreadyOnTheShelf_ShouldLeaveTheCounterAlone() {
+        when(borrowingRecordRepository.findByBookIdAndPatronIdAndReturnDateIsNull(anyLong(), anyLong()))
+                .thenReturn(Optional.of(borrowingRecord));
+        when(borrowingRecordRepository.save(any(BorrowingRecord.class))).thenReturn(borrowingRecord);
+        when(bookCopyRepository.lockAllById(List.of(10L))).thenReturn(List.of(copy));
+
+        borrowingRecordService.returnBook(1L, 1L);
+
+        verify(bookCopyRepository, never()).updateStatus(any(), any(), any());
+        verify(bookRepository, never()).adjustCopies(anyCollection(), anyInt(), anyInt());
+    }
+
+    @Test
+    void returnBook_WhenAPatronIsWaiting_ShouldLendTheCopyToThemInsteadOfShelvingIt() {
+        copy.setStatus(BookStatus.BORROWED);
+        Patron holder = new Patron();
+        holder.setId(2L);
+        Hold hold = new Hold(book, holder, LocalDateTime.now().minusDays(3));
+        when(borrowingRecordRepository.findByBookIdAndPatronIdAndReturnDateIsNull(anyLong(), anyLong()))
+                .thenReturn(Optional.of(borrowingRecord));
+        when(borrowingRecordRepository.save(any(BorrowingRecord.class))).thenReturn(borrowingRecord);
+        when(bookCopyRepository.lockAllById(List.of(10L))).thenReturn(List.of(copy));
+        when(holdService.findQueuedBooks(Set.of(1L))).thenReturn(Set.of(1L));
+        when(holdService.claimNext(1L, 1)).thenReturn(List.of(hold));
+
+        borrowingRecordService.returnBook(1L, 1L);
+
+        verify(borrowingRecordRepository).saveAll(argThat(loans -> {
+            BorrowingRecord loan = loans.iterator().next();
+            return loan.getCopy() == copy && loan.getPatron() == holder && loan.getReturnDate() == null;
+        }));
+        verify(holdService).fulfil(List.of(hold));
+        InOrder events = inOrder(outboxWriter);
+        events.verify(outboxWriter).record(eq(OutboxEventType.BOOK_RETURNED), eq(1L), argThat(dto -> dto instanceof BorrowingRecordDTO loan && loan.getPatronId() == 1L));
+        events.verify(outboxWriter).record(eq(OutboxEventType.BOOK_BORROWED), eq(1L), argThat(dto -> dto instanceof BorrowingRecordDTO loan && loan.getPatronId() == 2L));
+        verify(bookCopyRepository, never()).updateStatus(any(), any(), any());
+        verify(bookRepository, never()).adjustCopies(anyCollection(), anyInt(), anyInt());
+    }
+
+    @Test
+    void returnBook_WhenTheCopyIsNotMarkedAsLent_ShouldKeepThePatronWaiting() {
+        when(borrowingRecordRepository.findByBookIdAndPatronIdAndReturnDateIsNull(anyLong(), anyLong()))
+                .thenReturn(Optional.of(borrowingRecord));
+        when(borrowingRecordRepository.save(any(BorrowingRecord.class))).thenReturn(borrowingRecord);
+        when(bookCopyRepository.lockAllById(List.of(10L))).thenReturn(List.of(copy));
+        when(holdService.findQueuedBooks(Set.of(1L))).thenReturn(Set.of(1L));
+
+        borrowingRecordService.returnBook(1L, 1L);
+
+        verify(holdService, never()).claimNext(anyLong(), anyInt());
+        verify(holdService, never()).fulfil(any());
+        verify(bookCopyRepository, never()).updateStatus(any(), any(), any());
+    }
+
+    @Test
+    void borrowBooks_ShouldBorrowAvailableItemsAndReportFailuresPerItem() {
+        Patron otherPatron = new Patron();
+        otherPatron.setId(2L);
+
+        when(bookRepository.findStatuses(anyCollection())).thenReturn(List.of(
+                new Object[]{1L, BookStatus.AVAILABLE}, new Object[]{2L, BookStatus.BORROWED}));
+        when(patronRepository.findAllById(anyCollection())).thenReturn(List.of(patron, otherPatron));
+        // Two patrons ask for title 1 but only one copy is free
+        when(bookCopyRepository.lockAvailable(Set.of(1L), 2)).thenReturn(List.of(copy));
+        when(bookRepository.lockAllById(Set.of(1L))).thenReturn(List.of(book));
+        when(bookCopyRepository.updateStatus(List.of(10L), BookStatus.AVAILABLE, BookStatus.BORROWED)).thenReturn(1);
+        when(bookRepository.allocateCopies(List.of(1L), 1)).thenReturn(1);
+
+        List<BorrowingItemResultDTO> results = borrowingRecordService.borrowBooks(List.of(
+                new BorrowingItemDTO(1L, 1L),
+                new BorrowingItemDTO(1L, 1L),
+                new BorrowingItemDTO(2L, 1L),
+                new BorrowingItemDTO(3L, 1L),
+                new BorrowingItemDTO(1L, 9L),
+                new BorrowingItemDTO(1L, 2L)));
+
+        assertEquals(6, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(10L, results.get(0).getRecord().getCopyId());
+        assertFalse(results.get(1).isSuccess());
+        assertFalse(results.get(2).isSuccess());
+        assertFalse(results.get(3).isSuccess());
+        assertFalse(results.get(4).isSuccess());
+        assertFalse(results.get(5).isSuccess());
+        verify(borrowingRecordRepository, times(1)).saveAll(argThat(records -> records.spliterator().getExactSizeIfKnown() == 1));
+    }
+
+    @Test
+    void borrowBooks_WhenATitleIsWithdrawnMidBatch_ShouldFailOnlyItsItemsAndLeaveItsCopiesFree() {
+        Book otherBook = new Book();
+        otherBook.setId(2L);
+        // Title 2 was marked lost after its status was read
+        otherBook.setStatus(BookStatus.LOST);
+        BookCopy otherCopy = new BookCopy(otherBook, BookStatus.AVAILABLE);
+        otherCopy.setId(20L);
+        when(bookRepository.findStatuses(anyCollection())).thenReturn(List.of(
+                new Object[]{1L, BookStatus.AVAILABLE}, new Object[]{2L, BookStatus.AVAILABLE}));
+        when(patronRepository.findAllById(anyCollection())).thenReturn(List.of(patron));
+        when(bookCopyRepository.lockAvailable(Set.of(1L, 2L), 1)).thenReturn(List.of(copy, otherCopy));
+        when(bookRepository.lockAllById(Set.of(1L, 2L))).thenReturn(List.of(book, otherBook));
+        when(bookRepository.allocateCopies(List.of(1L), 1)).thenReturn(1);
+        when(bookCopyRepository.updateStatus(List.of(10L), BookStatus.AVAILABLE, BookStatus.BORROWED)).thenReturn(1);
+
+        List<BorrowingItemResultDTO> results = borrowingRecordService.borrowBooks(List.of(
+                new BorrowingItemDTO(1L, 1L),
+                new BorrowingItemDTO(2L, 1L)));
+
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        verify(bookCopyRepository).updateStatus(List.of(10L), BookStatus.AVAILABLE, BookStatus.BORROWED);
+        verify(borrowingRecordRepository).saveAll(argThat(records -> records.spliterator().getExactSizeIfKnown() == 1));
+        verify(outboxWriter, times(1)).record(eq(OutboxEventType.BOOK_BORROWED), anyLong(), any());
+    }
+
+    @Test
+    void borrowBooks_OfSeveralTitles_ShouldDecrementTheirCountersWithOneUpdate() {
+        Book otherBook = new Book();
+        otherBook.setId(2L);
+        otherBook.setStatus(BookStatus.AVAILABLE);
+        otherBook.setAvailableCopies(1);
+        BookCopy otherCopy = new BookCopy(otherBook, BookStatus.AVAILABLE);
+        otherCopy.setId(20L);
+        when(bookRepository.findStatuses(anyCollection())).thenReturn(List.of(
+                new Object[]{1L, BookStatus.AVAILABLE}, new Object[]{2L, BookStatus.AVAILABLE}));
+        when(patronRepository.findAllById(anyCollection())).thenReturn(List.of(patron));
+        when(bookCopyRepository.lockAvailable(Set.of(1L, 2L), 1)).thenReturn(List.of(copy, otherCopy));
+        when(bookRepository.lockAllById(Set.of(1L, 2L))).thenReturn(List.of(book, otherBook));
+        when(bookCopyRepository.updateStatus(anyCollection(), eq(BookStatus.AVAILABLE), eq(BookStatus.BORROWED))).thenReturn(2);
+        when(bookRepository.allocateCopies(List.of(1L, 2L), 1)).thenReturn(2);
+
+        List<BorrowingItemResultDTO> results = borrowingRecordService.borrowBooks(List.of(
+                new BorrowingItemDTO(2L, 1L),
+                new BorrowingItemDTO(1L, 1L)));
+
+        assertTrue(results.stream().allMatch(BorrowingItemResultDTO::isSuccess));
+        verify(bookCopyRepository, times(1)).updateStatus(anyCollection(), any(), any());
+        verify(bookRepository, times(1)).allocateCopies(anyCollection(), anyInt());
+    }
+
+    @Test
+    void borrowBooks_WhenACounterChangesUnderTheLock_ShouldRetryTheBatch() {
+        when(bookRepository.findStatuses(anyCollection())).thenReturn(List.<Object[]>of(new Object[]{1L, BookStatus.AVAILABLE}));
+        when(patronRepository.findAllById(anyCollection())).thenReturn(List.of(patron));
+        when(bookCopyRepository.lockAvailable(Set.of(1L), 1)).thenReturn(List.of(copy));
+        when(bookRepository.lockAllById(Set.of(1L))).thenReturn(List.of(book));
+        when(bookCopyRepository.updateStatus(List.of(10L), BookStatus.AVAILABLE, BookStatus.BORROWED)).thenReturn(1);
+        when(bookRepository.allocateCopies(List.of(1L), 1)).thenReturn(0);
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> borrowingRecordService.borrowBooks(List.of(new BorrowingItemDTO(1L, 1L))));
+        verify(borrowingRecordRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void returnBooks_ShouldReturnActiveRecordsAndReportFailuresPerItem() {
+        copy.setStatus(BookStatus.BORROWED);
+        when(borrowingRecordRepository.findActiveByBookIds(anyCollection())).thenReturn(List.of(borrowingRecord));
+        when(bookCopyRepository.lockAllById(List.of(10L))).thenReturn(List.of(copy));
+
+        List<BorrowingItemResultDTO> results = borrowingRecordService.returnBooks(List.of(
+                new BorrowingItemDTO(1L, 2L),
+                new BorrowingItemDTO(1L, 1L),
+                new BorrowingItemDTO(3L, 1L)));
+
+        assertFalse(results.get(0).isSuccess());
+        assertTrue(results.get(1).isSuccess());
+        assertNotNull(results.get(1).getRecord().getReturnDate());
+        assertFalse(results.get(2).isSuccess());
+        verify(bookRepository).adjustCopies(List.of(1L), 0, 1);
+    }
+
+    @Test
+    void returnBooks_ShouldShelveEveryCopyBeforeTouchingAnyCounter() {
+        copy.setStatus(BookStatus.BORROWED);
+        Book otherBook = new Book();
+        otherBook.setId(2L);
+        BookCopy otherCopy = new BookCopy(otherBook, BookStatus.BORROWED);
+        otherCopy.setId(20L);
+        BorrowingRecord otherRecord = new BorrowingRecord();
+        otherRecord.setBook(otherBook);
+        otherRecord.setCopy(otherCopy);
+        otherRecord.setPatron(patron);
+        when(borrowingRecordRepository.findActiveByBookIds(anyCollection())).thenReturn(List.of(otherRecord, borrowingRecord));
+        when(bookCopyRepository.lockAllById(List.of(10L, 20L))).thenReturn(List.of(copy, otherCopy));
+
+        borrowingRecordService.returnBooks(List.of(new BorrowingItemDTO(2L, 1L), new BorrowingItemDTO(1L, 1L)));
+
+        // Copies before titles, titles locked in id order before their queues are read and one counter update covers both
+        InOrder locks = inOrder(bookCopyRepository, bookRepository, holdService);
+        locks.verify(bookCopyRepository).lockAllById(List.of(10L, 20L));
+        locks.verify(bookRepository).lockAllById(Set.of(1L, 2L));
+        locks.verify(holdService).findQueuedBooks(Set.of(1L, 2L));
+        locks.verify(bookCopyRepository).updateStatus(List.of(10L, 20L), BookStatus.BORROWED, BookStatus.AVAILABLE);
+        locks.verify(bookRepository).adjustCopies(List.of(1L, 2L), 0, 1);
     }
 }
@@ -0,0 +1,51 @@
+package com.library.borrowing.service;
+
+import com.library.borrowing.repository.ArchivedBorrowingRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanArchiverTest {
+
+    @Mock
+    private ArchivedBorrowingRecordRepository archivedBorrowingRecordRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private LoanArchiver loanArchiver;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        loanArchiver = new LoanArchiver(archivedBorrowingRecordRepository, meterRegistry, 12);
+    }
+
+    @Test
+    void archive_ShouldArchiveEveryMonthBeforeThresholdAndSkipFailedOnes() {
+        LocalDate before = LocalDate.now().withDayOfMonth(1).minusMonths(12);
+        LocalDate january = LocalDate.of(2024, 1, 1);
+        LocalDate february = LocalDate.of(2024, 2, 1);
+        LocalDate march = LocalDate.of(2024, 3, 1);
+        when(archivedBorrowingRecordRepository.findArchivableMonths(before)).thenReturn(List.of(Date.valueOf(january), Date.valueOf(february), Date.valueOf(march)));
+        when(archivedBorrowingRecordRepository.archiveMonth(january)).thenReturn(120L);
+        when(archivedBorrowingRecordRepository.archiveMonth(february)).thenThrow(new CannotAcquireLockException("lock timeout"));
+        when(archivedBorrowingRecordRepository.archiveMonth(march)).thenReturn(80L);
+
+        long archived = loanArchiver.archive();
+
+        assertEquals(200L, archived);
+        assertEquals(200.0, meterRegistry.get(LoanArchiver.ARCHIVED_METRIC).counter().count());
+        verify(archivedBorrowingRecordRepository).archiveMonth(march);
+    }
+}
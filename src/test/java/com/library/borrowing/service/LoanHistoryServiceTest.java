@@ -0,0 +1,108 @@
+package com.library.borrowing.service;
+
+import com.library.book.repository.BookRepository;
+import com.library.borrowing.dto.LoanDTO;
+import com.library.borrowing.dto.LoanPageDTO;
+import com.library.borrowing.repository.ArchivedBorrowingRecordRepository;
+import com.library.borrowing.repository.BorrowingRecordRepository;
+import com.library.exception.InvalidRequestException;
+import com.library.patron.repository.PatronRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanHistoryServiceTest {
+
+    @Mock
+    private BorrowingRecordRepository borrowingRecordRepository;
+
+    @Mock
+    private ArchivedBorrowingRecordRepository archivedBorrowingRecordRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private PatronRepository patronRepository;
+
+    @InjectMocks
+    private LoanHistoryService loanHistoryService;
+
+    @Test
+    void getPatronLoans_ShouldReturnCursorResumingAfterLastLoan() {
+        LocalDateTime borrowed = LocalDateTime.of(2026, 3, 1, 10, 0);
+        LoanDTO newest = loan(12L, borrowed);
+        LoanDTO older = loan(11L, borrowed);
+        when(borrowingRecordRepository.findLoansByPatron(eq(7L), any(), eq(Long.MAX_VALUE), eq(Limit.of(2))))
+                .thenReturn(List.of(newest, older));
+        when(borrowingRecordRepository.findLoansByPatron(7L, borrowed, 12L, Limit.of(2)))
+                .thenReturn(List.of(older));
+
+        LoanPageDTO first = loanHistoryService.getPatronLoans(7L, false, null, 1);
+        LoanPageDTO second = loanHistoryService.getPatronLoans(7L, false, first.getNextCursor(), 1);
+
+        assertEquals(List.of(12L), first.getItems().stream().map(LoanDTO::getId).toList());
+        assertNotNull(first.getNextCursor());
+        assertEquals(List.of(11L), second.getItems().stream().map(LoanDTO::getId).toList());
+        assertNull(second.getNextCursor());
+        verifyNoInteractions(patronRepository);
+    }
+
+    @Test
+    void getPatronLoans_ShouldMergeArchivedLoansNewestFirst() {
+        LocalDateTime recent = LocalDateTime.of(2026, 3, 1, 10, 0);
+        LocalDateTime old = LocalDateTime.of(2024, 5, 1, 10, 0);
+        // A loan of an archived month that was still open when its month was archived
+        when(borrowingRecordRepository.findLoansByPatron(eq(7L), any(), any(), eq(Limit.of(3))))
+                .thenReturn(List.of(loan(40L, recent), loan(5L, old.minusDays(1))));
+        when(archivedBorrowingRecordRepository.findLoansByPatron(eq(7L), any(), any(), eq(Limit.of(3))))
+                .thenReturn(List.of(loan(9L, old), loan(4L, old.minusDays(2))));
+
+        LoanPageDTO page = loanHistoryService.getPatronLoans(7L, false, null, 2);
+
+        assertEquals(List.of(40L, 9L), page.getItems().stream().map(LoanDTO::getId).toList());
+        assertNotNull(page.getNextCursor());
+    }
+
+    @Test
+    void getPatronLoans_WhenActiveOnly_ShouldQueryActiveLoans() {
+        when(borrowingRecordRepository.findActiveLoansByPatron(eq(7L), any(), any(), any()))
+                .thenReturn(List.of(loan(12L, LocalDateTime.now())));
+
+        LoanPageDTO page = loanHistoryService.getPatronLoans(7L, true, null, null);
+
+        assertEquals(1, page.getSize());
+        verify(borrowingRecordRepository, never()).findLoansByPatron(any(), any(), any(), any());
+    }
+
+    @Test
+    void getBookLoans_WhenBookDoesNotExist_ShouldThrowEntityNotFoundException() {
+        when(borrowingRecordRepository.findLoansByBook(eq(99L), any(), any(), any())).thenReturn(List.of());
+        when(bookRepository.existsById(99L)).thenReturn(false);
+
+        assertThrows(EntityNotFoundException.class, () -> loanHistoryService.getBookLoans(99L, false, null, null));
+    }
+
+    @Test
+    void getBookLoans_WhenCursorIsMalformed_ShouldThrowInvalidRequestException() {
+        assertThrows(InvalidRequestException.class, () -> loanHistoryService.getBookLoans(1L, false, "bm90LWEtY3Vyc29y", null));
+        assertThrows(InvalidRequestException.class, () -> loanHistoryService.getBookLoans(1L, false, null, 0));
+    }
+
+    private static LoanDTO loan(Long id, LocalDateTime borrowDate) {
+        return new LoanDTO(id, 1L, "Dune", 7L, "Patron", borrowDate, borrowDate.plusDays(14), null);
+    }
+}
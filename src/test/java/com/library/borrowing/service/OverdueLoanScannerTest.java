@@ -0,0 +1,105 @@
+package com.library.borrowing.service;
+
+import com.library.borrowing.dto.LoanDTO;
+import com.library.borrowing.event.LoanOverdueEvent;
+import com.library.borrowing.repository.BorrowingRecordRepository;
+import com.library.job.entity.JobWatermark;
+import com.library.job.repository.JobWatermarkRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OverdueLoanScannerTest {
+
+    @Mock
+    private BorrowingRecordRepository borrowingRecordRepository;
+
+    @Mock
+    private JobWatermarkRepository jobWatermarkRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OverdueLoanScanner scanner;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        scanner = new OverdueLoanScanner(borrowingRecordRepository, jobWatermarkRepository, eventPublisher,
+                transactionManager, meterRegistry, 2, true);
+    }
+
+    @Test
+    void scan_ShouldResumeFromWatermarkInBatchesAndAdvanceIt() {
+        LocalDateTime watermark = LocalDateTime.of(2026, 3, 1, 0, 0);
+        LoanDTO first = loan(5L, watermark.plusHours(1));
+        LoanDTO second = loan(3L, watermark.plusHours(2));
+        LoanDTO third = loan(9L, watermark.plusHours(2));
+        when(jobWatermarkRepository.tryAdvisoryLock(OverdueLoanScanner.JOB_NAME)).thenReturn(true);
+        when(jobWatermarkRepository.findById(OverdueLoanScanner.JOB_NAME))
+                .thenReturn(Optional.of(new JobWatermark(OverdueLoanScanner.JOB_NAME, watermark)));
+        when(borrowingRecordRepository.findOverdueAfter(any(), eq(watermark), eq(0L), eq(Limit.of(2))))
+                .thenReturn(List.of(first, second));
+        when(borrowingRecordRepository.findOverdueAfter(any(), eq(second.getDueDate()), eq(3L), eq(Limit.of(2))))
+                .thenReturn(List.of(third));
+        when(borrowingRecordRepository.countOverdue(any())).thenReturn(7L);
+
+        LocalDateTime startedAt = LocalDateTime.now();
+        assertEquals(3, scanner.scan());
+
+        verify(eventPublisher, times(3)).publishEvent(any(LoanOverdueEvent.class));
+        ArgumentCaptor<JobWatermark> saved = ArgumentCaptor.forClass(JobWatermark.class);
+        verify(jobWatermarkRepository).save(saved.capture());
+        assertFalse(saved.getValue().getWatermark().isBefore(startedAt));
+        assertEquals(3.0, meterRegistry.get(OverdueLoanScanner.DETECTED_METRIC).counter().count());
+        assertEquals(7.0, meterRegistry.get(OverdueLoanScanner.OPEN_METRIC).gauge().value());
+        assertEquals(1, meterRegistry.get(OverdueLoanScanner.SCAN_METRIC).tag("outcome", "completed").timer().count());
+    }
+
+    @Test
+    void scan_WhenFirstRun_ShouldStartFromInitialWatermark() {
+        when(jobWatermarkRepository.tryAdvisoryLock(OverdueLoanScanner.JOB_NAME)).thenReturn(true);
+        when(jobWatermarkRepository.findById(OverdueLoanScanner.JOB_NAME)).thenReturn(Optional.empty());
+        when(borrowingRecordRepository.findOverdueAfter(any(), eq(OverdueLoanScanner.INITIAL_WATERMARK), eq(0L), any()))
+                .thenReturn(List.of());
+
+        assertEquals(0, scanner.scan());
+        verify(jobWatermarkRepository).save(any(JobWatermark.class));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void scan_WhenAnotherNodeHoldsTheLock_ShouldSkip() {
+        when(jobWatermarkRepository.tryAdvisoryLock(OverdueLoanScanner.JOB_NAME)).thenReturn(false);
+
+        assertEquals(-1, scanner.scan());
+        verify(jobWatermarkRepository, never()).findById(any());
+        verifyNoInteractions(borrowingRecordRepository);
+        assertEquals(1, meterRegistry.get(OverdueLoanScanner.SCAN_METRIC).tag("outcome", "skipped").timer().count());
+    }
+
+    private static LoanDTO loan(Long id, LocalDateTime dueDate) {
+        return new LoanDTO(id, 1L, "Dune", 7L, "Patron", dueDate.minusDays(14), dueDate, null);
+    }
+}
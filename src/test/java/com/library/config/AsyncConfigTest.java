@@ -0,0 +1,41 @@
+package com.library.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncConfigTest {
+
+    @Test
+    void limitConcurrency_ShouldRejectTasksBeyondTheLimitInsteadOfBlockingTheCaller() throws Exception {
+        SimpleAsyncTaskExecutor virtualThreads = new SimpleAsyncTaskExecutor("test-stream-");
+        virtualThreads.setVirtualThreads(true);
+        AsyncTaskExecutor streams = AsyncConfig.limitConcurrency(virtualThreads, 2);
+        CountDownLatch slowClients = new CountDownLatch(1);
+
+        Future<?> first = streams.submit(() -> awaitQuietly(slowClients));
+        Future<?> second = streams.submit(() -> awaitQuietly(slowClients));
+
+        assertThrows(TaskRejectedException.class, () -> streams.submit(() -> { }));
+        slowClients.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        // Permits are handed back once a task ends
+        assertDoesNotThrow(() -> streams.submit(() -> { }).get(5, TimeUnit.SECONDS));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
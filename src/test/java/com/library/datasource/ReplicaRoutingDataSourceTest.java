@@ -0,0 +1,179 @@
+package com.library.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica;
+
+    @Mock
+    private ReplicaLagMonitor lagMonitor;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection replicaConnection;
+
+    private ReadYourWritesTracker readYourWrites;
+    private SimpleMeterRegistry meterRegistry;
+    private ReplicaRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        readYourWrites = new ReadYourWritesTracker(Duration.ofMinutes(1), 100);
+        meterRegistry = new SimpleMeterRegistry();
+        dataSource = new ReplicaRoutingDataSource(primary, replica, lagMonitor, readYourWrites, meterRegistry);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("alice", null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void getConnection_ShouldUseReplica_ForReadOnlyTransactionWhileCaughtUp() throws SQLException {
+        beginTransaction(true);
+        when(lagMonitor.isUsable()).thenReturn(true);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+
+        assertSame(replicaConnection, dataSource.getConnection());
+        assertEquals(1.0, routed("replica"));
+    }
+
+    @Test
+    void getConnection_ShouldUsePrimary_WhenReplicaLagsOrOutsideTransaction() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertSame(primaryConnection, dataSource.getConnection());
+
+        beginTransaction(true);
+        when(lagMonitor.isUsable()).thenReturn(false);
+        assertSame(primaryConnection, dataSource.getConnection());
+
+        verifyNoInteractions(replica);
+        assertEquals(2.0, routed("primary"));
+    }
+
+    @Test
+    void getConnection_ShouldFallBackToPrimary_WhenReplicaCannotBeReached() throws SQLException {
+        beginTransaction(true);
+        SQLException unreachable = new SQLException("Connection refused");
+        when(lagMonitor.isUsable()).thenReturn(true);
+        when(replica.getConnection()).thenThrow(unreachable);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertSame(primaryConnection, dataSource.getConnection());
+        verify(lagMonitor).markUnavailable(unreachable);
+    }
+
+    @Test
+    void getConnection_ShouldKeepWriterOnPrimary_AfterWriteCommits() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        beginTransaction(false);
+
+        dataSource.getConnection();
+        assertFalse(readYourWrites.wroteRecently("alice"));
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertTrue(readYourWrites.wroteRecently("alice"));
+
+        tearDown();
+        beginTransaction(true);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("alice", null, List.of()));
+        when(lagMonitor.isUsable()).thenReturn(true);
+
+        assertSame(primaryConnection, dataSource.getConnection());
+        verifyNoInteractions(replica);
+    }
+
+    @Test
+    void getConnection_ShouldNotStickWriter_WhenWriteRollsBack() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        beginTransaction(false);
+
+        dataSource.getConnection();
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertFalse(readYourWrites.wroteRecently("alice"));
+    }
+
+    @Test
+    void getConnection_ShouldUsePrimary_WhenACacheableReadFillsTheCache() throws SQLException {
+        beginTransaction(true);
+        when(lagMonitor.isUsable()).thenReturn(true);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new BookReads(dataSource));
+        proxyFactory.addAspect(new CacheFillRoutingAspect());
+        BookReads reads = proxyFactory.getProxy();
+
+        // Without the aspect this value would come from the replica and stay cached after it caught up
+        assertSame(primaryConnection, reads.cachedRead());
+        assertSame(replicaConnection, reads.uncachedRead());
+        // The cached read is not a write, so the user's other reads still go to the replica
+        assertFalse(readYourWrites.wroteRecently("alice"));
+        assertSame(replicaConnection, dataSource.getConnection());
+    }
+
+    private static void beginTransaction(boolean readOnly) {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+
+    private double routed(String target) {
+        return meterRegistry.get(ReplicaRoutingDataSource.ROUTED_METRIC).tag("target", target).counter().count();
+    }
+
+    static class BookReads {
+        private final DataSource dataSource;
+
+        BookReads(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        @Cacheable("books")
+        public Connection cachedRead() throws SQLException {
+            return dataSource.getConnection();
+        }
+
+        public Connection uncachedRead() throws SQLException {
+            return dataSource.getConnection();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.library.hold.service;
+
+import com.library.book.entity.Book;
+import com.library.book.enums.BookStatus;
+import com.library.book.repository.BookRepository;
+import com.library.borrowing.repository.BorrowingRecordRepository;
+import com.library.hold.dto.HoldDTO;
+import com.library.hold.entity.Hold;
+import com.library.hold.enums.HoldStatus;
+import com.library.hold.repository.HoldRepository;
+import com.library.patron.entity.Patron;
+import com.library.patron.repository.PatronRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HoldServiceTest {
+
+    @Mock
+    private HoldRepository holdRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private PatronRepository patronRepository;
+
+    @Mock
+    private BorrowingRecordRepository borrowingRecordRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private HoldService holdService;
+    private Book book;
+    private Patron patron;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        holdService = new HoldService(holdRepository, bookRepository, patronRepository, borrowingRecordRepository, meterRegistry);
+
+        book = new Book();
+        book.setId(1L);
+        book.setStatus(BookStatus.BORROWED);
+        patron = new Patron();
+        patron.setId(2L);
+    }
+
+    @Test
+    void placeHold_WhenEveryCopyIsLent_ShouldQueueThePatronBehindEarlierHolds() {
+        when(bookRepository.lockById(1L)).thenReturn(Optional.of(book));
+        when(patronRepository.findById(2L)).thenReturn(Optional.of(patron));
+        when(holdRepository.save(any(Hold.class))).thenAnswer(invocation -> {
+            Hold hold = invocation.getArgument(0);
+            hold.setId(7L);
+            return hold;
+        });
+        when(holdRepository.countWaitingBefore(eq(1L), any(), eq(7L))).thenReturn(2L);
+
+        HoldDTO hold = holdService.placeHold(1L, 2L);
+
+        assertEquals("WAITING", hold.getStatus());
+        assertEquals(3, hold.getPosition());
+        assertEquals(1, meterRegistry.get(HoldService.QUEUE_DEPTH_METRIC).summary().count());
+        assertEquals(3.0, meterRegistry.get(HoldService.QUEUE_DEPTH_METRIC).summary().max());
+    }
+
+    @Test
+    void placeHold_WhenACopyIsOnTheShelf_ShouldThrowIllegalStateException() {
+        book.setStatus(BookStatus.AVAILABLE);
+        when(bookRepository.lockById(1L)).thenReturn(Optional.of(book));
+
+        assertThrows(IllegalStateException.class, () -> holdService.placeHold(1L, 2L));
+        verify(holdRepository, never()).save(any());
+    }
+
+    @Test
+    void placeHold_WhenThePatronIsAlreadyWaiting_ShouldThrowIllegalStateException() {
+        when(bookRepository.lockById(1L)).thenReturn(Optional.of(book));
+        when(patronRepository.findById(2L)).thenReturn(Optional.of(patron));
+        when(holdRepository.existsByBookIdAndPatronIdAndStatus(1L, 2L, HoldStatus.WAITING)).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () -> holdService.placeHold(1L, 2L));
+        verify(holdRepository, never()).save(any());
+    }
+
+    @Test
+    void cancelHold_WhenNoHoldIsWaiting_ShouldThrowEntityNotFoundException() {
+        when(holdRepository.cancelWaiting(eq(1L), eq(2L), any())).thenReturn(0);
+
+        assertThrows(EntityNotFoundException.class, () -> holdService.cancelHold(1L, 2L));
+    }
+
+    @Test
+    void fulfil_ShouldCloseTheHoldsAndRecordHowLongThePatronsWaited() {
+        Hold hold = new Hold(book, patron, LocalDateTime.now().minusHours(2));
+
+        holdService.fulfil(List.of(hold));
+
+        assertEquals(HoldStatus.FULFILLED, hold.getStatus());
+        assertNotNull(hold.getClosedAt());
+        assertEquals(1, meterRegistry.get(HoldService.WAIT_METRIC).timer().count());
+        assertTrue(meterRegistry.get(HoldService.WAIT_METRIC).timer().totalTime(TimeUnit.MINUTES) >= 119);
+    }
+
+    @Test
+    void waitingGauge_ShouldReportTheHoldsWaitingInTheDatabase() {
+        when(holdRepository.countByStatus(HoldStatus.WAITING)).thenReturn(4L);
+
+        assertEquals(4.0, meterRegistry.get(HoldService.WAITING_METRIC).gauge().value());
+    }
+}
@@ -0,0 +1,154 @@
+package com.library.metrics;
+
+import com.library.book.dto.BookDTO;
+import com.library.book.repository.BookCopyRepository;
+import com.library.book.repository.BookRepository;
+import com.library.book.service.BookService;
+import com.library.borrowing.repository.BorrowingRecordRepository;
+import com.library.hold.repository.HoldRepository;
+import com.library.patron.entity.Patron;
+import com.library.patron.repository.PatronRepository;
+import com.library.security.JwtTokenProvider;
+import com.library.user.Role;
+import com.library.user.User;
+import com.library.user.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Sends requests through the whole filter chain, so the statements counted by the Hibernate listener
+ * are checked against each endpoint's {@link QueryBudget}; the h2 profile fails requests over budget.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class QueryBudgetIntegrationTest {
+
+    // More titles than a bulk budget could absorb if statements were issued per title
+    private static final int TITLES = 40;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookCopyRepository bookCopyRepository;
+
+    @Autowired
+    private BorrowingRecordRepository borrowingRecordRepository;
+
+    @Autowired
+    private HoldRepository holdRepository;
+
+    @Autowired
+    private PatronRepository patronRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private String token;
+    private final List<Long> bookIds = new ArrayList<>();
+    private Long patronId;
+
+    @BeforeEach
+    void setUp() {
+        holdRepository.deleteAll();
+        borrowingRecordRepository.deleteAll();
+        patronRepository.deleteAll();
+        userRepository.deleteAll();
+        bookCopyRepository.deleteAll();
+        bookRepository.deleteAll();
+
+        for (int i = 0; i < TITLES; i++) {
+            BookDTO book = new BookDTO("Budget " + i, "Author", LocalDate.now(), String.format("%013d", 9_000 + i), "AVAILABLE");
+            book.setTotalCopies(2);
+            bookIds.add(bookService.createBook(book).getId());
+        }
+        User librarian = new User();
+        librarian.setUsername("librarian");
+        librarian.setPassword("password");
+        librarian.setRole(Role.ADMIN);
+        token = jwtTokenProvider.generateToken(userRepository.save(librarian));
+
+        User user = new User();
+        user.setUsername("patron");
+        user.setPassword("password");
+        user.setRole(Role.PATRON);
+        Patron patron = new Patron("Patron", "patron@example.com", null, null);
+        patron.setUser(userRepository.save(user));
+        patronId = patronRepository.save(patron).getId();
+    }
+
+    @Test
+    void bulkBorrowAndReturn_OfManyTitles_ShouldStayWithinTheirBudget() throws Exception {
+        String body = bookIds.stream()
+                .map(bookId -> "{\"bookId\":" + bookId + ",\"patronId\":" + patronId + "}")
+                .collect(Collectors.joining(",", "{\"items\":[", "]}"));
+
+        MvcResult borrowed = mockMvc.perform(post("/api/borrow/bulk").contentType(MediaType.APPLICATION_JSON).content(body)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.success == false)]").isEmpty())
+                .andReturn();
+        assertWithinBudget(borrowed, 25);
+
+        MvcResult returned = mockMvc.perform(put("/api/return/bulk").contentType(MediaType.APPLICATION_JSON).content(body)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.success == false)]").isEmpty())
+                .andReturn();
+        assertWithinBudget(returned, 25);
+    }
+
+    @Test
+    void getAllBooks_ShouldStayWithinTheDefaultBudget() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/books").param("size", "50")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult page = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(TITLES))
+                .andReturn();
+
+        assertWithinBudget(page, 20);
+    }
+
+    // The header is written by QueryCountFilter, so it also proves the statements were counted at all
+    private static void assertWithinBudget(MvcResult result, int budget) {
+        String header = result.getResponse().getHeader(QueryCountFilter.QUERY_COUNT_HEADER);
+        assertTrue(header != null, "No " + QueryCountFilter.QUERY_COUNT_HEADER + " header");
+        int statements = Integer.parseInt(header);
+        assertTrue(statements > 0 && statements <= budget, statements + " statements against a budget of " + budget);
+    }
+}
@@ -0,0 +1,103 @@
+package com.library.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCountFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        request = new MockHttpServletRequest("GET", "/api/books/1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/books/{id}");
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    void doFilter_ShouldRecordStatementsAndWriteHeaders() throws Exception {
+        new QueryCountFilter(meterRegistry, true, 0, true).doFilter(request, response, executing(3));
+
+        assertEquals(3.0, meterRegistry.get(QueryCountFilter.QUERIES_METRIC).tag("uri", "/api/books/{id}").summary().totalAmount());
+        assertEquals(1, meterRegistry.get(QueryCountFilter.QUERY_TIME_METRIC).tag("method", "GET").timer().count());
+        assertEquals("3", response.getHeader(QueryCountFilter.QUERY_COUNT_HEADER));
+        assertNotNull(response.getHeader(QueryCountFilter.QUERY_TIME_HEADER));
+    }
+
+    @Test
+    void doFilter_ShouldOnlyFailOverBudgetWhenConfigured() throws Exception {
+        assertThrows(IllegalStateException.class,
+                () -> new QueryCountFilter(meterRegistry, false, 2, true).doFilter(request, response, executing(3)));
+
+        new QueryCountFilter(meterRegistry, false, 2, false).doFilter(request, new MockHttpServletResponse(), executing(3));
+        assertNull(response.getHeader(QueryCountFilter.QUERY_COUNT_HEADER));
+        assertEquals(2, meterRegistry.get(QueryCountFilter.QUERIES_METRIC).summary().count());
+    }
+
+    @Test
+    void doFilter_ShouldPreferHandlerBudgetOverDefault() throws Exception {
+        request.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE,
+                new HandlerMethod(new BudgetedHandler(), BudgetedHandler.class.getMethod("bulk")));
+
+        new QueryCountFilter(meterRegistry, false, 2, true).doFilter(request, response, executing(5));
+        assertThrows(IllegalStateException.class,
+                () -> new QueryCountFilter(meterRegistry, false, 2, true).doFilter(request, new MockHttpServletResponse(), executing(6)));
+    }
+
+    @Test
+    void doFilter_ShouldRecordAsyncRequestOnceItsResultIsDispatched() throws Exception {
+        QueryCountFilter filter = new QueryCountFilter(meterRegistry, true, 0, true);
+        request.setAsyncSupported(true);
+        Runnable[] work = new Runnable[1];
+        filter.doFilter(request, response, (req, res) -> {
+            RequestQueryStatistics.current().record(1_000_000);
+            // The statements of the executor task count towards the request that submitted it
+            work[0] = RequestQueryStatistics.propagating(() -> RequestQueryStatistics.current().record(1_000_000));
+            StandardServletAsyncWebRequest asyncRequest =
+                    new StandardServletAsyncWebRequest((HttpServletRequest) req, (HttpServletResponse) res);
+            WebAsyncUtils.getAsyncManager(req).setAsyncWebRequest(asyncRequest);
+            asyncRequest.startAsync();
+        });
+        assertTrue(meterRegistry.find(QueryCountFilter.QUERIES_METRIC).summaries().isEmpty());
+
+        Thread worker = new Thread(work[0]);
+        worker.start();
+        worker.join();
+        request.setDispatcherType(DispatcherType.ASYNC);
+        request.setAsyncStarted(false);
+        filter.doFilter(request, response, executing(1));
+
+        assertEquals(3.0, meterRegistry.get(QueryCountFilter.QUERIES_METRIC).summary().totalAmount());
+        assertEquals("3", response.getHeader(QueryCountFilter.QUERY_COUNT_HEADER));
+    }
+
+    private static FilterChain executing(int statements) {
+        return (request, response) -> {
+            for (int i = 0; i < statements; i++) {
+                RequestQueryStatistics.current().record(1_000_000);
+            }
+        };
+    }
+
+    static class BudgetedHandler {
+        @QueryBudget(5)
+        public void bulk() {
+        }
+    }
+}
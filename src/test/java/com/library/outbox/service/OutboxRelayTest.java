@@ -0,0 +1,99 @@
+package com.library.outbox.service;
+
+import com.library.job.repository.JobWatermarkRepository;
+import com.library.outbox.entity.OutboxEvent;
+import com.library.outbox.event.OutboxMessage;
+import com.library.outbox.repository.OutboxEventRepository;
+import com.library.outbox.sink.OutboxSink;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private JobWatermarkRepository jobWatermarkRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private OutboxSink bus;
+
+    @Mock
+    private OutboxSink file;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        relay = new OutboxRelay(outboxEventRepository, jobWatermarkRepository, List.of(bus, file),
+                transactionManager, meterRegistry, 2, 10, true);
+    }
+
+    @Test
+    void relay_ShouldPublishBatchesToEverySinkAndDeleteThem() throws Exception {
+        List<OutboxEvent> first = List.of(event(1L), event(2L));
+        List<OutboxEvent> second = List.of(event(3L));
+        when(jobWatermarkRepository.tryAdvisoryLock(OutboxRelay.JOB_NAME)).thenReturn(true);
+        when(outboxEventRepository.findOldest(Limit.of(2))).thenReturn(first, second);
+
+        assertEquals(3, relay.relay());
+
+        verify(bus).publish(argThat(batch -> batch.stream().map(OutboxMessage::getId).toList().equals(List.of(1L, 2L))));
+        verify(file).publish(argThat(batch -> batch.stream().map(OutboxMessage::getId).toList().equals(List.of(3L))));
+        verify(outboxEventRepository).deleteAllInBatch(first);
+        verify(outboxEventRepository).deleteAllInBatch(second);
+        assertEquals(3.0, meterRegistry.get(OutboxRelay.PUBLISHED_METRIC).counter().count());
+        assertEquals(1, meterRegistry.get(OutboxRelay.RELAY_METRIC).tag("outcome", "completed").timer().count());
+    }
+
+    @Test
+    void relay_WhenASinkFails_ShouldKeepTheBatchInTheOutbox() throws Exception {
+        when(jobWatermarkRepository.tryAdvisoryLock(OutboxRelay.JOB_NAME)).thenReturn(true);
+        when(outboxEventRepository.findOldest(Limit.of(2))).thenReturn(List.of(event(1L)));
+        doThrow(new IOException("disk full")).when(file).publish(anyList());
+
+        assertThrows(IllegalStateException.class, () -> relay.relay());
+
+        verify(outboxEventRepository, never()).deleteAllInBatch(any());
+        assertEquals(0.0, meterRegistry.get(OutboxRelay.PUBLISHED_METRIC).counter().count());
+        assertEquals(1, meterRegistry.get(OutboxRelay.RELAY_METRIC).tag("outcome", "failed").timer().count());
+    }
+
+    @Test
+    void relay_WhenAnotherNodeHoldsTheLock_ShouldSkipTheRun() {
+        when(jobWatermarkRepository.tryAdvisoryLock(OutboxRelay.JOB_NAME)).thenReturn(false);
+
+        assertEquals(-1, relay.relay());
+
+        verify(outboxEventRepository, never()).findOldest(any());
+        assertEquals(1, meterRegistry.get(OutboxRelay.RELAY_METRIC).tag("outcome", "skipped").timer().count());
+    }
+
+    private static OutboxEvent event(Long id) {
+        OutboxEvent event = new OutboxEvent("book", 7L, "BOOK_UPDATED", "{\"id\":7}", LocalDateTime.now());
+        event.setId(id);
+        return event;
+    }
+}
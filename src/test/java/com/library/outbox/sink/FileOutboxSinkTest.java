@@ -0,0 +1,42 @@
+package com.library.outbox.sink;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.library.outbox.event.OutboxMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileOutboxSinkTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void publish_ShouldAppendOneJsonLinePerMessageWithThePayloadInline() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        Path path = dir.resolve("events/outbox.ndjson");
+        FileOutboxSink sink = new FileOutboxSink(path, objectMapper);
+
+        sink.publish(List.of(message(1L)));
+        sink.publish(List.of(message(2L), message(3L)));
+
+        List<String> lines = Files.readAllLines(path);
+        assertEquals(3, lines.size());
+        JsonNode last = objectMapper.readTree(lines.get(2));
+        assertEquals(3L, last.get("id").asLong());
+        assertEquals("BOOK_RETURNED", last.get("type").asText());
+        assertEquals(42L, last.get("payload").get("patronId").asLong());
+    }
+
+    private static OutboxMessage message(Long id) {
+        return new OutboxMessage(id, "book", 7L, "BOOK_RETURNED", LocalDateTime.now(), "{\"bookId\":7,\"patronId\":42}");
+    }
+}
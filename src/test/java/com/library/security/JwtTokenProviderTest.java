@@ -0,0 +1,117 @@
+package com.library.security;
+
+import com.library.config.JwtConfig;
+import com.library.user.Role;
+import com.library.user.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtTokenProviderTest {
+
+    @Mock
+    private JwtConfig jwtConfig;
+
+    @Mock
+    private TokenRevocationList tokenRevocationList;
+
+    private JwtTokenProvider jwtTokenProvider;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(jwtConfig.getSecret()).thenReturn("secret");
+        lenient().when(jwtConfig.getExpiration()).thenReturn(3600);
+        when(jwtConfig.getVerifiedCacheSize()).thenReturn(100);
+        jwtTokenProvider = new JwtTokenProvider(jwtConfig, tokenRevocationList);
+
+        user = new User();
+        user.setId(7L);
+        user.setUsername("reader");
+        user.setRole(Role.PATRON);
+    }
+
+    @Test
+    void parseClaims_WhenTokenIsValid_ShouldReturnClaimsForSubject() {
+        String token = jwtTokenProvider.generateToken(user);
+
+        Claims claims = jwtTokenProvider.parseClaims(token);
+
+        assertEquals("reader", claims.getSubject());
+        assertTrue(jwtTokenProvider.validateToken(claims, user));
+    }
+
+    @Test
+    void parseClaims_WhenTokenWasAlreadyVerified_ShouldReuseCachedClaims() {
+        String token = jwtTokenProvider.generateToken(user);
+
+        Claims first = jwtTokenProvider.parseClaims(token);
+        Claims second = jwtTokenProvider.parseClaims(token);
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void parseClaims_WhenSignedWithAnotherKey_ShouldThrowSignatureException() {
+        String token = Jwts.builder()
+                .setSubject("reader")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.HS512, "another-secret")
+                .compact();
+
+        assertThrows(SignatureException.class, () -> jwtTokenProvider.parseClaims(token));
+    }
+
+    @Test
+    void validateToken_WhenSubjectDoesNotMatchUser_ShouldReturnFalse() {
+        Claims claims = jwtTokenProvider.parseClaims(jwtTokenProvider.generateToken(user));
+        User otherUser = new User();
+        otherUser.setUsername("someone-else");
+
+        assertFalse(jwtTokenProvider.validateToken(claims, otherUser));
+    }
+
+    @Test
+    void getUserFromClaims_WhenStatelessModeEnabled_ShouldBuildPrincipalFromClaims() {
+        when(jwtConfig.isStateless()).thenReturn(true);
+        user.setTokenVersion(3);
+        Claims claims = jwtTokenProvider.parseClaims(jwtTokenProvider.generateToken(user));
+
+        assertTrue(jwtTokenProvider.isStateless(claims));
+        User principal = jwtTokenProvider.getUserFromClaims(claims);
+
+        assertEquals(7L, principal.getId());
+        assertEquals(Role.PATRON, principal.getRole());
+        assertEquals(3, principal.getTokenVersion());
+        assertTrue(jwtTokenProvider.validateToken(claims, principal));
+    }
+
+    @Test
+    void validateToken_WhenTokenVersionWasRevoked_ShouldReturnFalse() {
+        Claims claims = jwtTokenProvider.parseClaims(jwtTokenProvider.generateToken(user));
+        when(tokenRevocationList.isRevoked(7L, 0)).thenReturn(true);
+
+        assertFalse(jwtTokenProvider.validateToken(claims, user));
+    }
+
+    @Test
+    void validateToken_WhenUserVersionIsNewerThanToken_ShouldReturnFalse() {
+        Claims claims = jwtTokenProvider.parseClaims(jwtTokenProvider.generateToken(user));
+        user.setTokenVersion(1);
+
+        assertFalse(jwtTokenProvider.validateToken(claims, user));
+    }
+}
@@ -0,0 +1,83 @@
+package com.library.security;
+
+import com.library.config.JwtConfig;
+import com.library.user.RevokedUser;
+import com.library.user.RevokedUserRepository;
+import com.library.user.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationListTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private RevokedUserRepository revokedUserRepository;
+
+    @Mock
+    private JwtConfig jwtConfig;
+
+    private TokenRevocationList tokenRevocationList;
+
+    @BeforeEach
+    void setUp() {
+        tokenRevocationList = new TokenRevocationList(userRepository, revokedUserRepository, jwtConfig, 30_000);
+    }
+
+    @Test
+    void load_ShouldRestoreVersionBumpsAndDeletedUsers() {
+        when(jwtConfig.getExpiration()).thenReturn(3600);
+        when(userRepository.findRevokedTokenVersions()).thenReturn(List.<Object[]>of(new Object[]{1L, 3}));
+        when(revokedUserRepository.findAll()).thenReturn(List.of(new RevokedUser(2L, LocalDateTime.now())));
+
+        tokenRevocationList.load();
+
+        assertTrue(tokenRevocationList.isRevoked(1L, 2));
+        assertFalse(tokenRevocationList.isRevoked(1L, 3));
+        assertTrue(tokenRevocationList.isRevoked(2L, 5));
+        assertFalse(tokenRevocationList.isRevoked(3L, 0));
+    }
+
+    @Test
+    void load_ShouldPurgeDeletedUsersWhoseTokensHaveExpired() {
+        when(jwtConfig.getExpiration()).thenReturn(3600);
+        LocalDateTime oldestLiveToken = LocalDateTime.now().minusSeconds(3600);
+
+        tokenRevocationList.load();
+
+        verify(revokedUserRepository).deleteRevokedBefore(argThat(before ->
+                !before.isBefore(oldestLiveToken) && before.isBefore(oldestLiveToken.plusMinutes(1))));
+    }
+
+    @Test
+    void reload_ShouldPickUpRevocationsMadeOnOtherNodes() {
+        when(jwtConfig.getExpiration()).thenReturn(3600);
+        LocalDateTime loadedAt = LocalDateTime.now();
+        tokenRevocationList.load();
+        when(userRepository.findRevokedTokenVersions()).thenReturn(List.<Object[]>of(new Object[]{1L, 2}));
+        when(revokedUserRepository.findRevokedSince(any())).thenReturn(List.of(new RevokedUser(2L, LocalDateTime.now())));
+
+        tokenRevocationList.reload();
+
+        assertTrue(tokenRevocationList.isRevoked(1L, 1));
+        assertFalse(tokenRevocationList.isRevoked(1L, 2));
+        assertTrue(tokenRevocationList.isRevoked(2L, 0));
+        // Deletions committed shortly before the last load are read again
+        verify(revokedUserRepository).findRevokedSince(argThat(since ->
+                !since.isBefore(loadedAt.minusSeconds(30)) && since.isBefore(loadedAt.minusSeconds(29))));
+        verify(revokedUserRepository, times(1)).findAll();
+    }
+}